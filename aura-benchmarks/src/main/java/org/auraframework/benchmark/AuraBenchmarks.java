@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.benchmark;
+
+import org.auraframework.Aura;
+import org.auraframework.service.ContextService;
+import org.auraframework.system.AuraContext;
+import org.auraframework.system.AuraContext.Access;
+import org.auraframework.system.AuraContext.Format;
+import org.auraframework.system.AuraContext.Mode;
+
+/**
+ * Context handling shared by the benchmarks.
+ *
+ * Benchmarks run in PROD mode unless the system property {@value #MODE_PROPERTY} names another mode.
+ */
+public final class AuraBenchmarks {
+    public static final String MODE_PROPERTY = "aura.benchmark.mode";
+
+    private AuraBenchmarks() {
+    }
+
+    public static Mode getMode() {
+        String mode = System.getProperty(MODE_PROPERTY);
+        if (mode == null || mode.isEmpty()) {
+            return Mode.PROD;
+        }
+        return Mode.valueOf(mode.toUpperCase());
+    }
+
+    /**
+     * Start a context the way a request for JSON would.
+     */
+    public static AuraContext startContext() {
+        return Aura.getContextService().startContext(getMode(), Format.JSON, Access.AUTHENTICATED);
+    }
+
+    public static void endContext() {
+        ContextService contextService = Aura.getContextService();
+        if (contextService.isEstablished()) {
+            contextService.endContext();
+        }
+    }
+}
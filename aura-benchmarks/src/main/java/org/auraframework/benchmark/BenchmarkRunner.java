@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.auraframework.util.json.Json;
+import org.auraframework.util.json.JsonReader;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Runs the benchmarks and compares them against a stored baseline.
+ *
+ * <pre>
+ * -include regex    benchmarks to run, all by default
+ * -baseline file    baseline to compare against, a map of benchmark to score
+ * -threshold n      percentage a score may be slower than its baseline before it counts as a regression, 10 by default
+ * -results file     where JMH writes its full results
+ * -update           write the scores of this run as the new baseline instead of comparing
+ * </pre>
+ *
+ * All benchmarks report average time, so a higher score is slower. The process exits with 1 if any benchmark
+ * regressed, or if the baseline has no entries at all, as then nothing could be checked. Benchmarks missing from a
+ * baseline that has others are reported but never fail the run.
+ */
+public class BenchmarkRunner {
+    private String include = ".*";
+    private File baseline;
+    private double threshold = 10;
+    private File results;
+    private boolean update;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        runner.parseArgs(args);
+        System.exit(runner.run() ? 0 : 1);
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("-update".equals(arg)) {
+                update = true;
+            } else if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            } else if ("-include".equals(arg)) {
+                include = args[++i];
+            } else if ("-baseline".equals(arg)) {
+                baseline = new File(args[++i]);
+            } else if ("-threshold".equals(arg)) {
+                threshold = Double.parseDouble(args[++i]);
+            } else if ("-results".equals(arg)) {
+                results = new File(args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+    }
+
+    /**
+     * @return false if a benchmark regressed.
+     */
+    public boolean run() throws RunnerException, IOException {
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.include(include).shouldFailOnError(true);
+        if (results != null) {
+            results.getParentFile().mkdirs();
+            builder.resultFormat(ResultFormatType.JSON).result(results.getPath());
+        }
+        Options options = builder.build();
+        Collection<RunResult> runResults = new Runner(options).run();
+
+        Map<String, Double> scores = new TreeMap<String, Double>();
+        for (RunResult result : runResults) {
+            scores.put(getKey(result.getParams()), result.getPrimaryResult().getScore());
+        }
+
+        if (update) {
+            if (baseline == null) {
+                throw new IllegalArgumentException("-update needs a -baseline");
+            }
+            writeBaseline(scores);
+            System.out.println("Wrote baseline " + baseline);
+            return true;
+        }
+        Map<String, Object> base = readBaseline();
+        if (base.isEmpty()) {
+            compare(scores, base);
+            System.err.println();
+            System.err.println("FAILED: the baseline " + baseline + " has no entries, so nothing was compared.");
+            System.err.println("Record one on this machine with -update.");
+            return false;
+        }
+        return compare(scores, base);
+    }
+
+    private boolean compare(Map<String, Double> scores, Map<String, Object> base) {
+        boolean ok = true;
+        System.out.println();
+        System.out.println(String.format("%-100s %12s %12s %8s", "Benchmark", "Baseline", "Score", "Change"));
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            Object expected = base.get(entry.getKey());
+            double score = entry.getValue();
+            if (!(expected instanceof BigDecimal)) {
+                System.out.println(String.format("%-100s %12s %12.3f %8s", entry.getKey(), "-", score, "new"));
+                continue;
+            }
+            double before = ((BigDecimal) expected).doubleValue();
+            double change = before == 0 ? 0 : (score - before) * 100 / before;
+            boolean regressed = change > threshold;
+            System.out.println(String.format("%-100s %12.3f %12.3f %+7.1f%%%s", entry.getKey(), before, score, change,
+                    regressed ? " REGRESSED" : ""));
+            ok &= !regressed;
+        }
+        return ok;
+    }
+
+    /**
+     * The benchmark name with its params, so each combination has its own baseline.
+     */
+    private static String getKey(BenchmarkParams params) {
+        StringBuilder sb = new StringBuilder(params.getBenchmark());
+        for (String key : params.getParamsKeys()) {
+            sb.append(sb.indexOf(":") < 0 ? ':' : ',').append(key).append('=').append(params.getParam(key));
+        }
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readBaseline() throws IOException {
+        if (baseline == null || !baseline.exists()) {
+            return new TreeMap<String, Object>();
+        }
+        Reader reader = new InputStreamReader(new FileInputStream(baseline), Charsets.UTF_8);
+        try {
+            return (Map<String, Object>) new JsonReader().read(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void writeBaseline(Map<String, Double> scores) throws IOException {
+        baseline.getAbsoluteFile().getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(baseline), Charsets.UTF_8);
+        try {
+            Json.serialize(scores, writer, true, false);
+        } finally {
+            writer.close();
+        }
+    }
+}
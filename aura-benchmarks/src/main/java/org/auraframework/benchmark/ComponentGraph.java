@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.benchmark;
+
+import java.util.List;
+
+import org.auraframework.def.ApplicationDef;
+import org.auraframework.def.ComponentDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.impl.source.StringSourceLoader;
+
+import com.google.common.collect.Lists;
+
+/**
+ * A synthetic application held by the {@link StringSourceLoader}: {@code depth} levels of {@code width} components,
+ * each component using every component of the level below it.
+ */
+public class ComponentGraph {
+    private final StringSourceLoader loader = StringSourceLoader.getInstance();
+    private final List<DefDescriptor<?>> all = Lists.newArrayList();
+    private final List<DefDescriptor<ComponentDef>> leaves = Lists.newArrayList();
+    private final DefDescriptor<ApplicationDef> application;
+    private int changes;
+
+    public ComponentGraph(int width, int depth) {
+        for (int i = 0; i < width; i++) {
+            DefDescriptor<ComponentDef> leaf = loader.addSource(ComponentDef.class, makeLeaf(i, 0), "benchLeaf")
+                    .getDescriptor();
+            leaves.add(leaf);
+            all.add(leaf);
+        }
+        List<DefDescriptor<ComponentDef>> below = leaves;
+        for (int level = 1; level < depth; level++) {
+            List<DefDescriptor<ComponentDef>> current = Lists.newArrayList();
+            for (int i = 0; i < width; i++) {
+                DefDescriptor<ComponentDef> desc = loader.addSource(ComponentDef.class,
+                        makeMarkup("aura:component", below), "benchLevel" + level + "_").getDescriptor();
+                current.add(desc);
+                all.add(desc);
+            }
+            below = current;
+        }
+        application = loader.addSource(ApplicationDef.class, makeMarkup("aura:application", below), "benchApp")
+                .getDescriptor();
+        all.add(application);
+    }
+
+    public DefDescriptor<ApplicationDef> getApplication() {
+        return application;
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    /**
+     * Change the source of one leaf, the way an edit during development would.
+     */
+    public void changeLeaf() {
+        changes += 1;
+        DefDescriptor<ComponentDef> leaf = leaves.get(changes % leaves.size());
+        loader.putSource(leaf, makeLeaf(changes % leaves.size(), changes), true);
+    }
+
+    /**
+     * Remove every source of the graph from the loader.
+     */
+    public void remove() {
+        for (DefDescriptor<?> desc : all) {
+            loader.removeSource(desc);
+        }
+    }
+
+    private static String makeLeaf(int index, int version) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<aura:component>");
+        sb.append("<aura:attribute name='label' type='String' default='leaf").append(index).append("'/>");
+        sb.append("<aura:attribute name='count' type='Integer' default='").append(version).append("'/>");
+        sb.append("<div class='leaf'><span title='{!v.label}'>{!v.label}</span>");
+        sb.append("<aura:if isTrue='{!v.count > 0}'>{!v.count}</aura:if></div>");
+        sb.append("</aura:component>");
+        return sb.toString();
+    }
+
+    private static String makeMarkup(String tag, List<DefDescriptor<ComponentDef>> children) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<").append(tag).append(">");
+        sb.append("<aura:attribute name='label' type='String' default='node'/>");
+        sb.append("<div class='node'>");
+        for (DefDescriptor<ComponentDef> child : children) {
+            sb.append("<").append(child.getDescriptorName()).append(" label='{!v.label}'/>");
+        }
+        sb.append("</div>");
+        sb.append("</").append(tag).append(">");
+        return sb.toString();
+    }
+}
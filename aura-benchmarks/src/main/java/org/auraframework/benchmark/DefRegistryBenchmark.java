@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.auraframework.Aura;
+import org.auraframework.def.ApplicationDef;
+import org.auraframework.system.MasterDefRegistry;
+import org.auraframework.system.SourceListener.SourceMonitorEvent;
+import org.auraframework.throwable.quickfix.QuickFixException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Definition lookup and compilation on a {@link ComponentGraph}.
+ *
+ * Every invocation runs in a new context, as a request would. The {@code cache} param picks what is invalidated
+ * before each invocation:
+ * <ul>
+ * <li>warm: nothing, the global caches answer.</li>
+ * <li>leaf: one leaf component changed, the application is compiled again.</li>
+ * <li>cold: everything, including the framework definitions.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DefRegistryBenchmark {
+    @Param({ "10" })
+    public int width;
+
+    @Param({ "3" })
+    public int depth;
+
+    @Param({ "warm", "leaf", "cold" })
+    public String cache;
+
+    private ComponentGraph graph;
+    private MasterDefRegistry mdr;
+
+    @Setup(Level.Trial)
+    public void createGraph() throws QuickFixException {
+        AuraBenchmarks.startContext();
+        try {
+            graph = new ComponentGraph(width, depth);
+            Aura.getContextService().getCurrentContext().getDefRegistry().getUid(null, graph.getApplication());
+        } finally {
+            AuraBenchmarks.endContext();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void removeGraph() {
+        graph.remove();
+    }
+
+    @Setup(Level.Invocation)
+    public void startContext() {
+        if ("leaf".equals(cache)) {
+            graph.changeLeaf();
+        } else if ("cold".equals(cache)) {
+            Aura.getDefinitionService().onSourceChanged(null, SourceMonitorEvent.changed, null);
+        }
+        mdr = AuraBenchmarks.startContext().getDefRegistry();
+    }
+
+    @TearDown(Level.Invocation)
+    public void endContext() {
+        AuraBenchmarks.endContext();
+    }
+
+    @Benchmark
+    public ApplicationDef getDef() throws QuickFixException {
+        return mdr.getDef(graph.getApplication());
+    }
+
+    /**
+     * The uid is computed by compiling the application and all of its dependencies.
+     */
+    @Benchmark
+    public String getUid() throws QuickFixException {
+        return mdr.getUid(null, graph.getApplication());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.auraframework.Aura;
+import org.auraframework.def.ApplicationDef;
+import org.auraframework.system.AuraContext;
+import org.auraframework.system.Message;
+import org.auraframework.throwable.quickfix.QuickFixException;
+import org.auraframework.util.json.Json;
+import org.auraframework.util.json.JsonStreamReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Serialization of definitions and action responses, and parsing of the result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBenchmark {
+    @Param({ "10" })
+    public int width;
+
+    @Param({ "3" })
+    public int depth;
+
+    @Param({ "10" })
+    public int actions;
+
+    private ComponentGraph graph;
+    private AuraContext context;
+    private ApplicationDef application;
+    private Message<?> response;
+    private String applicationJson;
+
+    @Setup(Level.Trial)
+    public void setup() throws QuickFixException, IOException {
+        context = AuraBenchmarks.startContext();
+        graph = new ComponentGraph(width, depth);
+        application = context.getDefRegistry().getDef(graph.getApplication());
+        response = ServerServiceBenchmark.runActions(actions);
+        applicationJson = serializeDefinition();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        AuraBenchmarks.endContext();
+        graph.remove();
+    }
+
+    @Benchmark
+    public String serializeDefinition() {
+        return Json.serialize(application, context.getJsonSerializationContext());
+    }
+
+    @Benchmark
+    public StringBuilder serializeActionResponse() throws QuickFixException, IOException {
+        StringBuilder sb = new StringBuilder();
+        Aura.getSerializationService().write(response, null, Message.class, sb);
+        return sb;
+    }
+
+    @Benchmark
+    public Object parse() throws IOException {
+        JsonStreamReader reader = new JsonStreamReader(applicationJson);
+        reader.disableLengthLimitsBecauseIAmStreamingAndMyMemoryUseIsNotProportionalToTheStreamLength();
+        reader.next();
+        return reader.getValue();
+    }
+}
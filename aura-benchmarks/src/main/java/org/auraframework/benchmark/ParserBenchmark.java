@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.auraframework.Aura;
+import org.auraframework.def.ComponentDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.StyleDef;
+import org.auraframework.expression.Expression;
+import org.auraframework.expression.PropertyReference;
+import org.auraframework.impl.AuraImpl;
+import org.auraframework.impl.css.parser.StyleParser;
+import org.auraframework.impl.css.parser.omakase.CssParserOmakase;
+import org.auraframework.impl.root.parser.XMLParser;
+import org.auraframework.impl.source.StringSource;
+import org.auraframework.instance.ValueProvider;
+import org.auraframework.system.Parser.Format;
+import org.auraframework.throwable.quickfix.QuickFixException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Parsing of component markup, styles and expressions. Nothing here is cached, each invocation parses from source.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParserBenchmark {
+    private static final String EXPRESSION = "v.count > 10 ? v.label + ' (' + v.count + ')' : v.label";
+
+    /**
+     * Roughly the number of elements in the markup and rules in the style.
+     */
+    @Param({ "20", "200" })
+    public int size;
+
+    private DefDescriptor<ComponentDef> componentDesc;
+    private StringSource<ComponentDef> componentSource;
+    private DefDescriptor<StyleDef> styleDesc;
+    private StringSource<StyleDef> styleSource;
+    private String preprocessedStyle;
+    private Expression expression;
+    private ValueProvider valueProvider;
+
+    @Setup(Level.Trial)
+    public void setup() throws QuickFixException {
+        AuraBenchmarks.startContext();
+
+        componentDesc = Aura.getDefinitionService().getDefDescriptor("benchmark:parsed", ComponentDef.class);
+        componentSource = new StringSource<ComponentDef>(componentDesc, makeMarkup(size), "benchmark:parsed",
+                Format.XML);
+
+        styleDesc = Aura.getDefinitionService().getDefDescriptor("css://benchmark.parsed", StyleDef.class);
+        styleSource = new StringSource<StyleDef>(styleDesc, makeStyle(size), "benchmark.parsed", Format.CSS);
+        preprocessedStyle = parseStyle().getCode();
+
+        expression = buildExpression();
+        final Map<String, Object> values = Maps.newHashMap();
+        values.put("label", "benchmark");
+        values.put("count", 42);
+        valueProvider = new ValueProvider() {
+            @Override
+            public Object getValue(PropertyReference key) {
+                return values.get(key.getLeaf());
+            }
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        AuraBenchmarks.endContext();
+    }
+
+    @Benchmark
+    public ComponentDef parseMarkup() throws QuickFixException {
+        return XMLParser.getInstance().parse(componentDesc, componentSource);
+    }
+
+    /**
+     * Pre-processing a style source into its definition, as done at compile time.
+     */
+    @Benchmark
+    public StyleDef parseStyle() throws QuickFixException {
+        return StyleParser.getInstance().parse(styleDesc, styleSource);
+    }
+
+    /**
+     * Parsing the pre-processed style again, as done for each client type when it is written out.
+     */
+    @Benchmark
+    public String parseStyleRuntime() throws QuickFixException {
+        return CssParserOmakase.runtime().source(preprocessedStyle).parse().content();
+    }
+
+    @Benchmark
+    public Expression buildExpression() throws QuickFixException {
+        return AuraImpl.getExpressionAdapter().buildExpression(EXPRESSION, null);
+    }
+
+    @Benchmark
+    public Object evaluateExpression() throws QuickFixException {
+        return expression.evaluate(valueProvider);
+    }
+
+    private static String makeMarkup(int size) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<aura:component description='benchmark'>");
+        sb.append("<aura:attribute name='label' type='String' default='benchmark'/>");
+        sb.append("<aura:attribute name='items' type='List'/>");
+        sb.append("<aura:registerEvent name='press' type='ui:press'/>");
+        for (int i = 0; i < size; i++) {
+            sb.append("<div class='row row").append(i).append("' title='{!v.label}'>");
+            sb.append("<span>Row ").append(i).append(": {!v.label}</span>");
+            sb.append("<aura:if isTrue='{!v.items.length > ").append(i).append("}'>");
+            sb.append("<b>{!v.items[").append(i).append("]}</b>");
+            sb.append("</aura:if></div>");
+        }
+        sb.append("</aura:component>");
+        return sb.toString();
+    }
+
+    private static String makeStyle(int size) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(".THIS {display: block; margin: 0 auto;}\n");
+        for (int i = 0; i < size; i++) {
+            sb.append(".THIS .row").append(i).append(" {color: #").append(String.format("%06x", i * 997 % 0xffffff));
+            sb.append("; padding: ").append(i % 10).append("px; border-radius: 3px;}\n");
+            sb.append(".THIS .row").append(i).append(":hover > span {text-decoration: underline;}\n");
+        }
+        return sb.toString();
+    }
+}
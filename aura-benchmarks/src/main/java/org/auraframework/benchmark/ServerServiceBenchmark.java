@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.auraframework.Aura;
+import org.auraframework.system.AuraContext;
+import org.auraframework.system.Message;
+import org.auraframework.throwable.quickfix.QuickFixException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Running server actions, alone and together with reading the request and writing the response as an action POST
+ * does. The actions are simple java actions, so this is mostly framework overhead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServerServiceBenchmark {
+    private static final String ACTION = "java://org.auraframework.impl.java.controller.JavaTestController/ACTION$";
+
+    @Param({ "1", "10" })
+    public int actions;
+
+    private String request;
+    private AuraContext context;
+    private Message<?> message;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        request = makeRequest(actions);
+    }
+
+    @Setup(Level.Invocation)
+    public void startContext() throws QuickFixException, IOException {
+        context = AuraBenchmarks.startContext();
+        message = readRequest(request);
+    }
+
+    @TearDown(Level.Invocation)
+    public void endContext() {
+        AuraBenchmarks.endContext();
+    }
+
+    @Benchmark
+    public Message<?> run() throws QuickFixException, IOException {
+        return Aura.getServerService().run(message, context);
+    }
+
+    @Benchmark
+    public StringBuilder readRunWrite() throws QuickFixException, IOException {
+        Message<?> result = Aura.getServerService().run(readRequest(request), context);
+        StringBuilder sb = new StringBuilder();
+        Aura.getSerializationService().write(result, null, Message.class, sb);
+        return sb;
+    }
+
+    /**
+     * Run a request with the given number of actions in the current context.
+     *
+     * @return the response message.
+     */
+    static Message<?> runActions(int count) throws QuickFixException, IOException {
+        return Aura.getServerService().run(readRequest(makeRequest(count)), Aura.getContextService()
+                .getCurrentContext());
+    }
+
+    private static Message<?> readRequest(String request) throws QuickFixException, IOException {
+        return Aura.getSerializationService().read(new StringReader(request), Message.class);
+    }
+
+    private static String makeRequest(int count) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"actions\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append("{\"id\":\"").append(i).append(";a\",");
+            if (i % 2 == 0) {
+                sb.append("\"descriptor\":\"").append(ACTION).append("getString\",");
+                sb.append("\"params\":{\"param\":\"benchmark ").append(i).append("\"}}");
+            } else {
+                sb.append("\"descriptor\":\"").append(ACTION).append("getInt\",");
+                sb.append("\"params\":{\"param\":").append(i).append("}}");
+            }
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+}
@@ -72,6 +72,11 @@ public class ContextAdapterImpl implements ContextAdapter {
         return currentContext.get() != null;
     }
 
+    @Override
+    public void bind(AuraContext context) {
+        currentContext.set(context);
+    }
+
     @Override
     public void release() {
         currentContext.set(null);
@@ -16,6 +16,7 @@
 package org.auraframework.impl;
 
 import java.lang.ref.WeakReference;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -30,12 +31,15 @@ import org.auraframework.def.Definition;
 import org.auraframework.def.DescriptorFilter;
 import org.auraframework.impl.system.DefDescriptorImpl;
 import org.auraframework.impl.system.MasterDefRegistryImpl;
+import org.auraframework.impl.system.MasterDefRegistryImpl.LoadedEntry;
 import org.auraframework.impl.system.SubDefDescriptorImpl;
 import org.auraframework.service.ContextService;
 import org.auraframework.service.DefinitionService;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Access;
+import org.auraframework.system.LoadedSet;
 import org.auraframework.system.MasterDefRegistry;
+import org.auraframework.system.SourceChange;
 import org.auraframework.system.SourceListener;
 import org.auraframework.throwable.AuraRuntimeException;
 import org.auraframework.throwable.ClientOutOfSyncException;
@@ -224,41 +228,64 @@ public class DefinitionServiceImpl implements DefinitionService {
         context = contextService.getCurrentContext();
         mdr = context.getDefRegistry();
         if (context.getPreloadedDefinitions() == null) {
-            //
-            // TODO (optimize): we could reverse this set randomly to try
-            // to sanitize the list in opposite directions. No need to be
-            // exact (hard to test though).
-            //
-            for (Map.Entry<DefDescriptor<?>, String> entry : context.getClientLoaded().entrySet()) {
-                DefDescriptor<?> descriptor = entry.getKey();
-                String uid = entry.getValue();
-                if (uid == null) {
-                    loaded.add(descriptor);
-                } else if (loaded.contains(descriptor)) {
+            LoadedSet clientLoaded = LoadedSet.of(context.getClientLoaded());
+            MasterDefRegistryImpl validating = null;
+            LoadedEntry validated = null;
+            if (mdr instanceof MasterDefRegistryImpl) {
+                validating = (MasterDefRegistryImpl) mdr;
+                validated = validating.getLoadedEntry(clientLoaded);
+            }
+            if (validated != null) {
+                //
+                // Same set, same outcome, as long as no source changed.
+                //
+                for (DefDescriptor<?> descriptor : validated.dropped) {
                     context.dropLoaded(descriptor);
-                } else {
-                    // validate the uid.
-                    String tuid = null;
-                    QuickFixException qfe = null;
-
-                    try {
-                        tuid = mdr.getUid(uid, descriptor);
-                    } catch (QuickFixException broke) {
-                        //
-                        // See note above. This is how we enforce precedence of ClientOutOfSyncException
-                        //
-                        qfe = broke;
-                    }
-                    if (!uid.equals(tuid)) {
-                        throw new ClientOutOfSyncException(descriptor + ": mismatched UIDs " + uid + " != " + tuid);
-                    }
-                    if (qfe != null) {
-                        throw qfe;
+                }
+                context.setPreloadedDefinitions(validated.preloaded);
+                loaded = validated.preloaded;
+            } else {
+                Set<DefDescriptor<?>> dropped = Sets.newHashSet();
+                //
+                // TODO (optimize): we could reverse this set randomly to try
+                // to sanitize the list in opposite directions. No need to be
+                // exact (hard to test though).
+                //
+                for (Map.Entry<DefDescriptor<?>, String> entry : clientLoaded.getUids().entrySet()) {
+                    DefDescriptor<?> descriptor = entry.getKey();
+                    String uid = entry.getValue();
+                    if (uid == null) {
+                        loaded.add(descriptor);
+                    } else if (loaded.contains(descriptor)) {
+                        context.dropLoaded(descriptor);
+                        dropped.add(descriptor);
+                    } else {
+                        // validate the uid.
+                        String tuid = null;
+                        QuickFixException qfe = null;
+
+                        try {
+                            tuid = mdr.getUid(uid, descriptor);
+                        } catch (QuickFixException broke) {
+                            //
+                            // See note above. This is how we enforce precedence of ClientOutOfSyncException
+                            //
+                            qfe = broke;
+                        }
+                        if (!uid.equals(tuid)) {
+                            throw new ClientOutOfSyncException(descriptor + ": mismatched UIDs " + uid + " != " + tuid);
+                        }
+                        if (qfe != null) {
+                            throw qfe;
+                        }
+                        loaded.addAll(mdr.getDependencies(uid));
                     }
-                    loaded.addAll(mdr.getDependencies(uid));
+                }
+                context.setPreloadedDefinitions(loaded);
+                if (validating != null) {
+                    validating.putLoadedEntry(clientLoaded, loaded, dropped);
                 }
             }
-            context.setPreloadedDefinitions(loaded);
         } else {
             loaded = context.getPreloadedDefinitions();
         }
@@ -288,6 +315,19 @@ public class DefinitionServiceImpl implements DefinitionService {
         MasterDefRegistryImpl.notifyDependentSourceChange(listeners, source, event, filePath);
     }
 
+    @Override
+    public void onSourcesChanged(Collection<SourceChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (WeakReference<SourceListener> i : listeners) {
+            if (i.get() == null) {
+                listeners.remove(i);
+            }
+        }
+        MasterDefRegistryImpl.notifyDependentSourceChanges(listeners, changes);
+    }
+
     @Override
     public void subscribeToChangeNotification(SourceListener listener) {
         listeners.add(new WeakReference<SourceListener>(listener));
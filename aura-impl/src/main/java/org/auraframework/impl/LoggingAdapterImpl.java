@@ -43,6 +43,11 @@ public class LoggingAdapterImpl implements LoggingAdapter {
         currentContext.set(null);
     }
 
+    @Override
+    public void bind(LoggingContext loggingContext) {
+        currentContext.set(loggingContext);
+    }
+
     @Override
     public LoggingContext getLoggingContext() {
         return currentContext.get();
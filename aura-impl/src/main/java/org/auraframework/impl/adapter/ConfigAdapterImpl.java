@@ -61,6 +61,11 @@ public class ConfigAdapterImpl implements ConfigAdapter {
     private static final String TIMESTAMP_PROPERTY = "aura.build.timestamp";
     private static final String VERSION_PROPERTY = "aura.build.version";
     private static final String VALIDATE_CSS_CONFIG = "aura.css.validate";
+    private static final String WARM_UP_APPS_CONFIG = "aura.warmup.apps";
+    private static final String WARM_UP_MODES_CONFIG = "aura.warmup.modes";
+    private static final String WARM_UP_THREADS_CONFIG = "aura.warmup.threads";
+    private static final String COMPILE_THREADS_CONFIG = "aura.compile.threads";
+    private static final String ACTION_THREADS_CONFIG = "aura.action.threads";
 
     protected final Set<Mode> allModes = EnumSet.allOf(Mode.class);
     private final JavascriptGroup jsGroup;
@@ -73,6 +78,11 @@ public class ConfigAdapterImpl implements ConfigAdapter {
     private String auraVersionString;
     private boolean lastGenerationHadCompilationErrors = false;
     private final boolean validateCss;
+    private final List<String> warmUpApps;
+    private final Set<Mode> warmUpModes;
+    private final int warmUpThreads;
+    private final int compileThreads;
+    private final int actionThreads;
 
     public ConfigAdapterImpl() {
         this(getDefaultCacheDir());
@@ -142,6 +152,28 @@ public class ConfigAdapterImpl implements ConfigAdapter {
         validateCss = AuraTextUtil.isNullEmptyOrWhitespace(validateCssString)
                 || Boolean.parseBoolean(validateCssString.trim());
 
+        warmUpApps = Lists.newArrayList();
+        for (String app : AuraTextUtil.splitSimpleAndTrim(config.getProperty(WARM_UP_APPS_CONFIG, ""), ",", 0)) {
+            if (!app.isEmpty()) {
+                warmUpApps.add(app);
+            }
+        }
+        warmUpModes = EnumSet.noneOf(Mode.class);
+        for (String mode : AuraTextUtil.splitSimpleAndTrim(config.getProperty(WARM_UP_MODES_CONFIG, ""), ",", 0)) {
+            if (!mode.isEmpty()) {
+                warmUpModes.add(Mode.valueOf(mode.toUpperCase()));
+            }
+        }
+        String warmUpThreadsString = config.getProperty(WARM_UP_THREADS_CONFIG);
+        warmUpThreads = AuraTextUtil.isNullEmptyOrWhitespace(warmUpThreadsString) ? Runtime.getRuntime()
+                .availableProcessors() : Integer.parseInt(warmUpThreadsString.trim());
+        String compileThreadsString = config.getProperty(COMPILE_THREADS_CONFIG);
+        compileThreads = AuraTextUtil.isNullEmptyOrWhitespace(compileThreadsString) ? 0 : Integer
+                .parseInt(compileThreadsString.trim());
+        String actionThreadsString = config.getProperty(ACTION_THREADS_CONFIG);
+        actionThreads = AuraTextUtil.isNullEmptyOrWhitespace(actionThreadsString) ? 0 : Integer
+                .parseInt(actionThreadsString.trim());
+
         if (!isProduction()) {
             AuraFileMonitor.start();
         }
@@ -223,6 +255,34 @@ public class ConfigAdapterImpl implements ConfigAdapter {
         return urls;
     }
 
+    @Override
+    public List<String> getWarmUpApplications() {
+        return warmUpApps;
+    }
+
+    @Override
+    public Set<Mode> getWarmUpModes() {
+        if (warmUpModes.isEmpty()) {
+            return EnumSet.of(getDefaultMode());
+        }
+        return warmUpModes;
+    }
+
+    @Override
+    public int getWarmUpThreads() {
+        return warmUpThreads;
+    }
+
+    @Override
+    public int getCompileThreads() {
+        return compileThreads;
+    }
+
+    @Override
+    public int getActionThreads() {
+        return actionThreads;
+    }
+
     @Override
     public String getHTML5ShivURL() {
     	String ret = null;
@@ -24,6 +24,7 @@ import org.auraframework.Aura;
 import org.auraframework.def.StyleDef;
 import org.auraframework.system.AuraContext.Mode;
 import org.auraframework.throwable.quickfix.QuickFixException;
+import org.auraframework.util.BufferPool;
 
 /**
  */
@@ -40,22 +41,25 @@ public class StyleDefCSSFormatAdapter extends CSSFormatAdapter<StyleDef> {
     QuickFixException {
         Mode mode = Aura.getContextService().getCurrentContext().getMode();
         boolean compress = !mode.prettyPrint();
-        StringBuilder sb = new StringBuilder();
-        Appendable accum;
 
-        if (compress) {
-            sb = new StringBuilder();
-            accum = sb;
-        } else {
-            accum = out;
-        }
-        for (StyleDef def : values) {
-            if (def != null) {
-                accum.append(def.getCode());
+        if (!compress) {
+            for (StyleDef def : values) {
+                if (def != null) {
+                    out.append(def.getCode());
+                }
             }
+            return;
         }
-        if (compress) {
+        StringBuilder sb = BufferPool.getStringBuilder();
+        try {
+            for (StyleDef def : values) {
+                if (def != null) {
+                    sb.append(def.getCode());
+                }
+            }
             out.append(compress(sb.toString()));
+        } finally {
+            BufferPool.release(sb);
         }
     }
 }
@@ -16,7 +16,11 @@
 package org.auraframework.impl.adapter.format.html;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -38,9 +42,13 @@ import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Mode;
 import org.auraframework.throwable.AuraRuntimeException;
 import org.auraframework.throwable.quickfix.QuickFixException;
+import org.auraframework.util.AuraTextUtil;
+import org.auraframework.util.BufferPool;
 import org.auraframework.util.javascript.Literal;
 import org.auraframework.util.json.Json;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -49,32 +57,43 @@ import com.google.common.collect.Maps;
 @ThreadSafe
 public abstract class BaseComponentDefHTMLFormatAdapter<T extends BaseComponentDef> extends HTMLFormatAdapter<T> {
 
+    private static final int SKELETON_CACHE_SIZE = 500;
+
+    /**
+     * Stand in for auraInit, the serialized context in urls and the manifest url while the template is rendered into
+     * a skeleton, so that one skeleton serves every request that only differs in those. Only word characters, so no
+     * escaping done by the renderers can change them.
+     */
+    private static final String SLOT_SUFFIX = "_" + Long.toHexString(new Random().nextLong()) + "__";
+    private static final String AURA_INIT_SLOT = "__auraInitSlot" + SLOT_SUFFIX;
+    private static final String CONTEXT_SLOT = "__auraContextSlot" + SLOT_SUFFIX;
+    private static final String MANIFEST_SLOT = "__auraManifestSlot" + SLOT_SUFFIX;
+    private static final Pattern SLOTS = Pattern.compile(AURA_INIT_SLOT + "|" + CONTEXT_SLOT + "|" + MANIFEST_SLOT);
+
+    /**
+     * Cached for templates that can't be made into a skeleton, so they are not rendered twice on every request.
+     */
+    private static final String[] NO_SKELETON = new String[0];
+
+    /**
+     * Rendered templates, split into text and slots, keyed by {@link #makeSkeletonKey}. Everything else on the page
+     * only depends on what goes into the key. Parts are kept as text, not encoded bytes, since they are appended to
+     * the same {@link Appendable} as the per request slots.
+     */
+    private static final Cache<String, String[]> skeletonCache = CacheBuilder.newBuilder()
+            .initialCapacity(SKELETON_CACHE_SIZE).maximumSize(SKELETON_CACHE_SIZE).softValues().build();
+
     @Override
     public void write(Object value, Map<String, Object> componentAttributes, Appendable out) throws IOException {
         try {
             InstanceService instanceService = Aura.getInstanceService();
             RenderingService renderingService = Aura.getRenderingService();
             BaseComponentDef def = (BaseComponentDef) value;
-
-            ComponentDef templateDef = def.getTemplateDef();
-            Map<String, Object> attributes = Maps.newHashMap();
-
-            StringBuilder sb = new StringBuilder();
-            writeHtmlStyles(AuraServlet.getStyles(), sb);
-            attributes.put("auraStyleTags", sb.toString());
             AuraContext context = Aura.getContextService().getCurrentContext();
-
-            attributes.put("lastMod", Long.toString(AuraBaseServlet.getLastMod()));
-
-            DefDescriptor<StyleDef> styleDefDesc = templateDef.getStyleDescriptor();
-            if (styleDefDesc != null) {
-                attributes.put("auraInlineStyle", styleDefDesc.getDef().getCode());
-            }
-
-            String contextPath = context.getContextPath();
             Mode mode = context.getMode();
 
             if (mode.allowLocalRendering() && def.isLocallyRenderable()) {
+                Map<String, Object> attributes = getStaticAttributes(def);
                 DefType defType = def.getDescriptor().getDefType();
                 BaseComponent<?, ?> cmp = null;
 
@@ -88,45 +107,172 @@ public abstract class BaseComponentDefHTMLFormatAdapter<T extends BaseComponentD
                 attributes.put("bodyClass", "");
                 attributes.put("defaultBodyClass", "");
                 attributes.put("autoInitialize", "false");
-            } else {
-                if (ManifestUtil.isManifestEnabled()) {
-                    attributes.put("manifest", ManifestUtil.getManifestUrl());
+                Component template = instanceService.getInstance(def.getTemplateDef().getDescriptor(), attributes);
+                renderingService.render(template, out);
+                return;
+            }
+
+            StringBuilder contextWriter = new StringBuilder();
+            Aura.getSerializationService().write(context, null, AuraContext.class, contextWriter, "HTML");
+            String serializedContext = contextWriter.toString();
+
+            Map<String, Object> auraInit = Maps.newHashMap();
+            if (componentAttributes != null && !componentAttributes.isEmpty()) {
+                auraInit.put("attributes", componentAttributes);
+            }
+            auraInit.put("descriptor", def.getDescriptor());
+            auraInit.put("deftype", def.getDescriptor().getDefType());
+            auraInit.put("host", context.getContextPath());
+            auraInit.put("context", new Literal(serializedContext));
+            String auraInitJson = Json.serialize(auraInit);
+
+            String encodedContext = AuraTextUtil.urlencode(serializedContext);
+            String manifestUrl = ManifestUtil.isManifestEnabled() ? ManifestUtil.getManifestUrl() : null;
+            String key = makeSkeletonKey(def, context);
+            String[] skeleton = key != null ? skeletonCache.getIfPresent(key) : null;
+            if (skeleton == null) {
+                StringBuilder rendered = BufferPool.getStringBuilder();
+                try {
+                    renderTemplate(def, AURA_INIT_SLOT, rendered);
+                    skeleton = makeSkeleton(rendered.toString(), encodedContext, manifestUrl);
+                } finally {
+                    BufferPool.release(rendered);
+                }
+                if (key != null) {
+                    skeletonCache.put(key, skeleton);
                 }
+            }
+            if (skeleton == NO_SKELETON) {
+                // a template that does not render auraInit exactly once can't be filled in, render it as is.
+                renderTemplate(def, auraInitJson, out);
+                return;
+            }
+            for (String part : skeleton) {
+                if (part == AURA_INIT_SLOT) {
+                    out.append(auraInitJson);
+                } else if (part == CONTEXT_SLOT) {
+                    out.append(encodedContext);
+                } else if (part == MANIFEST_SLOT) {
+                    out.append(manifestUrl);
+                } else {
+                    out.append(part);
+                }
+            }
+        } catch (QuickFixException e) {
+            throw new AuraRuntimeException(e);
+        }
+    }
 
-                sb.setLength(0);
-                writeHtmlScripts(AuraServlet.getBaseScripts(context), sb);
-                attributes.put("auraBaseScriptTags", sb.toString());
+    /**
+     * Attributes of the template that are shared by both local and client rendering.
+     */
+    private Map<String, Object> getStaticAttributes(BaseComponentDef def) throws QuickFixException {
+        Map<String, Object> attributes = Maps.newHashMap();
 
-                sb.setLength(0);
-                writeHtmlScripts(AuraServlet.getNamespacesScripts(context), true, sb);
-                attributes.put("auraNamespacesScriptTags", sb.toString());
+        StringBuilder sb = new StringBuilder();
+        writeHtmlStyles(AuraServlet.getStyles(), sb);
+        attributes.put("auraStyleTags", sb.toString());
 
-                if(!Aura.getContextService().getCurrentContext().getMode().equals(Mode.PROD) &&
-                        Aura.getContextService().getCurrentContext().getIsDebugToolEnabled()) {
-                    attributes.put("auraInitBlock", "<script>var debugWindow=window.open('/aura/debug.cmp','Aura Debug Tool','width=900,height=305,scrollbars=0,location=0,toolbar=0,menubar=0');$A.util.setDebugToolWindow(debugWindow);</script>");
+        attributes.put("lastMod", Long.toString(AuraBaseServlet.getLastMod()));
 
+        DefDescriptor<StyleDef> styleDefDesc = def.getTemplateDef().getStyleDescriptor();
+        if (styleDefDesc != null) {
+            attributes.put("auraInlineStyle", styleDefDesc.getDef().getCode());
+        }
+        return attributes;
+    }
 
-                }
+    /**
+     * Render the template for a client rendered page.
+     */
+    private void renderTemplate(BaseComponentDef def, String auraInit, Appendable out) throws QuickFixException,
+            IOException {
+        AuraContext context = Aura.getContextService().getCurrentContext();
+        Map<String, Object> attributes = getStaticAttributes(def);
 
-                Map<String, Object> auraInit = Maps.newHashMap();
-                if (componentAttributes != null && !componentAttributes.isEmpty()) {
-                    auraInit.put("attributes", componentAttributes);
-                }
-                auraInit.put("descriptor", def.getDescriptor());
-                auraInit.put("deftype", def.getDescriptor().getDefType());
-                auraInit.put("host", contextPath);
+        if (ManifestUtil.isManifestEnabled()) {
+            attributes.put("manifest", ManifestUtil.getManifestUrl());
+        }
+
+        StringBuilder sb = new StringBuilder();
+        writeHtmlScripts(AuraServlet.getBaseScripts(context), sb);
+        attributes.put("auraBaseScriptTags", sb.toString());
+
+        sb.setLength(0);
+        writeHtmlScripts(AuraServlet.getNamespacesScripts(context), true, sb);
+        attributes.put("auraNamespacesScriptTags", sb.toString());
+
+        if (!context.getMode().equals(Mode.PROD) && context.getIsDebugToolEnabled()) {
+            attributes.put("auraInitBlock", "<script>var debugWindow=window.open('/aura/debug.cmp','Aura Debug Tool','width=900,height=305,scrollbars=0,location=0,toolbar=0,menubar=0');$A.util.setDebugToolWindow(debugWindow);</script>");
+        }
 
-                StringBuilder contextWriter = new StringBuilder();
-                Aura.getSerializationService().write(context, null, AuraContext.class, contextWriter, "HTML");
-                auraInit.put("context", new Literal(contextWriter.toString()));
+        attributes.put("auraInit", auraInit);
 
-                attributes.put("auraInit", Json.serialize(auraInit));
+        Component template = Aura.getInstanceService().getInstance(def.getTemplateDef().getDescriptor(), attributes);
+        Aura.getRenderingService().render(template, out);
+    }
+
+    /**
+     * Split a rendered page into text and slots. The manifest url is taken out before the context, as it holds a
+     * variant of it.
+     *
+     * @return the parts, with slots as the slot constants themselves, or {@link #NO_SKELETON}.
+     */
+    private static String[] makeSkeleton(String page, String encodedContext, String manifestUrl) {
+        if (manifestUrl != null) {
+            page = page.replace(manifestUrl, MANIFEST_SLOT);
+        }
+        page = page.replace(encodedContext, CONTEXT_SLOT);
+
+        List<String> parts = Lists.newArrayList();
+        Matcher matcher = SLOTS.matcher(page);
+        int start = 0;
+        int inits = 0;
+        while (matcher.find()) {
+            parts.add(page.substring(start, matcher.start()));
+            String slot = matcher.group();
+            if (slot.equals(AURA_INIT_SLOT)) {
+                parts.add(AURA_INIT_SLOT);
+                inits++;
+            } else if (slot.equals(CONTEXT_SLOT)) {
+                parts.add(CONTEXT_SLOT);
+            } else {
+                parts.add(MANIFEST_SLOT);
             }
-            Component template = instanceService.getInstance(templateDef.getDescriptor(), attributes);
-            renderingService.render(template, out);
-        } catch (QuickFixException e) {
-            throw new AuraRuntimeException(e);
+            start = matcher.end();
+        }
+        parts.add(page.substring(start));
+        if (inits != 1) {
+            return NO_SKELETON;
         }
+        return parts.toArray(new String[parts.size()]);
     }
 
+    /**
+     * Everything the page depends on besides auraInit and the urls: the definition and its template (through the
+     * UID), the mode, framework and locales that change which scripts and labels are used, and the request state read
+     * by the template attributes. The serialized context is left out, it only appears in urls, which are slots.
+     *
+     * @return the key, or null if the definition has no UID and should not be cached.
+     */
+    private static String makeSkeletonKey(BaseComponentDef def, AuraContext context) throws QuickFixException {
+        String uid = context.getDefRegistry().getUid(null, def.getDescriptor());
+        if (uid == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        key.append(def.getDescriptor().getQualifiedName()).append(':').append(uid).append(':');
+        key.append(context.getMode()).append(':');
+        key.append(context.getFrameworkUID()).append(':');
+        key.append(context.getRequestedLocales()).append(':');
+        if (context.getClient() != null) {
+            key.append(context.getClient().getType());
+        }
+        key.append(':');
+        key.append(context.getContextPath()).append(':');
+        key.append(AuraBaseServlet.getLastMod()).append(':');
+        key.append(ManifestUtil.isManifestEnabled()).append(':');
+        key.append(context.getIsDebugToolEnabled());
+        return key.toString();
+    }
 }
@@ -26,15 +26,25 @@ import javax.annotation.concurrent.ThreadSafe;
 import org.auraframework.Aura;
 import org.auraframework.def.ActionDef;
 import org.auraframework.def.ComponentDef;
+import org.auraframework.def.ControllerDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.ValueDef;
 import org.auraframework.instance.Action;
 import org.auraframework.instance.Event;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.Message;
+import org.auraframework.system.SubDefDescriptor;
 import org.auraframework.throwable.quickfix.QuickFixException;
 import org.auraframework.util.json.Json;
-import org.auraframework.util.json.JsonReader;
+import org.auraframework.util.json.JsonArrayHandler;
+import org.auraframework.util.json.JsonHandler.JsonValidationException;
+import org.auraframework.util.json.JsonHandlerProvider;
+import org.auraframework.util.json.JsonHandlerProviderImpl;
+import org.auraframework.util.json.JsonObjectHandler;
+import org.auraframework.util.json.JsonStreamReader;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  */
@@ -47,28 +57,28 @@ public class MessageJSONFormatAdapter extends JSONFormatAdapter<Message<?>> {
         return Message.class;
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Read a message, creating each action as soon as its object has been read.
+     *
+     * The actions are built by handlers on the stream reader rather than from a generic tree, and params are
+     * converted to the parameter types of the action as they are read, once the descriptor has been seen. The
+     * client always sends the descriptor before the params, if it does not, the params are converted when the action
+     * is complete.
+     */
     @Override
     public Message<?> read(Reader in) throws IOException, QuickFixException {
-        Map<?, ?> message = (Map<?, ?>) new JsonReader().read(in);
-
-        List<?> actions = (List<?>) message.get("actions");
-        List<Action> actionList = Lists.newArrayList();
-        if (actions != null) {
-            for (Object action : actions) {
-                Map<?, ?> map = (Map<?, ?>) action;
-
-                // FIXME: ints are getting translated into BigDecimals here.
-                Map<String, Object> params = (Map<String, Object>) map.get("params");
-
-                Action instance = (Action) Aura.getInstanceService().getInstance((String) map.get("descriptor"),
-                        ActionDef.class, params);
-                instance.setId((String) map.get("id"));
-
-                actionList.add(instance);
-            }
+        MessageHandlerProvider provider = new MessageHandlerProvider();
+        JsonStreamReader reader = new JsonStreamReader(in, provider);
+        try {
+            reader.next();
+        } catch (ActionCreationException ace) {
+            throw ace.getCause();
         }
 
+        List<Action> actionList = provider.actions;
+        if (actionList == null) {
+            actionList = Lists.newArrayList();
+        }
         return new Message<ComponentDef>(actionList);
     }
 
@@ -91,4 +101,218 @@ public class MessageJSONFormatAdapter extends JSONFormatAdapter<Message<?>> {
         Json.serialize(m, out, c.getJsonSerializationContext());
     }
 
+
+    /**
+     * Convert a param to the type of the matching parameter. Only scalars are converted here, collections are left
+     * to the action so that they are only converted once. Anything that fails to convert is left as is, the action
+     * reports it when it runs.
+     */
+    private static Object bindParam(ActionDef actionDef, String name, Object value) {
+        if (actionDef == null || value == null || value instanceof Map || value instanceof List) {
+            return value;
+        }
+        List<ValueDef> parameters = actionDef.getParameters();
+        if (parameters == null) {
+            return value;
+        }
+        for (ValueDef parameter : parameters) {
+            if (name.equals(parameter.getName())) {
+                try {
+                    return parameter.getType().valueOf(value);
+                } catch (Exception e) {
+                    return value;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Carries a failure to create an action out of the reader.
+     */
+    private static class ActionCreationException extends RuntimeException {
+        private static final long serialVersionUID = 2950264227441417785L;
+
+        private ActionCreationException(QuickFixException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized QuickFixException getCause() {
+            return (QuickFixException) super.getCause();
+        }
+    }
+
+    /**
+     * The top level message, only "actions" is kept.
+     */
+    private static class MessageHandlerProvider extends JsonHandlerProviderImpl {
+        private List<Action> actions;
+
+        @Override
+        public JsonHandlerProvider getObjectEntryHandlerProvider(String key) {
+            if ("actions".equals(key)) {
+                return new ActionsHandlerProvider();
+            }
+            return null;
+        }
+
+        @Override
+        public JsonObjectHandler getObjectHandler() {
+            return new JsonObjectHandler() {
+                @SuppressWarnings("unchecked")
+                @Override
+                public void put(String key, Object value) {
+                    if ("actions".equals(key)) {
+                        actions = (List<Action>) value;
+                    }
+                }
+
+                @Override
+                public Object getValue() {
+                    return null;
+                }
+            };
+        }
+    }
+
+    /**
+     * The "actions" array, each entry is read by an {@link ActionHandler}.
+     */
+    private static class ActionsHandlerProvider extends JsonHandlerProviderImpl {
+        private ActionHandler current;
+
+        @Override
+        public JsonHandlerProvider getArrayEntryHandlerProvider() {
+            return this;
+        }
+
+        @Override
+        public JsonHandlerProvider getObjectEntryHandlerProvider(String key) {
+            if ("params".equals(key) && current != null) {
+                return new ParamsHandlerProvider(current);
+            }
+            return null;
+        }
+
+        @Override
+        public JsonObjectHandler getObjectHandler() {
+            current = new ActionHandler();
+            return current;
+        }
+
+        @Override
+        public JsonArrayHandler getArrayHandler() {
+            return new JsonArrayHandler() {
+                private final List<Action> actions = Lists.newArrayList();
+
+                @Override
+                public void add(Object o) throws JsonValidationException {
+                    if (!(o instanceof Action)) {
+                        throw new JsonValidationException("Invalid action " + o);
+                    }
+                    actions.add((Action) o);
+                }
+
+                @Override
+                public Object getValue() {
+                    return actions;
+                }
+            };
+        }
+    }
+
+    /**
+     * A single action. The definition is looked up as soon as the descriptor is read so that the params can be bound
+     * to it, and the action itself is created when the object ends.
+     */
+    private static class ActionHandler extends JsonObjectHandler {
+        private DefDescriptor<ActionDef> descriptor;
+        private ActionDef actionDef;
+        private String id;
+        private Map<String, Object> params;
+        private boolean paramsBound;
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void put(String key, Object value) throws JsonValidationException {
+            if ("descriptor".equals(key)) {
+                descriptor = Aura.getDefinitionService().getDefDescriptor((String) value, ActionDef.class);
+                actionDef = getActionDef(descriptor);
+            } else if ("id".equals(key)) {
+                id = (String) value;
+            } else if ("params".equals(key)) {
+                params = (Map<String, Object>) value;
+                paramsBound = actionDef != null;
+            }
+        }
+
+        @Override
+        public Object getValue() {
+            if (descriptor == null) {
+                return null;
+            }
+            if (params != null && !paramsBound) {
+                for (Map.Entry<String, Object> entry : params.entrySet()) {
+                    entry.setValue(bindParam(actionDef, entry.getKey(), entry.getValue()));
+                }
+            }
+            try {
+                Action instance = (Action) Aura.getInstanceService().getInstance(descriptor, params);
+                instance.setId(id);
+                return instance;
+            } catch (QuickFixException qfe) {
+                throw new ActionCreationException(qfe);
+            }
+        }
+
+        /**
+         * @return the definition, or null if it cannot be found here. Creating the instance reports the problem.
+         */
+        @SuppressWarnings("unchecked")
+        private static ActionDef getActionDef(DefDescriptor<ActionDef> descriptor) {
+            AuraContext context = Aura.getContextService().getCurrentContext();
+            String namespace = context.getCurrentNamespace();
+            try {
+                context.setCurrentNamespace(descriptor.getNamespace());
+                ControllerDef controllerDef = ((SubDefDescriptor<ActionDef, ControllerDef>) descriptor)
+                        .getParentDescriptor().getDef();
+                return controllerDef.getSubDefinition(descriptor.getName());
+            } catch (QuickFixException qfe) {
+                return null;
+            } finally {
+                // reading a message leaves the context as it was, creating the action sets the namespace.
+                context.setCurrentNamespace(namespace);
+            }
+        }
+    }
+
+    /**
+     * The params of an action, converted as they are read when the definition is known.
+     */
+    private static class ParamsHandlerProvider extends JsonHandlerProviderImpl {
+        private final ActionHandler action;
+
+        private ParamsHandlerProvider(ActionHandler action) {
+            this.action = action;
+        }
+
+        @Override
+        public JsonObjectHandler getObjectHandler() {
+            final ActionDef actionDef = action.actionDef;
+            return new JsonObjectHandler() {
+                private final Map<String, Object> params = Maps.newHashMap();
+
+                @Override
+                public void put(String key, Object value) {
+                    params.put(key, bindParam(actionDef, key, value));
+                }
+
+                @Override
+                public Object getValue() {
+                    return params;
+                }
+            };
+        }
+    }
 }
@@ -27,8 +27,10 @@ import javax.management.JMException;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
+import org.auraframework.def.DefDescriptor.DefType;
 import org.auraframework.def.Definition;
 import org.auraframework.impl.AuraImpl;
+import org.auraframework.impl.system.DefinitionFootprint;
 import org.auraframework.impl.system.MasterDefRegistryImpl;
 import org.auraframework.system.Annotations.AuraEnabled;
 import org.auraframework.system.Annotations.Model;
@@ -89,6 +91,20 @@ public class AdminModel {
         data.put("nulls", nulls);
     }
 
+    private void addFootprint(Map<String, Object> data, Map<DefType, DefinitionFootprint> footprint) {
+        List<Map<String, Object>> footprintData = Lists.newArrayListWithCapacity(footprint.size());
+
+        data.put("footprint", footprintData);
+        for (DefinitionFootprint entry : footprint.values()) {
+            Map<String, Object> typeData = Maps.newHashMap();
+            typeData.put("type", entry.getDefType());
+            typeData.put("count", String.valueOf(entry.getCount()));
+            typeData.put("bytes", String.valueOf(entry.getBytes()));
+            typeData.put("unmeasured", String.valueOf(entry.getUnmeasured()));
+            footprintData.add(typeData);
+        }
+    }
+
     public AdminModel() throws JMException {
         AuraContext c = AuraImpl.getContextAdapter().getCurrentContext();
         m = c.getMode();
@@ -97,6 +113,7 @@ public class AdminModel {
 
         defsData = getStats(MasterDefRegistryImpl.getDefsCacheStats());
         addDefsStats(defsData, MasterDefRegistryImpl.getCachedDefs());
+        addFootprint(defsData, MasterDefRegistryImpl.getDefinitionFootprint());
         existsData = getStats(MasterDefRegistryImpl.getExistsCacheStats());
         stringsData = getStats(MasterDefRegistryImpl.getStringsCacheStats());
         descriptorFilterData = getStats(MasterDefRegistryImpl.getDescriptorFilterCacheStats());
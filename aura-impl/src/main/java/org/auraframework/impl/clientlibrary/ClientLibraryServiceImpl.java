@@ -17,7 +17,9 @@ package org.auraframework.impl.clientlibrary;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
@@ -40,6 +42,7 @@ import org.auraframework.util.AuraTextUtil;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
@@ -50,8 +53,29 @@ public class ClientLibraryServiceImpl implements ClientLibraryService {
 
     private final static int CACHE_SIZE = 300;
 
-    private final static Cache<String, String> outputCache = CacheBuilder.newBuilder()
-            .initialCapacity(CACHE_SIZE).maximumSize(CACHE_SIZE).softValues().build();
+    /**
+     * Bound on the combined output kept, in characters, rather than a number of entries as outputs range from a few
+     * bytes to megabytes. Outputs are kept as text, not encoded bytes, since they are written to an {@link Appendable}
+     * (the response writer, which does the encoding).
+     */
+    private final static long OUTPUT_CACHE_WEIGHT = 16 * 1024 * 1024;
+
+    private final static int RESOLUTION_CACHE_SIZE = 1000;
+
+    private final static Cache<String, CachedOutput> outputCache = CacheBuilder.newBuilder()
+            .maximumWeight(OUTPUT_CACHE_WEIGHT).weigher(new Weigher<String, CachedOutput>() {
+                @Override
+                public int weigh(String key, CachedOutput value) {
+                    return value.code.length();
+                }
+            }).softValues().build();
+
+    /**
+     * Resolution of a client library (whether it is combined, and what to combine), keyed by
+     * {@link #makeResolutionKey(ClientLibraryDef)}. Urls are not part of it, resolvers build them from the context.
+     */
+    private final static Cache<String, Resolution> resolutionCache = CacheBuilder.newBuilder()
+            .initialCapacity(RESOLUTION_CACHE_SIZE).maximumSize(RESOLUTION_CACHE_SIZE).build();
 
     private final static Cache<String, Set<String>> urlsCache = CacheBuilder.newBuilder()
             .initialCapacity(CACHE_SIZE).maximumSize(CACHE_SIZE).softValues().build();
@@ -168,8 +192,9 @@ public class ClientLibraryServiceImpl implements ClientLibraryService {
             String url = null;
 
             for (ClientLibraryDef clientLib : clientLibs) {
+                Resolution resolution = resolve(clientLib);
 
-                if (canCombine(clientLib)) {
+                if (resolution.combine) {
                     hasCombines = true;
                 } else {
                     // add url to list when client library is not combined
@@ -215,19 +240,21 @@ public class ClientLibraryServiceImpl implements ClientLibraryService {
         String uid = context.getUid(context.getApplicationDescriptor());
 
         String key = makeCacheKey(uid, mode, type);
-        String code = outputCache.getIfPresent(key);
+        CachedOutput cached = outputCache.getIfPresent(key);
 
-        if (code == null) {
+        if (cached == null) {
             // no cache yet
             List<ClientLibraryDef> clientLibs = getClientLibraries(context, type);
             Set<Combinable> combinables = Sets.newLinkedHashSet();
+            Set<String> resources = Sets.newHashSet();
             StringBuilder sb = new StringBuilder();
 
             for (ClientLibraryDef clientLib : clientLibs) {
-                if (canCombine(clientLib)) {
-                    Combinable combinable = getCombinable(clientLib);
-                    if (combinable != null) {
-                        combinables.add(combinable);
+                Resolution resolution = resolve(clientLib);
+                if (resolution.combine && resolution.combinable != null) {
+                    combinables.add(resolution.combinable);
+                    if (resolution.resourceName != null) {
+                        resources.add(resolution.resourceName);
                     }
                 }
             }
@@ -237,11 +264,67 @@ public class ClientLibraryServiceImpl implements ClientLibraryService {
                 Aura.getSerializationService().writeCollection(combinables, Combinable.class, sb, type.toString());
             }
 
-            code = sb.toString();
-            outputCache.put(key, code);
+            cached = new CachedOutput(sb.toString(), resources);
+            outputCache.put(key, cached);
+        }
+
+        output.append(cached.code);
+    }
+
+    /**
+     * Resolve a client library, memoized across requests and apps. Libraries that cannot be resolved are not
+     * memoized, so the error is reported every time.
+     *
+     * @param clientLibrary client library
+     * @return how the library is served
+     * @throws QuickFixException if the library has neither url nor resolver
+     */
+    private Resolution resolve(ClientLibraryDef clientLibrary) throws QuickFixException {
+        String key = makeResolutionKey(clientLibrary);
+        Resolution resolution = resolutionCache.getIfPresent(key);
+
+        if (resolution == null) {
+            if (canCombine(clientLibrary)) {
+                String url = clientLibrary.getUrl();
+                String resourceName = null;
+                if (isResourceDefUrl(url)) {
+                    DefDescriptor<ResourceDef> descriptor = DefDescriptorImpl.getInstance(url, ResourceDef.class);
+                    resourceName = makeResourceName(descriptor);
+                }
+                resolution = new Resolution(true, getCombinable(clientLibrary), resourceName);
+            } else {
+                resolution = new Resolution(false, null, null);
+            }
+            resolutionCache.put(key, resolution);
+        }
+        return resolution;
+    }
+
+    /**
+     * Everything the resolution of a library depends on, short of the resolvers themselves.
+     */
+    private static String makeResolutionKey(ClientLibraryDef clientLibrary) {
+        StringBuilder key = new StringBuilder();
+        key.append(clientLibrary.getType()).append(":").append(clientLibrary.shouldCombine()).append(":");
+        if (StringUtils.isBlank(clientLibrary.getUrl())) {
+            key.append("name:").append(clientLibrary.getLibraryName());
+        } else {
+            key.append("url:").append(clientLibrary.getUrl());
         }
+        return key.toString();
+    }
 
-        output.append(code);
+    private static boolean isResourceDefUrl(String url) {
+        return StringUtils.startsWithIgnoreCase(url, DefDescriptor.CSS_PREFIX + "://")
+                || StringUtils.startsWithIgnoreCase(url, DefDescriptor.JAVASCRIPT_PREFIX + "://");
+    }
+
+    /**
+     * Name used to match a changed source to the resources combined from it. Type and prefix are left out, the file
+     * monitor does not always report resources with their own def type.
+     */
+    private static String makeResourceName(DefDescriptor<?> descriptor) {
+        return (descriptor.getNamespace() + "." + descriptor.getName()).toLowerCase();
     }
 
     /**
@@ -344,8 +427,7 @@ public class ClientLibraryServiceImpl implements ClientLibraryService {
                 // combinable resolver
                 combinable = (Combinable) resolver;
             }
-        } else if (StringUtils.startsWithIgnoreCase(url, DefDescriptor.CSS_PREFIX + "://") ||
-                StringUtils.startsWithIgnoreCase(url, DefDescriptor.JAVASCRIPT_PREFIX + "://")) {
+        } else if (isResourceDefUrl(url)) {
             // if url is qualified name of DefDescriptor<ResourceDef>
             DefDescriptor<ResourceDef> descriptor = DefDescriptorImpl.getInstance(url, ResourceDef.class);
             if (descriptor.exists()) {
@@ -368,11 +450,62 @@ public class ClientLibraryServiceImpl implements ClientLibraryService {
         Aura.getDefinitionService().subscribeToChangeNotification(sourceNotifier);
     }
 
+    /**
+     * An application change gives the application a new UID, and with it new cache keys, so only changes to the
+     * resources that are combined need to be handled for the output. The urls are cheap to rebuild and are dropped on
+     * any change. A change with no descriptor (e.g. a java file) may have touched a resolver, so everything is
+     * dropped.
+     */
     private static class SourceNotifier implements SourceListener {
         @Override
         public void onSourceChanged(DefDescriptor<?> source, SourceMonitorEvent event, String filePath) {
-            outputCache.invalidateAll();
             urlsCache.invalidateAll();
+            if (source == null) {
+                outputCache.invalidateAll();
+                resolutionCache.invalidateAll();
+                return;
+            }
+            String name = makeResourceName(source);
+            Iterator<Resolution> resolutions = resolutionCache.asMap().values().iterator();
+            while (resolutions.hasNext()) {
+                if (name.equals(resolutions.next().resourceName)) {
+                    resolutions.remove();
+                }
+            }
+            Iterator<Map.Entry<String, CachedOutput>> outputs = outputCache.asMap().entrySet().iterator();
+            while (outputs.hasNext()) {
+                if (outputs.next().getValue().resources.contains(name)) {
+                    outputs.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * How a single client library is served.
+     */
+    private static class Resolution {
+        private final boolean combine;
+        private final Combinable combinable;
+        private final String resourceName;
+
+        private Resolution(boolean combine, Combinable combinable, String resourceName) {
+            this.combine = combine;
+            this.combinable = combinable;
+            this.resourceName = resourceName;
+        }
+    }
+
+    /**
+     * Combined resources.css or resources.js, with the names of the resource definitions it was built from.
+     */
+    private static class CachedOutput {
+        private final String code;
+        private final Set<String> resources;
+
+        private CachedOutput(String code, Set<String> resources) {
+            this.code = code;
+            this.resources = resources;
         }
     }
 }
@@ -41,6 +41,7 @@ import org.auraframework.instance.InstanceStack;
 import org.auraframework.instance.ValueProviderType;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.Client;
+import org.auraframework.system.LoadedSet;
 import org.auraframework.system.MasterDefRegistry;
 import org.auraframework.test.TestContext;
 import org.auraframework.test.TestContextAdapter;
@@ -128,18 +129,20 @@ public class AuraContextImpl implements AuraContext {
                 }
                 json.writeMapEntry("requestedLocales", locales);
             }
-            Map<String,String> loadedStrings = Maps.newHashMap();
-            Map<DefDescriptor<?>, String> clientLoaded = Maps.newHashMap();
-            clientLoaded.putAll(ctx.getClientLoaded());
-            for (Map.Entry<DefDescriptor<?>,String> entry : ctx.getLoaded().entrySet()) {
-                loadedStrings.put(String.format("%s@%s", entry.getKey().getDefType().toString(),
-                                                entry.getKey().getQualifiedName()), entry.getValue());
-                clientLoaded.remove(entry.getKey());
-            }
+            Map<DefDescriptor<?>, String> loaded = ctx.getLoaded();
+            Map<String, String> loadedStrings = LoadedSet.of(loaded).getSerialized();
             if (forClient) {
-                for (DefDescriptor<?> deleted : clientLoaded.keySet()) {
-                    loadedStrings.put(String.format("%s@%s", deleted.getDefType().toString(),
-                                deleted.getQualifiedName()), DELETED);
+                Map<String, String> withDeleted = null;
+                for (DefDescriptor<?> deleted : ctx.getClientLoaded().keySet()) {
+                    if (!loaded.containsKey(deleted)) {
+                        if (withDeleted == null) {
+                            withDeleted = Maps.newHashMap(loadedStrings);
+                        }
+                        withDeleted.put(LoadedSet.getKey(deleted), DELETED);
+                    }
+                }
+                if (withDeleted != null) {
+                    loadedStrings = withDeleted;
                 }
             }
             if (loadedStrings.size() > 0) {
@@ -239,6 +242,8 @@ public class AuraContextImpl implements AuraContext {
 
     private Set<DefDescriptor<?>> preloadedDefinitions = null;
 
+    private Map<DefDescriptor<?>, Boolean> preloadRecorder = null;
+
     private final Format format;
 
     private final Map<ValueProviderType, GlobalValueProvider> globalProviders;
@@ -304,18 +309,28 @@ public class AuraContextImpl implements AuraContext {
 
     @Override
     public boolean isPreloaded(DefDescriptor<?> descriptor) {
+        boolean preloaded;
         if (preloading) {
-            return false;
-        }
-        if (dynamicNamespaces.contains(descriptor.getNamespace())) {
-            return true;
+            preloaded = false;
+        } else if (dynamicNamespaces.contains(descriptor.getNamespace())) {
+            preloaded = true;
+        } else if (preloadedDefinitions != null) {
+            preloaded = preloadedDefinitions.contains(descriptor);
+        } else {
+            // TODO: remove preloads
+            preloaded = preloadedNamespaces.contains(descriptor.getNamespace());
         }
-        if (preloadedDefinitions != null) {
-            return preloadedDefinitions.contains(descriptor);
+        if (preloadRecorder != null) {
+            preloadRecorder.put(descriptor, preloaded);
         }
+        return preloaded;
+    }
 
-        // TODO: remove preloads
-        return preloadedNamespaces.contains(descriptor.getNamespace());
+    @Override
+    public Map<DefDescriptor<?>, Boolean> setPreloadRecorder(Map<DefDescriptor<?>, Boolean> recorder) {
+        Map<DefDescriptor<?>, Boolean> previous = preloadRecorder;
+        preloadRecorder = recorder;
+        return previous;
     }
 
     @Override
@@ -38,9 +38,11 @@ import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Access;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.system.ContextHandle;
 import org.auraframework.system.DefRegistry;
 import org.auraframework.system.MasterDefRegistry;
 import org.auraframework.system.SourceLoader;
+import org.auraframework.throwable.AuraRuntimeException;
 import org.auraframework.throwable.NoContextException;
 import org.auraframework.throwable.quickfix.QuickFixException;
 import org.auraframework.util.ServiceLocator;
@@ -118,6 +120,23 @@ public class AuraContextServiceImpl implements ContextService {
         }
     }
 
+    @Override
+    public ContextHandle detachContext() {
+        assertEstablished();
+        ContextHandle handle = new ContextHandle(getCurrentContext(), AuraImpl.getLoggingAdapter().getLoggingContext());
+        endContext();
+        return handle;
+    }
+
+    @Override
+    public void resumeContext(ContextHandle handle) {
+        if (isEstablished()) {
+            throw new AuraRuntimeException("Cannot resume a context, one is already established");
+        }
+        AuraImpl.getContextAdapter().bind(handle.getContext());
+        AuraImpl.getLoggingAdapter().bind(handle.getLoggingContext());
+    }
+
     private PrefixDefaultsAdapter getDefaultsProvider() {
         return ServiceLocator.get().get(PrefixDefaultsAdapter.class);
     }
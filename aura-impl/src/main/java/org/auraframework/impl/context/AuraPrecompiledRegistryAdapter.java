@@ -15,21 +15,35 @@
  */
 package org.auraframework.impl.context;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.auraframework.adapter.RegistryAdapter;
+import org.auraframework.impl.system.BinaryRegistryFormat;
 import org.auraframework.system.AuraContext.Access;
 import org.auraframework.system.AuraContext.Mode;
 import org.auraframework.system.DefRegistry;
 import org.auraframework.system.SourceLoader;
 import org.auraframework.throwable.AuraRuntimeException;
+import org.auraframework.util.IOUtil;
 
+/**
+ * Serves definitions from registries precompiled by RegistrySerializer.
+ *
+ * Registries written in the {@link BinaryRegistryFormat} are memory mapped when the resource is a plain file, and
+ * only the descriptor index is read at startup. Registries written with java serialization are still read whole.
+ */
 public class AuraPrecompiledRegistryAdapter implements RegistryAdapter {
 
     private final DefRegistry<?>[] registries;
@@ -38,34 +52,59 @@ public class AuraPrecompiledRegistryAdapter implements RegistryAdapter {
     public AuraPrecompiledRegistryAdapter(File sourceLocation, String precompiledPackagePath) {
         DefRegistry<?>[] precompiledRegistries = null;
         if (!sourceLocation.exists()) {
-            ObjectInputStream ois = null;
-            InputStream ris = AuraPrecompiledRegistryAdapter.class.getResourceAsStream(precompiledPackagePath);
-            if (ris != null) {
+            URL url = AuraPrecompiledRegistryAdapter.class.getResource(precompiledPackagePath);
+            if (url != null) {
                 try {
-                    ois = new ObjectInputStream(ris);
-                    precompiledRegistries = (DefRegistry[]) ois.readObject();
+                    ByteBuffer buffer = load(url);
+                    if (BinaryRegistryFormat.isBinaryRegistry(buffer)) {
+                        precompiledRegistries = BinaryRegistryFormat.read(buffer);
+                    } else {
+                        precompiledRegistries = readSerialized(buffer);
+                    }
                 } catch (Exception e) {
                     log.error(e.getClass() + ": " + e.getMessage(), e);
                     throw new AuraRuntimeException(e);
-                } finally {
-                    try {
-                        ris.close();
-                    } catch (IOException e) {
-                        throw new AuraRuntimeException(e);
-                    }
-                    if (ois != null) {
-                        try {
-                            ois.close();
-                        } catch (IOException e) {
-                            throw new AuraRuntimeException(e);
-                        }
-                    }
                 }
             }
         }
         this.registries = precompiledRegistries;
     }
 
+    /**
+     * Map the resource if it is a file, otherwise read it into memory.
+     */
+    private static ByteBuffer load(URL url) throws Exception {
+        if ("file".equals(url.getProtocol())) {
+            RandomAccessFile file = new RandomAccessFile(new File(url.toURI()), "r");
+            try {
+                FileChannel channel = file.getChannel();
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } finally {
+                // the mapping stays valid after the file is closed.
+                file.close();
+            }
+        }
+        InputStream ris = url.openStream();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            IOUtil.copyStream(ris, bytes);
+            return ByteBuffer.wrap(bytes.toByteArray());
+        } finally {
+            ris.close();
+        }
+    }
+
+    private static DefRegistry<?>[] readSerialized(ByteBuffer buffer) throws IOException, ClassNotFoundException {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        try {
+            return (DefRegistry[]) ois.readObject();
+        } finally {
+            ois.close();
+        }
+    }
+
     @Override
     public DefRegistry<?>[] getRegistries(Mode mode, Access access, Set<SourceLoader> extraLoaders) {
         return registries;
@@ -18,6 +18,8 @@ package org.auraframework.impl.css.parser;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.auraframework.Aura;
 import org.auraframework.css.parser.ThemeOverrideMap;
@@ -35,11 +37,21 @@ import org.auraframework.throwable.quickfix.ThemeValueNotFoundException;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
 /**
  * Responsible for taking a String reference to a theme variable and finding the applicable value.
  * 
+ * <p>
+ * The same references are resolved over and over, for each style that uses them and again when it is validated, so
+ * resolved values are kept in a table shared by every provider with the same overrides, and the theme descriptors
+ * used by a reference are kept as well. Errors are never kept, they are raised again with the location of each use.
+ * Resolved values are dropped whenever a theme changes, see {@link #invalidateAll()}.
+ * 
  * @see ThemeValueProvider
  */
 public final class ThemeValueProviderImpl implements ThemeValueProvider {
@@ -48,6 +60,12 @@ public final class ThemeValueProviderImpl implements ThemeValueProvider {
     private static final CharMatcher SINGLE_Q = CharMatcher.is('"');
     private static final CharMatcher DOUBLE_Q = CharMatcher.is('\'');
 
+    private static final Cache<Optional<ThemeOverrideMap>, ConcurrentMap<String, Object>> valuesCache = CacheBuilder
+            .newBuilder().maximumSize(64).recordStats().build();
+
+    private static final Cache<String, Set<DefDescriptor<ThemeDef>>> descriptorsCache = CacheBuilder.newBuilder()
+            .maximumSize(4096).build();
+
     private final Optional<ThemeOverrideMap> overrides;
 
     /**
@@ -90,7 +108,18 @@ public final class ThemeValueProviderImpl implements ThemeValueProvider {
 
     @Override
     public Object getValue(String reference, Location location) throws QuickFixException {
-        return getExpression(reference, location).evaluate(this);
+        checkNotNull(reference, "reference cannot be null");
+
+        // get the table first, so that a value resolved while a theme changes is not kept in the new one
+        ConcurrentMap<String, Object> values = getValues();
+        Object value = values.get(reference);
+        if (value == null) {
+            value = getExpression(reference, location).evaluate(this);
+            if (value != null) {
+                values.putIfAbsent(reference, value);
+            }
+        }
+        return value;
     }
 
     @Override
@@ -110,6 +139,11 @@ public final class ThemeValueProviderImpl implements ThemeValueProvider {
     public Set<DefDescriptor<ThemeDef>> getDescriptors(String reference, Location location) throws QuickFixException {
         checkNotNull(reference, "reference cannot be null");
 
+        Set<DefDescriptor<ThemeDef>> cached = descriptorsCache.getIfPresent(reference);
+        if (cached != null) {
+            return cached;
+        }
+
         Set<DefDescriptor<ThemeDef>> descriptors = Sets.newHashSet();
         Set<PropertyReference> propRefs = Sets.newHashSet();
 
@@ -124,7 +158,37 @@ public final class ThemeValueProviderImpl implements ThemeValueProvider {
             }
         }
 
-        return descriptors;
+        // the descriptors only depend on the text of the reference, so they don't need to be dropped
+        cached = ImmutableSet.copyOf(descriptors);
+        descriptorsCache.put(reference, cached);
+        return cached;
+    }
+
+    /**
+     * Drops all resolved values. Called when any theme changes, as a value may come from an extended or cross
+     * referenced theme.
+     */
+    public static void invalidateAll() {
+        valuesCache.invalidateAll();
+    }
+
+    public static CacheStats getStats() {
+        return valuesCache.stats();
+    }
+
+    /**
+     * Gets the resolved values for the overrides of this provider.
+     */
+    private ConcurrentMap<String, Object> getValues() {
+        ConcurrentMap<String, Object> values = valuesCache.getIfPresent(overrides);
+        if (values == null) {
+            values = new ConcurrentHashMap<String, Object>();
+            ConcurrentMap<String, Object> existing = valuesCache.asMap().putIfAbsent(overrides, values);
+            if (existing != null) {
+                values = existing;
+            }
+        }
+        return values;
     }
 
     /**
@@ -16,6 +16,7 @@
 package org.auraframework.impl.integration;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -27,6 +28,7 @@ import org.auraframework.def.ControllerDef;
 import org.auraframework.def.DefDescriptor;
 import org.auraframework.def.RegisterEventDef;
 import org.auraframework.instance.Action;
+import org.auraframework.integration.ComponentInjection;
 import org.auraframework.integration.Integration;
 import org.auraframework.integration.IntegrationServiceObserver;
 import org.auraframework.integration.UnsupportedUserAgentException;
@@ -42,6 +44,7 @@ import org.auraframework.system.Message;
 import org.auraframework.throwable.AuraRuntimeException;
 import org.auraframework.throwable.ClientOutOfSyncException;
 import org.auraframework.throwable.quickfix.QuickFixException;
+import org.auraframework.util.BufferPool;
 import org.auraframework.util.json.Json;
 
 import com.google.common.collect.Lists;
@@ -74,56 +77,15 @@ public class IntegrationImpl implements Integration {
 
         AuraContext context = getContext("is");
         try {
-            DefinitionService definitionService = Aura.getDefinitionService();
-            DefDescriptor<ComponentDef> descriptor = definitionService.getDefDescriptor(tag,
-                    ComponentDef.class);
-            ControllerDef componentControllerDef = definitionService.getDefDescriptor("aura://ComponentController",
-                    ControllerDef.class).getDef();
-
-            Map<String, Object> paramValues = Maps.newHashMap();
-            paramValues.put("name", descriptor.getQualifiedName());
-
-            Map<String, Object> actionAttributes = Maps.newHashMap();
             Map<String, String> actionEventHandlers = Maps.newHashMap();
-
-            ComponentDef componentDef = descriptor.getDef();
-            for (Map.Entry<String, Object> entry : attributes.entrySet()) {
-                String key = entry.getKey();
-
-                AttributeDef attributeDef = componentDef.getAttributeDef(key);
-                if (attributeDef != null) {
-                    String name = attributeDef.getName();
-                    actionAttributes.put(name, entry.getValue());
-                } else {
-                    RegisterEventDef eventDef = componentDef.getRegisterEventDefs().get(key);
-                    if (eventDef != null) {
-                        // Emit component.addHandler() wired to special global scope value provider
-                        String name = eventDef.getAttributeName();
-                        actionEventHandlers.put(name, (String) entry.getValue());
-                    } else {
-                        throw new AuraRuntimeException(
-                                String.format("Unknown attribute or event %s - %s", tag, key));
-                    }
-                }
-            }
-
-            paramValues.put("attributes", actionAttributes);
-
-            Action action = componentControllerDef.createAction("getComponent", paramValues);
+            Action action = createAction(getComponentControllerDef(), tag, attributes, actionEventHandlers);
             action.setId("ais");
-
-            Action previous = context.setCurrentAction(action);
-            try {
-                action.run();
-            } finally {
-                context.setCurrentAction(previous);
-            }
+            runAction(context, action);
 
             Message<?> message = new Message<ComponentDef>(Lists.newArrayList(action));
 
+            StringBuilder init = BufferPool.getStringBuilder();
             try {
-                StringBuilder init = new StringBuilder();
-
                 init.append("var config = ");
                 Aura.getSerializationService().write(message, null, Message.class, init);
                 init.append(";\n");
@@ -143,12 +105,85 @@ public class IntegrationImpl implements Integration {
                 // reconciled
                 out.append("<script>").append("$A.log('failed to create component: " + t.toString() + "')")
                         .append("</script>");
+            } finally {
+                BufferPool.release(init);
             }
         } finally {
             releaseContext();
         }
     }
     
+    @Override
+    public void injectComponents(List<ComponentInjection> components, Appendable out)
+            throws UnsupportedUserAgentException, IOException, QuickFixException {
+
+        if (!isSupportedClient(client)) {
+            throw new UnsupportedUserAgentException(client.getUserAgent());
+        }
+
+        if (components.isEmpty()) {
+            return;
+        }
+
+        if (initializeAura && !hasApplicationBeenWritten) {
+            hasApplicationBeenWritten = true;
+            writeApplication(out);
+        }
+
+        AuraContext context = getContext("is");
+        try {
+            ControllerDef componentControllerDef = getComponentControllerDef();
+            List<Action> actions = Lists.newArrayListWithCapacity(components.size());
+            List<Map<String, Object>> injections = Lists.newArrayListWithCapacity(components.size());
+
+            for (ComponentInjection component : components) {
+                Map<String, String> actionEventHandlers = Maps.newHashMap();
+                Action action = createAction(componentControllerDef, component.getTag(), component.getAttributes(),
+                        actionEventHandlers);
+                // Each action needs its own id, as the ids of the components it creates are based on it.
+                action.setId("ais" + actions.size());
+                actions.add(action);
+
+                Map<String, Object> injection = Maps.newHashMap();
+                injection.put("locatorDomId", component.getLocatorDomId());
+                injection.put("localId", component.getLocalId());
+                if (!actionEventHandlers.isEmpty()) {
+                    injection.put("actionEventHandlers", actionEventHandlers);
+                }
+                injections.add(injection);
+            }
+
+            for (Action action : actions) {
+                runAction(context, action);
+            }
+
+            Message<?> message = new Message<ComponentDef>(actions);
+
+            StringBuilder init = BufferPool.getStringBuilder();
+            try {
+                init.append("var config = ");
+                Aura.getSerializationService().write(message, null, Message.class, init);
+                init.append(";\n");
+
+                init.append("var injections = ");
+                Json.serialize(injections, init);
+                init.append(";\n");
+
+                init.append("$A.run(function() { $A.clientService.injectComponents(config, injections); });\n");
+
+                out.append("<script>").append(init).append("</script>");
+
+            } catch (Throwable t) {
+                out.append("<script>").append("$A.log('failed to create components: " + t.toString() + "')")
+                        .append("</script>");
+            } finally {
+                BufferPool.release(init);
+            }
+        } finally {
+            releaseContext();
+        }
+    }
+
     @Override
     @Deprecated
     public void addPreload(String namespace) {
@@ -157,6 +192,59 @@ public class IntegrationImpl implements Integration {
         }
     }
 
+    private static ControllerDef getComponentControllerDef() throws QuickFixException {
+        return Aura.getDefinitionService().getDefDescriptor("aura://ComponentController", ControllerDef.class)
+                .getDef();
+    }
+
+    /**
+     * Create the getComponent action for a component, collecting the handlers for its events.
+     */
+    private static Action createAction(ControllerDef componentControllerDef, String tag,
+            Map<String, Object> attributes, Map<String, String> actionEventHandlers) throws QuickFixException {
+        DefinitionService definitionService = Aura.getDefinitionService();
+        DefDescriptor<ComponentDef> descriptor = definitionService.getDefDescriptor(tag, ComponentDef.class);
+
+        Map<String, Object> paramValues = Maps.newHashMap();
+        paramValues.put("name", descriptor.getQualifiedName());
+
+        Map<String, Object> actionAttributes = Maps.newHashMap();
+
+        ComponentDef componentDef = descriptor.getDef();
+        for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+            String key = entry.getKey();
+
+            AttributeDef attributeDef = componentDef.getAttributeDef(key);
+            if (attributeDef != null) {
+                String name = attributeDef.getName();
+                actionAttributes.put(name, entry.getValue());
+            } else {
+                RegisterEventDef eventDef = componentDef.getRegisterEventDefs().get(key);
+                if (eventDef != null) {
+                    // Emit component.addHandler() wired to special global scope value provider
+                    String name = eventDef.getAttributeName();
+                    actionEventHandlers.put(name, (String) entry.getValue());
+                } else {
+                    throw new AuraRuntimeException(
+                            String.format("Unknown attribute or event %s - %s", tag, key));
+                }
+            }
+        }
+
+        paramValues.put("attributes", actionAttributes);
+
+        return componentControllerDef.createAction("getComponent", paramValues);
+    }
+
+    private static void runAction(AuraContext context, Action action) {
+        Action previous = context.setCurrentAction(action);
+        try {
+            action.run();
+        } finally {
+            context.setCurrentAction(previous);
+        }
+    }
+
     private void releaseContext() {
         if (contextDepthCount == 0) {
             Aura.getContextService().endContext();
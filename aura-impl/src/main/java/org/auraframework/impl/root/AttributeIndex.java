@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.root;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.auraframework.def.AttributeDef;
+import org.auraframework.def.AttributeDefRef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.RootDefinition;
+import org.auraframework.def.TypeDef;
+import org.auraframework.impl.java.type.JavaTypeDef;
+import org.auraframework.throwable.quickfix.QuickFixException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * The attributes of a root definition, numbered in the order of {@link RootDefinition#getAttributeDefs()}, so that
+ * an {@link AttributeSetImpl} can keep its values in an array.
+ *
+ * The defaults that come out the same for every instance are worked out here, once. Those are the ones the type
+ * leaves as they are, as well as booleans, which don't depend on the locale. Anything else, like facets, is
+ * initialized for each instance as before.
+ *
+ * Indexes are kept by definition instance and dropped on any source change, as the attributes of a definition
+ * include those of its super definition and interfaces.
+ */
+public final class AttributeIndex {
+    private static final Cache<RootDefinition, AttributeIndex> indexes = CacheBuilder.newBuilder().weakKeys()
+            .maximumSize(4096).recordStats().build();
+
+    private final RootDefinition def;
+    private final Map<DefDescriptor<AttributeDef>, AttributeDef> attributeDefs;
+    private final Map<DefDescriptor<AttributeDef>, Integer> positions;
+    private final AttributeDef[] defs;
+    private final AttributeDefRef[] defaults;
+    private final boolean[] constant;
+    private final Object[] constantValues;
+    private final int[] required;
+
+    private AttributeIndex(RootDefinition def) throws QuickFixException {
+        this.def = def;
+        this.attributeDefs = def.getAttributeDefs();
+
+        int size = attributeDefs.size();
+        ImmutableMap.Builder<DefDescriptor<AttributeDef>, Integer> builder = ImmutableMap.builder();
+        this.defs = new AttributeDef[size];
+        this.defaults = new AttributeDefRef[size];
+        this.constant = new boolean[size];
+        this.constantValues = new Object[size];
+        int[] requiredIndexes = new int[size];
+        int requiredCount = 0;
+
+        int i = 0;
+        for (Map.Entry<DefDescriptor<AttributeDef>, AttributeDef> entry : attributeDefs.entrySet()) {
+            AttributeDef attributeDef = entry.getValue();
+            builder.put(entry.getKey(), i);
+            defs[i] = attributeDef;
+            if (attributeDef.isRequired()) {
+                requiredIndexes[requiredCount++] = i;
+            }
+            AttributeDefRef ref = attributeDef.getDefaultValue();
+            defaults[i] = ref;
+            if (ref != null && isConstant(attributeDef.getTypeDef(), ref.getValue())) {
+                constant[i] = true;
+                constantValues[i] = attributeDef.getTypeDef().initialize(ref.getValue(), null);
+            }
+            i++;
+        }
+        this.positions = builder.build();
+        this.required = Arrays.copyOf(requiredIndexes, requiredCount);
+    }
+
+    /**
+     * Get the index for a definition.
+     *
+     * @param def the definition.
+     * @return the index, shared by all instances of the definition.
+     * @throws QuickFixException if the attributes of the definition could not be found.
+     */
+    public static AttributeIndex get(RootDefinition def) throws QuickFixException {
+        AttributeIndex index = indexes.getIfPresent(def);
+        if (index == null) {
+            index = new AttributeIndex(def);
+            indexes.put(def, index);
+        }
+        return index;
+    }
+
+    public static void invalidateAll() {
+        indexes.invalidateAll();
+    }
+
+    public static CacheStats getStats() {
+        return indexes.stats();
+    }
+
+    /**
+     * Whether initializing a default gives the same value every time. Only java types are looked at, the others make
+     * new components or wrap the value for the instance.
+     */
+    private static boolean isConstant(TypeDef typeDef, Object value) throws QuickFixException {
+        if (!(typeDef instanceof JavaTypeDef)) {
+            return false;
+        }
+        Object type = typeDef.getExternalType("java");
+        if (!(type instanceof Class)) {
+            return false;
+        }
+        if (!(value instanceof String) || ((Class<?>) type).isInstance(value)) {
+            return true;
+        }
+        return type == Boolean.class;
+    }
+
+    RootDefinition getDef() {
+        return def;
+    }
+
+    /**
+     * @return the attributes of the definition, as from {@link RootDefinition#getAttributeDefs()}.
+     */
+    Map<DefDescriptor<AttributeDef>, AttributeDef> getAttributeDefs() {
+        return attributeDefs;
+    }
+
+    int size() {
+        return defs.length;
+    }
+
+    /**
+     * @return the index of an attribute, or -1 if the definition has no such attribute.
+     */
+    int indexOf(DefDescriptor<AttributeDef> descriptor) {
+        Integer position = positions.get(descriptor);
+        return position != null ? position.intValue() : -1;
+    }
+
+    AttributeDef getAttributeDef(int index) {
+        return defs[index];
+    }
+
+    /**
+     * @return the default of the attribute, or null if it has none.
+     */
+    AttributeDefRef getDefault(int index) {
+        return defaults[index];
+    }
+
+    /**
+     * @return true if the default of the attribute is the same for every instance, see {@link #getConstantValue(int)}.
+     */
+    boolean isConstantDefault(int index) {
+        return constant[index];
+    }
+
+    /**
+     * @return the initialized default of the attribute, if {@link #isConstantDefault(int)}.
+     */
+    Object getConstantValue(int index) {
+        return constantValues[index];
+    }
+
+    /**
+     * @return the indexes of the required attributes.
+     */
+    int[] getRequired() {
+        return required;
+    }
+}
@@ -57,6 +57,8 @@ import org.auraframework.util.json.Json;
 import org.auraframework.util.json.Json.Serialization;
 import org.auraframework.util.json.Json.Serialization.ReferenceType;
 
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
 
 /**
@@ -67,7 +69,16 @@ public class AttributeSetImpl implements AttributeSet {
             .getExternalLocation("super component attribute passthrough");
 
     private DefDescriptor<? extends RootDefinition> rootDefDescriptor;
-    private final Map<DefDescriptor<AttributeDef>, Attribute> attributes = Maps.newHashMap();
+    private AttributeIndex index;
+    /**
+     * Values by the index of their attribute in the root definition.
+     */
+    private Attribute[] values;
+    private int count;
+    /**
+     * Values the root definition has no attribute for, only after it was changed. Usually null.
+     */
+    private Map<DefDescriptor<AttributeDef>, Attribute> detached;
     private final Map<DefDescriptor<EventHandlerDef>, EventHandler> events = Maps.newHashMap();
     private final BaseComponent<?, ?> valueProvider;
     private final Instance<?> parent;
@@ -93,16 +104,74 @@ public class AttributeSetImpl implements AttributeSet {
     }
 
     private void setDefaults() throws QuickFixException {
-        Map<DefDescriptor<AttributeDef>, AttributeDef> attrs = rootDefDescriptor.getDef().getAttributeDefs();
+        AttributeIndex newIndex = AttributeIndex.get(rootDefDescriptor.getDef());
+        if (newIndex != index) {
+            reindex(newIndex);
+        }
 
-        for (Map.Entry<DefDescriptor<AttributeDef>, AttributeDef> attr : attrs.entrySet()) {
-            AttributeDefRef ref = attr.getValue().getDefaultValue();
-            if (ref != null && !attributes.containsKey(attr.getKey())) {
-                set(ref);
+        for (int i = 0; i < index.size(); i++) {
+            AttributeDefRef ref = index.getDefault(i);
+            if (ref != null && values[i] == null) {
+                if (index.isConstantDefault(i)) {
+                    AttributeImpl attribute = new AttributeImpl(index.getAttributeDef(i).getDescriptor());
+                    attribute.setValue(index.getConstantValue(i));
+                    set(attribute);
+                } else {
+                    set(ref);
+                }
             }
         }
     }
 
+    /**
+     * Move the values over to the index of a new root definition.
+     */
+    private void reindex(AttributeIndex newIndex) {
+        Attribute[] oldValues = values;
+        Map<DefDescriptor<AttributeDef>, Attribute> oldDetached = detached;
+
+        index = newIndex;
+        values = new Attribute[newIndex.size()];
+        count = 0;
+        detached = null;
+
+        if (oldValues != null) {
+            for (Attribute attribute : oldValues) {
+                if (attribute != null) {
+                    store(attribute);
+                }
+            }
+        }
+        if (oldDetached != null) {
+            for (Attribute attribute : oldDetached.values()) {
+                store(attribute);
+            }
+        }
+    }
+
+    private void store(Attribute attribute) {
+        int i = index.indexOf(attribute.getDescriptor());
+        if (i < 0) {
+            if (detached == null) {
+                detached = Maps.newLinkedHashMap();
+            }
+            detached.put(attribute.getDescriptor(), attribute);
+        } else {
+            if (values[i] == null) {
+                count++;
+            }
+            values[i] = attribute;
+        }
+    }
+
+    private Attribute getAttribute(DefDescriptor<AttributeDef> desc) {
+        int i = index.indexOf(desc);
+        if (i >= 0) {
+            return values[i];
+        }
+        return detached != null ? detached.get(desc) : null;
+    }
+
     private void set(EventHandler eventHandler) {
         events.put(eventHandler.getDescriptor(), eventHandler);
     }
@@ -111,12 +180,12 @@ public class AttributeSetImpl implements AttributeSet {
         if (trackDirty) {
             attribute.markDirty();
         }
-        attributes.put(attribute.getDescriptor(), attribute);
+        store(attribute);
     }
 
     private void set(AttributeDefRef attributeDefRef) throws QuickFixException {
-        RootDefinition def = rootDefDescriptor.getDef();
-        Map<DefDescriptor<AttributeDef>, AttributeDef> attributeDefs = def.getAttributeDefs();
+        RootDefinition def = index.getDef();
+        Map<DefDescriptor<AttributeDef>, AttributeDef> attributeDefs = index.getAttributeDefs();
 
         AttributeDef attributeDef = attributeDefs.get(attributeDefRef.getDescriptor());
         // setAndValidateAttribute should be merged with creating the
@@ -165,8 +234,7 @@ public class AttributeSetImpl implements AttributeSet {
 
     @Override
     public void set(Collection<AttributeDefRef> facetDefRefs, AttributeSet attributeSet) throws QuickFixException {
-        RootDefinition rootDef = rootDefDescriptor.getDef();
-        Map<DefDescriptor<AttributeDef>, AttributeDef> attrs = rootDef.getAttributeDefs();
+        Map<DefDescriptor<AttributeDef>, AttributeDef> attrs = index.getAttributeDefs();
         Map<DefDescriptor<?>, Object> lookup = Maps.newHashMap();
 
         for (Attribute attribute : attributeSet) {
@@ -194,8 +262,7 @@ public class AttributeSetImpl implements AttributeSet {
     @Override
     public void set(Map<String, Object> attributeMap) throws QuickFixException {
         if (attributeMap != null) {
-            RootDefinition rootDef = rootDefDescriptor.getDef();
-            Map<DefDescriptor<AttributeDef>, AttributeDef> attrs = rootDef.getAttributeDefs();
+            Map<DefDescriptor<AttributeDef>, AttributeDef> attrs = index.getAttributeDefs();
             for (Map.Entry<String, Object> entry : attributeMap.entrySet()) {
                 DefDescriptor<AttributeDef> desc = DefDescriptorImpl.getInstance(entry.getKey(), AttributeDef.class);
                 if (attrs.containsKey(desc)) {
@@ -219,7 +286,7 @@ public class AttributeSetImpl implements AttributeSet {
     public Object getExpression(String name) {
         DefDescriptor<AttributeDef> desc = DefDescriptorImpl.getInstance(name, AttributeDef.class);
 
-        Attribute at = attributes.get(desc);
+        Attribute at = getAttribute(desc);
         if (at != null) {
             return at.getValue();
         }
@@ -227,12 +294,11 @@ public class AttributeSetImpl implements AttributeSet {
     }
 
     private void setExpression(DefDescriptor<AttributeDef> desc, Object value) throws QuickFixException {
-        RootDefinition rd = rootDefDescriptor.getDef();
-        AttributeDef ad = rd.getAttributeDefs().get(desc);
+        AttributeDef ad = index.getAttributeDefs().get(desc);
         if (ad == null) {
             // this location isn't even close to right...
             throw new InvalidDefinitionException(String.format("Attribute %s not defined on %s", desc.getName(),
-                    rootDefDescriptor.getName()), rd.getLocation());
+                    rootDefDescriptor.getName()), index.getDef().getLocation());
         }
 
         AttributeImpl att = new AttributeImpl(desc);
@@ -243,7 +309,7 @@ public class AttributeSetImpl implements AttributeSet {
 
             iStack.markParent(parent);
             iStack.setAttributeName(desc.toString());
-            att.setValue(rootDefDescriptor.getDef().getAttributeDef(att.getName()).getTypeDef().initialize(value, null));
+            att.setValue(ad.getTypeDef().initialize(value, null));
             iStack.clearAttributeName(desc.toString());
             iStack.clearParent(parent);
         }
@@ -261,7 +327,8 @@ public class AttributeSetImpl implements AttributeSet {
         if (value instanceof ValueProvider && stem != null) {
             value = ((ValueProvider) value).getValue(stem);
         } else if (stem != null) {
-            AttributeDef attributeDef = rootDefDescriptor.getDef().getAttributeDef(expr.getRoot());
+            AttributeDef attributeDef = index.getAttributeDefs().get(
+                    DefDescriptorImpl.getInstance(expr.getRoot(), AttributeDef.class));
             value = attributeDef.getTypeDef().wrap(value);
             if (value instanceof ValueProvider) {
                 value = ((ValueProvider) value).getValue(stem);
@@ -278,16 +345,15 @@ public class AttributeSetImpl implements AttributeSet {
         try {
             json.writeMapBegin();
             json.writeMapEntry("valueProvider", valueProvider);
-            if (!attributes.isEmpty()) {
-                RootDefinition def = rootDefDescriptor.getDef();
+            if (size() > 0) {
                 json.writeMapKey("values");
                 json.writeMapBegin();
 
-                for (Attribute attribute : attributes.values()) {
+                for (Attribute attribute : this) {
                     String name = attribute.getName();
-                    AttributeDef attributeDef = def.getAttributeDef(name);
+                    AttributeDef attributeDef = index.getAttributeDefs().get(attribute.getDescriptor());
                     if (attributeDef == null) {
-                        throw new AttributeNotFoundException(rootDefDescriptor, name, def.getLocation());
+                        throw new AttributeNotFoundException(rootDefDescriptor, name, index.getDef().getLocation());
                     }
 
                     if (attributeDef.getSerializeTo() == AttributeDef.SerializeToType.BOTH) {
@@ -314,7 +380,7 @@ public class AttributeSetImpl implements AttributeSet {
 
     @Override
     public int size() {
-        return attributes.size();
+        return detached == null ? count : count + detached.size();
     }
 
     /**
@@ -327,12 +393,16 @@ public class AttributeSetImpl implements AttributeSet {
 
     @Override
     public Iterator<Attribute> iterator() {
-        return attributes.values().iterator();
+        Iterator<Attribute> indexed = Iterators.filter(Iterators.forArray(values), Predicates.notNull());
+        if (detached == null) {
+            return indexed;
+        }
+        return Iterators.concat(indexed, detached.values().iterator());
     }
 
     @Override
     public boolean isEmpty() {
-        return attributes.isEmpty() && events.isEmpty();
+        return size() == 0 && events.isEmpty();
     }
 
     @Override
@@ -351,15 +421,15 @@ public class AttributeSetImpl implements AttributeSet {
 
     @Override
     public Set<AttributeDef> getMissingAttributes() throws QuickFixException {
-        Map<DefDescriptor<AttributeDef>, AttributeDef> attrs = rootDefDescriptor.getDef().getAttributeDefs();
+        int[] required = index.getRequired();
         Set<AttributeDef> missingAttributes = null;
-        for (Map.Entry<DefDescriptor<AttributeDef>, AttributeDef> attr : attrs.entrySet()) {
-            if (attr.getValue().isRequired() && !attributes.containsKey(attr.getKey())) {
+        for (int i : required) {
+            if (values[i] == null) {
                 if (missingAttributes == null) {
-                    missingAttributes = new HashSet<AttributeDef>(attrs.entrySet().size());
+                    missingAttributes = new HashSet<AttributeDef>(required.length);
                 }
 
-                missingAttributes.add(attr.getValue());
+                missingAttributes.add(index.getAttributeDef(i));
             }
         }
 
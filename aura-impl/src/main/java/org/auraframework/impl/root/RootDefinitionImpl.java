@@ -44,8 +44,7 @@ public abstract class RootDefinitionImpl<T extends RootDefinition> extends Defin
         if (builder.attributeDefs == null || builder.attributeDefs.size() == 0) {
             this.attributeDefs = ImmutableMap.of();
         } else {
-            this.attributeDefs = Collections
-                    .unmodifiableMap(new LinkedHashMap<DefDescriptor<AttributeDef>, AttributeDef>(builder.attributeDefs));
+            this.attributeDefs = ImmutableMap.copyOf(builder.attributeDefs);
         }
         this.providerDescriptors = AuraUtil.immutableList(builder.providerDescriptors);
 
@@ -262,6 +262,11 @@ public class ApplicationDefImpl extends BaseComponentDefImpl<ApplicationDef> imp
         return urls;
     }
 
+    @Override
+    public boolean hasAdditionalAppCacheURLs() {
+        return additionalAppCacheURLs != null;
+    }
+
     @Override
     public Boolean isOnePageApp() throws QuickFixException {
         return isOnePageApp;
@@ -64,6 +64,7 @@ import org.auraframework.throwable.quickfix.DefinitionNotFoundException;
 import org.auraframework.throwable.quickfix.InvalidDefinitionException;
 import org.auraframework.throwable.quickfix.QuickFixException;
 import org.auraframework.util.json.Json;
+import org.auraframework.util.json.JsonSerializable;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -129,9 +130,9 @@ public abstract class BaseComponentDefImpl<T extends BaseComponentDef> extends
         this.events = AuraUtil.immutableMap(builder.events);
         this.eventHandlers = AuraUtil.immutableList(builder.eventHandlers);
         this.styleDescriptor = builder.styleDescriptor;
-        this.rendererDescriptors = builder.rendererDescriptors;
-        this.helperDescriptors = builder.helperDescriptors;
-        this.resourceDescriptors = builder.resourceDescriptors;
+        this.rendererDescriptors = AuraUtil.immutableListOrNull(builder.rendererDescriptors);
+        this.helperDescriptors = AuraUtil.immutableListOrNull(builder.helperDescriptors);
+        this.resourceDescriptors = AuraUtil.immutableListOrNull(builder.resourceDescriptors);
         this.isAbstract = builder.isAbstract;
         this.isExtensible = builder.isExtensible;
         this.isTemplate = builder.isTemplate;
@@ -700,6 +701,15 @@ public abstract class BaseComponentDefImpl<T extends BaseComponentDef> extends
      */
     @Override
     public void serialize(Json json) throws IOException {
+        DefFragmentCache.write(json, Aura.getContextService().getCurrentContext(), this, new JsonSerializable() {
+            @Override
+            public void serialize(Json json) throws IOException {
+                serializeDefinition(json);
+            }
+        });
+    }
+
+    private void serializeDefinition(Json json) throws IOException {
         try {
             AuraContext context = Aura.getContextService().getCurrentContext();
             Mode mode = context.getMode();
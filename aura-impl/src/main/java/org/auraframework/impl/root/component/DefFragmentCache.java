@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.root.component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.Definition;
+import org.auraframework.impl.system.MasterDefRegistryImpl;
+import org.auraframework.system.AuraContext;
+import org.auraframework.system.Client;
+import org.auraframework.system.MasterDefRegistry;
+import org.auraframework.util.json.Json;
+import org.auraframework.util.json.JsonFragment;
+import org.auraframework.util.json.JsonSerializable;
+import org.auraframework.util.json.JsonSerializationContext;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Serialized definitions, kept to be written again into later responses.
+ *
+ * A definition serializes the same way as long as it and everything it pulls in is unchanged, and the context asks
+ * for the same thing. The key covers the definition, its own hash and the parts of the context that serialization
+ * looks at: mode, preloading, client type, application and the serialization flags. What is preloaded is looked at
+ * for nested definitions too, so the answers given while serializing are kept with the fragment, and it is only used
+ * for a context that gives the same answers.
+ *
+ * Nothing is kept for a definition that can't be cached, or that depends on one, nor for anything written around it.
+ * What a definition depends on is only looked at the first time it is written, and the answer is kept with the
+ * fragment, or on its own when it is not. Requests that added definitions locally are the exception, they look every
+ * time, as a local definition can stand in for anything. Serializing also sets the current namespace, and the
+ * namespace it was left at is kept to be set again on reuse.
+ *
+ * The whole cache is dropped on any source change, as a fragment holds the serialized form of other definitions.
+ */
+public final class DefFragmentCache {
+    private static final int MAX_CHARS = 4 * 1024 * 1024;
+
+    private static final Cache<String, Entry> fragments = CacheBuilder.newBuilder().maximumWeight(MAX_CHARS)
+            .weigher(new Weigher<String, Entry>() {
+                @Override
+                public int weigh(String key, Entry entry) {
+                    return entry.fragment.length();
+                }
+            }).recordStats().build();
+
+    /**
+     * Keys of definitions found not to be cacheable, so they are not looked at again.
+     */
+    private static final Cache<String, Boolean> uncacheable = CacheBuilder.newBuilder().maximumSize(4096).build();
+
+    /**
+     * Whether what is being captured on this thread can still be cached.
+     */
+    private static final ThreadLocal<boolean[]> capturing = new ThreadLocal<boolean[]>();
+
+    private static class Entry {
+        private final JsonFragment fragment;
+        private final Map<DefDescriptor<?>, Boolean> preloads;
+        private final String namespace;
+
+        private Entry(JsonFragment fragment, Map<DefDescriptor<?>, Boolean> preloads, String namespace) {
+            this.fragment = fragment;
+            this.preloads = preloads;
+            this.namespace = namespace;
+        }
+
+        /**
+         * Check the preloads against the context. This records them in turn, for any fragment being captured around
+         * this one.
+         */
+        private boolean matches(AuraContext context) {
+            for (Map.Entry<DefDescriptor<?>, Boolean> preload : preloads.entrySet()) {
+                if (context.isPreloaded(preload.getKey()) != preload.getValue().booleanValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private DefFragmentCache() {
+    }
+
+    /**
+     * Write a definition, from the cache if possible.
+     *
+     * @param json the stream to write to.
+     * @param context the current context.
+     * @param def the definition.
+     * @param serializer writes the definition when it is not in the cache.
+     * @throws IOException if writing fails.
+     */
+    public static void write(Json json, AuraContext context, Definition def, JsonSerializable serializer)
+            throws IOException {
+        boolean[] outerCapture = capturing.get();
+        String key = getKey(json.getSerializationContext(), context, def);
+        MasterDefRegistryImpl registry = getRegistry(context);
+        if (key == null || registry == null || !registry.isCacheable(def.getDescriptor())
+                || (registry.hasLocalDefs() && !areDependenciesCacheable(registry, def))) {
+            writeUncached(json, serializer, outerCapture);
+            return;
+        }
+        Entry entry = fragments.getIfPresent(key);
+        if (entry == null || !entry.matches(context)) {
+            if (entry == null && uncacheable.getIfPresent(key) != null) {
+                writeUncached(json, serializer, outerCapture);
+                return;
+            }
+            if (entry == null && !areDependenciesCacheable(registry, def)) {
+                uncacheable.put(key, Boolean.TRUE);
+                writeUncached(json, serializer, outerCapture);
+                return;
+            }
+            Map<DefDescriptor<?>, Boolean> preloads = Maps.newHashMap();
+            Map<DefDescriptor<?>, Boolean> outer = context.setPreloadRecorder(preloads);
+            boolean[] capture = { true };
+            String outerNamespace = context.getCurrentNamespace();
+            String namespace;
+            JsonFragment fragment;
+            capturing.set(capture);
+            context.setCurrentNamespace(null);
+            try {
+                fragment = Json.capture(json.getSerializationContext(), serializer);
+            } finally {
+                capturing.set(outerCapture);
+                namespace = context.getCurrentNamespace();
+                if (namespace == null) {
+                    context.setCurrentNamespace(outerNamespace);
+                }
+                context.setPreloadRecorder(outer);
+                if (outer != null) {
+                    outer.putAll(preloads);
+                }
+            }
+            if (!capture[0]) {
+                if (outerCapture != null) {
+                    outerCapture[0] = false;
+                }
+                if (!registry.hasLocalDefs()) {
+                    uncacheable.put(key, Boolean.TRUE);
+                }
+                json.writeFragment(fragment);
+                return;
+            }
+            entry = new Entry(fragment, ImmutableMap.copyOf(preloads), namespace);
+            fragments.put(key, entry);
+        } else if (entry.namespace != null) {
+            context.setCurrentNamespace(entry.namespace);
+        }
+        json.writeFragment(entry.fragment);
+    }
+
+    public static void invalidateAll() {
+        fragments.invalidateAll();
+        uncacheable.invalidateAll();
+    }
+
+    public static CacheStats getStats() {
+        return fragments.stats();
+    }
+
+    /**
+     * Write a definition that can't be cached, which also keeps anything being captured around it from being cached.
+     */
+    private static void writeUncached(Json json, JsonSerializable serializer, boolean[] outerCapture)
+            throws IOException {
+        if (outerCapture != null) {
+            outerCapture[0] = false;
+        }
+        serializer.serialize(json);
+    }
+
+    /**
+     * @return the registry, or null if it can't tell what can be cached.
+     */
+    private static MasterDefRegistryImpl getRegistry(AuraContext context) {
+        MasterDefRegistry mdr = context.getDefRegistry();
+        if (!(mdr instanceof MasterDefRegistryImpl)) {
+            return null;
+        }
+        return (MasterDefRegistryImpl) mdr;
+    }
+
+    /**
+     * Check that what the definition refers to directly comes from registries whose definitions can be shared, what
+     * it refers to in turn is checked as it is written.
+     */
+    private static boolean areDependenciesCacheable(MasterDefRegistryImpl registry, Definition def) {
+        Set<DefDescriptor<?>> dependencies = Sets.newHashSet();
+        def.appendDependencies(dependencies);
+        for (DefDescriptor<?> dependency : dependencies) {
+            if (!registry.isCacheable(dependency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the key, or null if the output can't be cached.
+     */
+    private static String getKey(JsonSerializationContext serializationContext, AuraContext context, Definition def) {
+        String ownHash = def.getOwnHash();
+        if (ownHash == null || serializationContext.format() || serializationContext.getVariableDataSizeLimit() != -1
+                || serializationContext.getCollectionSizeLimit() != -1) {
+            return null;
+        }
+        Client client = context.getClient();
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(def.getDescriptor().getDefType()).append(':').append(def.getDescriptor().getQualifiedName());
+        sb.append('/').append(ownHash);
+        sb.append('/').append(context.getMode());
+        sb.append('/').append(context.isPreloading());
+        sb.append('/').append(client != null ? client.getType() : null);
+        sb.append('/').append(context.getApplicationDescriptor());
+        sb.append('/').append(serializationContext.refSupport());
+        sb.append('/').append(serializationContext.isNullValueEnabled());
+        return sb.toString();
+    }
+}
@@ -52,7 +52,8 @@ public class XMLParser implements Parser {
         xmlInputFactory = XMLInputFactory.newInstance();
         xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
         xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
-        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+        // entities are resolved by HTMLReader, so there is no dtd to parse.
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
         xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
         xmlInputFactory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
         try {
@@ -202,7 +203,7 @@ public class XMLParser implements Parser {
                 location = location.substring(5);
             }
             URL cacheUrl = source.getCacheUrl();
-            return new Location(location, xmlLocation.getLineNumber() - 1, xmlLocation.getColumnNumber(),
+            return new Location(location, xmlLocation.getLineNumber(), xmlLocation.getColumnNumber(),
                     source.getLastModified(), cacheUrl == null ? null : cacheUrl.toString());
         } else if (source != null) {
             return new Location(source.getSystemId(), source.getLastModified());
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.source;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.auraframework.system.Source;
+import org.auraframework.util.text.Hash;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.io.ByteStreams;
+
+/**
+ * The contents and hash of file and resource sources, shared by all registries.
+ *
+ * Sources are created afresh for each lookup, and a single compile may ask one for its contents and its hash several
+ * times, so without this every parse and recompile reads and hashes the same bytes again. Entries are keyed by path
+ * or URL and checked against the last modified time and length on each use, so a changed file is read again even if
+ * no change notification arrived. The cache is bounded by the total number of characters held.
+ *
+ * Files are read through a channel, memory-mapped when they are large, and decoded in one go. The hash is the same
+ * MD5 over the UTF-8 encoding of the contents that {@link Source.HashingReader} computes, taken from the raw bytes
+ * when they are valid UTF-8.
+ */
+public final class SourceContentsCache {
+    private static final int MAX_CHARS = 8 * 1024 * 1024;
+
+    /**
+     * Smaller files are read into the heap, mapping them costs more than it saves.
+     */
+    private static final long MAP_THRESHOLD = 256 * 1024;
+
+    private static final Cache<String, Entry> entries = CacheBuilder.newBuilder().maximumWeight(MAX_CHARS)
+            .weigher(new Weigher<String, Entry>() {
+                @Override
+                public int weigh(String key, Entry entry) {
+                    return entry.contents.length();
+                }
+            }).recordStats().build();
+
+    private static class Entry {
+        private final long lastModified;
+        private final long length;
+        private final String contents;
+        private final byte[] hash;
+
+        private Entry(long lastModified, long length, String contents, byte[] hash) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.contents = contents;
+            this.hash = hash;
+        }
+    }
+
+    private SourceContentsCache() {
+    }
+
+    /**
+     * Get the contents of a file, setting the hash of the source if it does not have one yet.
+     *
+     * @param file the file to read.
+     * @param charset the encoding of the file.
+     * @param source the source for the file.
+     * @return the contents.
+     * @throws IOException if the file could not be read.
+     */
+    public static String getContents(File file, Charset charset, Source<?> source) throws IOException {
+        String key = getKey(file);
+        long lastModified = file.lastModified();
+        long length = file.length();
+        Entry entry = entries.getIfPresent(key);
+
+        if (entry == null || entry.lastModified != lastModified || entry.length != length) {
+            FileInputStream in = new FileInputStream(file);
+            try {
+                FileChannel channel = in.getChannel();
+                long size = channel.size();
+                ByteBuffer bytes;
+                if (size >= MAP_THRESHOLD) {
+                    bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                } else {
+                    bytes = ByteBuffer.allocate((int) size);
+                    while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                        // keep reading until full or at the end.
+                    }
+                    bytes.flip();
+                }
+                entry = decode(bytes, charset, lastModified, length);
+            } finally {
+                in.close();
+            }
+            entries.put(key, entry);
+        }
+        setHash(source, entry);
+        return entry.contents;
+    }
+
+    /**
+     * Get the contents of a resource, setting the hash of the source if it does not have one yet.
+     *
+     * Resources in directories are handled as files. Resources in jar files are checked against the jar file, so a
+     * connection is only opened to read them. Anything else is checked against what its connection reports.
+     *
+     * @param url the resource to read.
+     * @param charset the encoding of the resource.
+     * @param source the source for the resource.
+     * @return the contents.
+     * @throws IOException if the resource could not be read.
+     */
+    public static String getContents(URL url, Charset charset, Source<?> source) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return getContents(new File(url.toURI()), charset, source);
+            } catch (URISyntaxException use) {
+                // fall through and treat it like any other url.
+            } catch (IllegalArgumentException iae) {
+                // same here.
+            }
+        }
+        String key = url.toString();
+        File jar = getJarFile(url);
+        if (jar != null) {
+            long lastModified = jar.lastModified();
+            long length = jar.length();
+            Entry entry = entries.getIfPresent(key);
+
+            if (entry == null || entry.lastModified != lastModified || entry.length != length) {
+                entry = read(url.openConnection(), charset, lastModified, length);
+                entries.put(key, entry);
+            }
+            setHash(source, entry);
+            return entry.contents;
+        }
+
+        URLConnection connection = url.openConnection();
+        Entry entry;
+        try {
+            long lastModified = connection.getLastModified();
+            long length = connection.getContentLength();
+            entry = entries.getIfPresent(key);
+
+            if (entry == null || entry.lastModified != lastModified || entry.length != length) {
+                entry = read(connection, charset, lastModified, length);
+                entries.put(key, entry);
+            }
+        } finally {
+            // asking for the last modified time may have opened the stream, even if it is not read.
+            try {
+                connection.getInputStream().close();
+            } catch (IOException ioe) {
+                // already closed, or never opened.
+            }
+        }
+        setHash(source, entry);
+        return entry.contents;
+    }
+
+    private static Entry read(URLConnection connection, Charset charset, long lastModified, long length)
+            throws IOException {
+        InputStream in = connection.getInputStream();
+        try {
+            return decode(ByteBuffer.wrap(ByteStreams.toByteArray(in)), charset, lastModified, length);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return the jar file on disk that a jar: url points into, or null if it is not one.
+     */
+    private static File getJarFile(URL url) {
+        if (!"jar".equals(url.getProtocol())) {
+            return null;
+        }
+        String spec = url.getFile();
+        int separator = spec.indexOf("!/");
+        if (separator < 0) {
+            return null;
+        }
+        try {
+            URL jarUrl = new URL(spec.substring(0, separator));
+            if (!"file".equals(jarUrl.getProtocol())) {
+                return null;
+            }
+            return new File(jarUrl.toURI());
+        } catch (MalformedURLException mue) {
+            return null;
+        } catch (URISyntaxException use) {
+            return null;
+        } catch (IllegalArgumentException iae) {
+            return null;
+        }
+    }
+
+    /**
+     * Drop the contents of a file that has changed.
+     */
+    public static void invalidate(String filePath) {
+        entries.invalidate(getKey(new File(filePath)));
+    }
+
+    public static void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    public static CacheStats getStats() {
+        return entries.stats();
+    }
+
+    private static String getKey(File file) {
+        return file.getAbsolutePath();
+    }
+
+    private static Entry decode(ByteBuffer bytes, Charset charset, long lastModified, long length) {
+        MessageDigest digest = getDigest();
+        String contents;
+
+        if (Charsets.UTF_8.equals(charset)) {
+            try {
+                contents = charset.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+                        .onUnmappableCharacter(CodingErrorAction.REPORT).decode(bytes.duplicate()).toString();
+                digest.update(bytes);
+                return new Entry(lastModified, length, contents, digest.digest());
+            } catch (CharacterCodingException cce) {
+                // decode it like a reader would below, the hash is then over the replacement characters.
+            }
+        }
+        try {
+            contents = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE).decode(bytes).toString();
+        } catch (CharacterCodingException cce) {
+            // can't happen when replacing.
+            throw new IllegalStateException(cce);
+        }
+        digest.update(contents.getBytes(Charsets.UTF_8));
+        return new Entry(lastModified, length, contents, digest.digest());
+    }
+
+    private static MessageDigest getDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("MD5 is a required MessageDigest algorithm, but is not registered here.");
+        }
+    }
+
+    private static void setHash(Source<?> source, Entry entry) {
+        Hash hash = source.getHash();
+        synchronized (hash) {
+            if (!hash.isSet()) {
+                hash.setHash(entry.hash);
+            }
+        }
+    }
+}
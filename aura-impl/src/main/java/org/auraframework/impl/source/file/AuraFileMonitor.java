@@ -15,8 +15,10 @@
  */
 package org.auraframework.impl.source.file;
 
-import java.util.HashSet;
+import java.io.File;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
@@ -28,23 +30,55 @@ import org.apache.log4j.Logger;
 /**
  * File monitor allowing to ability to add watched directory. Used to update files and clear caches on source
  * changes during development
+ *
+ * When the runtime provides java.nio.file, changes are picked up through native notifications by
+ * {@link WatchServiceFileMonitor} and delivered in batches. Otherwise, or when the system property
+ * {@value #POLLING_PROPERTY} is true, the commons-vfs polling monitor is used.
  */
 public final class AuraFileMonitor {
 
     private static final Logger LOG = Logger.getLogger(AuraFileMonitor.class);
-    private static final Set<String> monitoredDirs = new HashSet<String>();
+    private static final Set<String> monitoredDirs = Collections
+            .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * System property forcing the commons-vfs polling monitor even when native notification is available.
+     */
+    public static final String POLLING_PROPERTY = "aura.fileMonitor.polling";
+
+    /**
+     * How long the native monitor waits for more events before delivering a batch.
+     */
+    private static final long QUIET_PERIOD_MILLIS = 200;
+
+    /**
+     * Upper bound on how long the native monitor holds events while files keep changing.
+     */
+    private static final long MAX_DELAY_MILLIS = 2000;
 
     private static FileSystemManager fileMonitorManager;
     private static DefaultFileMonitor fileMonitor;
-    private static boolean started = false;
+    private static WatchServiceFileMonitor nativeMonitor;
+    private static volatile boolean started = false;
 
     static {
         try {
-            fileMonitorManager = VFS.getManager();
-            fileMonitor = new DefaultFileMonitor(new FileSourceListener());
-        } catch (FileSystemException e) {
-            fileMonitorManager = null;
-            fileMonitor = null;
+            if (!Boolean.getBoolean(POLLING_PROPERTY) && WatchServiceFileMonitor.isAvailable()) {
+                nativeMonitor = new WatchServiceFileMonitor(new FileSourceListener(), QUIET_PERIOD_MILLIS,
+                        MAX_DELAY_MILLIS);
+            }
+        } catch (Throwable t) {
+            LOG.warn("Native file monitoring unavailable, falling back to polling", t);
+            nativeMonitor = null;
+        }
+        if (nativeMonitor == null) {
+            try {
+                fileMonitorManager = VFS.getManager();
+                fileMonitor = new DefaultFileMonitor(new FileSourceListener());
+            } catch (FileSystemException e) {
+                fileMonitorManager = null;
+                fileMonitor = null;
+            }
         }
     }
 
@@ -58,6 +92,18 @@ public final class AuraFileMonitor {
      * @param dirPath name of a root directory to monitor
      */
     public static synchronized void addDirectory(String dirPath) {
+        if (nativeMonitor != null) {
+            if (monitoredDirs.add(dirPath)) {
+                try {
+                    nativeMonitor.addDirectory(new File(dirPath));
+                    LOG.info("Monitoring directory " + dirPath);
+                } catch (Exception ex) {
+                    // eat error - monitoring simply won't happen for requested dir, but should never occur
+                    monitoredDirs.remove(dirPath);
+                }
+            }
+            return;
+        }
         if (fileMonitorManager == null || fileMonitor == null || monitoredDirs.contains(dirPath)) return;
         try {
             monitoredDirs.add(dirPath);
@@ -67,13 +113,28 @@ public final class AuraFileMonitor {
             LOG.info("Monitoring directory " + dirPath);
         } catch (Exception ex) {
             // eat error - monitoring simply won't happen for requested dir, but should never occur
+            monitoredDirs.remove(dirPath);
         }
     }
 
+    /**
+     * Is a root directory being monitored, so that changes below it are reported, a little after they happen.
+     *
+     * @param dirPath name of a root directory, as given to {@link #addDirectory(String)}
+     */
+    public static boolean isMonitored(String dirPath) {
+        return started && monitoredDirs.contains(dirPath);
+    }
+
     /**
      * Start monitor when aura services are ready
      */
     public static synchronized void start() {
+        if (nativeMonitor != null && !started) {
+            nativeMonitor.start();
+            started = true;
+            LOG.info("Aura file monitor started");
+        }
         if (fileMonitorManager != null && fileMonitor != null && !started) {
             fileMonitor.start();
             started = true;
@@ -85,6 +146,11 @@ public final class AuraFileMonitor {
      * Stop monitor
      */
     public static synchronized void stop() {
+        if (nativeMonitor != null && started) {
+            nativeMonitor.stop();
+            started = false;
+            LOG.info("Aura file monitor stopped");
+        }
         if (fileMonitorManager != null && fileMonitor != null && started) {
             fileMonitor.stop();
             started = false;
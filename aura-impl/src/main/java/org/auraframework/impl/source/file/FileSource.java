@@ -16,24 +16,22 @@
 package org.auraframework.impl.source.file;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileWriter;
+import java.io.FilterWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringWriter;
-import java.io.UnsupportedEncodingException;
+import java.io.StringReader;
 import java.io.Writer;
 
 import org.auraframework.Aura;
 import org.auraframework.def.DefDescriptor;
 import org.auraframework.def.Definition;
+import org.auraframework.impl.source.SourceContentsCache;
 import org.auraframework.system.Parser.Format;
 import org.auraframework.system.Source;
-import org.auraframework.throwable.AuraError;
 import org.auraframework.throwable.AuraRuntimeException;
-import org.auraframework.util.IOUtil;
+
+import com.google.common.base.Charsets;
 
 public class FileSource<D extends Definition> extends Source<D> {
 
@@ -61,15 +59,12 @@ public class FileSource<D extends Definition> extends Source<D> {
         return lastModified;
     }
 
+    /**
+     * Reads the contents from the shared {@link SourceContentsCache}, so the file is only read when it changed.
+     */
     @Override
     public Reader getReader() {
-        try {
-            return new InputStreamReader(new FileInputStream(file), "UTF8");
-        } catch (FileNotFoundException e) {
-            throw new AuraRuntimeException(e);
-        } catch (UnsupportedEncodingException uee) {
-            throw new AuraError(uee);
-        }
+        return new StringReader(getContents());
     }
 
     @Override
@@ -81,7 +76,17 @@ public class FileSource<D extends Definition> extends Source<D> {
             } else if (!file.canWrite()) {
                 Aura.getSourceControlAdapter().checkout(file);
             }
-            return new FileWriter(file);
+            SourceContentsCache.invalidate(file.getPath());
+            return new FilterWriter(new FileWriter(file)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        SourceContentsCache.invalidate(file.getPath());
+                    }
+                }
+            };
         } catch (Exception e) {
             throw new AuraRuntimeException(e);
         }
@@ -112,9 +117,7 @@ public class FileSource<D extends Definition> extends Source<D> {
     @Override
     public String getContents() {
         try {
-            StringWriter sw = new StringWriter();
-            IOUtil.copyStream(getHashingReader(), sw);
-            return sw.toString();
+            return SourceContentsCache.getContents(file, Charsets.UTF_8, this);
         } catch (IOException e) {
             throw new AuraRuntimeException(e);
         }
@@ -134,6 +137,8 @@ public class FileSource<D extends Definition> extends Source<D> {
             return Aura.getSourceControlAdapter().writeIfDifferent(new StringBuilder(newContents), file);
         } catch (IOException e) {
             throw new AuraRuntimeException(e);
+        } finally {
+            SourceContentsCache.invalidate(file.getPath());
         }
     }
 
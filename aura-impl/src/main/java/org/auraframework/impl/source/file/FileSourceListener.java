@@ -15,6 +15,7 @@
  */
 package org.auraframework.impl.source.file;
 
+import java.util.Collection;
 import java.util.EnumMap;
 import java.util.Map;
 
@@ -24,6 +25,7 @@ import org.apache.log4j.Logger;
 import org.auraframework.Aura;
 import org.auraframework.def.DefDescriptor;
 import org.auraframework.impl.system.DefDescriptorImpl;
+import org.auraframework.system.SourceChange;
 import org.auraframework.system.SourceListener;
 import org.auraframework.system.SourceListener.SourceMonitorEvent;
 
@@ -76,6 +78,20 @@ public class FileSourceListener implements FileListener {
         Aura.getDefinitionService().onSourceChanged(defDescriptor, smEvent, filePath);
     }
 
+    /**
+     * Deliver a coalesced batch of changes, so the registry caches are invalidated once for the whole batch.
+     */
+    public void onSourcesChanged(Collection<SourceChange> changes) {
+        Aura.getDefinitionService().onSourcesChanged(changes);
+    }
+
+    /**
+     * Build the change for a single file, resolving the descriptor it belongs to (null if unknown).
+     */
+    SourceChange getSourceChange(String filePath, SourceListener.SourceMonitorEvent smEvent) {
+        return new SourceChange(getDefDescriptor(filePath), smEvent, filePath);
+    }
+
     private void notifySourceChanges(FileChangeEvent event, SourceListener.SourceMonitorEvent smEvent) {
 
         String filePath = event.getFile().getName().getPath();
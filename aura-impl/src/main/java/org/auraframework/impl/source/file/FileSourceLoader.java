@@ -17,16 +17,20 @@ package org.auraframework.impl.source.file;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 
+import org.auraframework.Aura;
 import org.auraframework.def.*;
 import org.auraframework.def.DefDescriptor.DefType;
 import org.auraframework.impl.source.BaseSourceLoader;
 import org.auraframework.impl.system.DefDescriptorImpl;
 import org.auraframework.system.Parser.Format;
+import org.auraframework.system.SourceListener;
 import org.auraframework.throwable.AuraRuntimeException;
 import org.auraframework.util.IOUtil;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  */
@@ -36,7 +40,17 @@ public class FileSourceLoader extends BaseSourceLoader {
     protected final File base;
     // Tests create loaders like crazy, which takes time to scan for namespaces,
     // so this caches that mapping.
-    private static final Map<File, Set<String>> baseToNamepsaceCache = Maps.newHashMap();
+    private static final ConcurrentMap<File, Set<String>> baseToNamepsaceCache = Maps.newConcurrentMap();
+
+    /**
+     * In-memory index of the files under each namespace directory, so that finds don't walk the file system. Keyed
+     * by base, then by lower cased namespace. Entries are dropped when the file monitor reports files appearing or
+     * disappearing, and rebuilt on the next find. When the base is not being monitored, an entry is also rebuilt when
+     * the modification time of any directory in it has changed.
+     */
+    private static final ConcurrentMap<File, ConcurrentMap<String, NamespaceIndex>> baseToIndexCache = Maps
+            .newConcurrentMap();
+    private static final IndexInvalidator indexInvalidator = new IndexInvalidator();
     private static final FileFilter directoryFilter = new FileFilter() {
 
         @Override
@@ -55,6 +69,8 @@ public class FileSourceLoader extends BaseSourceLoader {
         filters.put(DefType.NAMESPACE, new SourceFileFilter(DefType.NAMESPACE));
         filters.put(DefType.THEME, new SourceFileFilter(DefType.THEME));
         filters.put(DefType.DOCUMENTATION, new SourceFileFilter(DefType.DOCUMENTATION));
+
+        Aura.getDefinitionService().subscribeToChangeNotification(indexInvalidator);
     }
 
     public FileSourceLoader(File base) {
@@ -130,12 +146,17 @@ public class FileSourceLoader extends BaseSourceLoader {
     @Override
     public Set<DefDescriptor<?>> find(DescriptorFilter matcher) {
         Set<DefDescriptor<?>> ret = new HashSet<DefDescriptor<?>>();
-        AnyTypeFilter af = new AnyTypeFilter(ret, matcher);
 
         for (String ns : getNamespaces()) {
             if (matcher.matchNamespace(ns)) {
-                af.setNamespace(ns);
-                findFiles(new File(base, ns), null, af);
+                for (Map.Entry<String, DefType> entry : getIndex(ns).primaryTypes.entrySet()) {
+                    DefType dt = entry.getValue();
+                    DefDescriptor<?> dd = DefDescriptorImpl.getInstance(getQName(dt, ns, entry.getKey()),
+                            dt.getPrimaryInterface());
+                    if (matcher.matchDescriptor(dd)) {
+                        ret.add(dd);
+                    }
+                }
             }
         }
         return ret;
@@ -143,18 +164,51 @@ public class FileSourceLoader extends BaseSourceLoader {
 
     @Override
     public <T extends Definition> Set<DefDescriptor<T>> find(Class<T> primaryInterface, String prefix, String namespace) {
-        Set<File> files = new HashSet<File>();
         DefType defType = DefType.getDefType(primaryInterface);
-        findFiles(new File(base, namespace), files, filters.get(defType));
+        Set<String> names;
+        if (filters.containsKey(defType)) {
+            names = getIndex(namespace).byType.get(defType);
+        } else {
+            // not indexed, fall back to a walk.
+            Set<File> files = new HashSet<File>();
+            findFiles(new File(base, namespace), files, filters.get(defType));
+            names = Sets.newHashSet();
+            for (File file : files) {
+                names.add(file.getName());
+            }
+        }
 
         Set<DefDescriptor<T>> ret = new HashSet<DefDescriptor<T>>();
-        for (File file : files) {
-            String name = getQName(defType, namespace, file.getName());
-            ret.add(DefDescriptorImpl.getInstance(name, primaryInterface));
+        if (names != null) {
+            for (String fileName : names) {
+                String name = getQName(defType, namespace, fileName);
+                ret.add(DefDescriptorImpl.getInstance(name, primaryInterface));
+            }
         }
         return ret;
     }
 
+    /**
+     * Get the index for a namespace under this base, building it if it is not known yet.
+     */
+    private NamespaceIndex getIndex(String namespace) {
+        ConcurrentMap<String, NamespaceIndex> indexes = baseToIndexCache.get(base);
+        if (indexes == null) {
+            ConcurrentMap<String, NamespaceIndex> created = Maps.newConcurrentMap();
+            indexes = baseToIndexCache.putIfAbsent(base, created);
+            if (indexes == null) {
+                indexes = created;
+            }
+        }
+        String key = namespace.toLowerCase();
+        NamespaceIndex index = indexes.get(key);
+        if (index == null || (!AuraFileMonitor.isMonitored(base.getAbsolutePath()) && !index.isCurrent())) {
+            index = new NamespaceIndex(new File(base, namespace));
+            indexes.put(key, index);
+        }
+        return index;
+    }
+
     /**
      * Find the set of files that match the filter.
      *
@@ -201,93 +255,150 @@ public class FileSourceLoader extends BaseSourceLoader {
         return file;
     }
 
-    private static class SourceFileFilter implements FileFilter {
+    /**
+     * The file names found below one namespace directory.
+     *
+     * Adding or removing a file changes the modification time of its directory, so without a file monitor the index
+     * checks the directories it was built from rather than the files. Modification times can be as coarse as a second, so an index built
+     * within a second of the latest change to its directories is not trusted.
+     */
+    private static final class NamespaceIndex {
+        private static final long MODIFIED_GRANULARITY_MILLIS = 1000;
 
-        private final DefType defType;
+        /**
+         * Every directory scanned, including the namespace directory, with its modification time at the time.
+         */
+        private final Map<File, Long> dirs = Maps.newHashMap();
+
+        private final boolean racy;
 
         /**
+         * File name to the first def type whose extension matches, which is what find(DescriptorFilter) reports.
          */
-        public SourceFileFilter(DefType defType) {
-            this.defType = defType;
+        private final Map<String, DefType> primaryTypes = Maps.newHashMap();
+
+        /**
+         * Def type to every file name matching its extension, which is what find(Class, String, String) reports.
+         */
+        private final EnumMap<DefType, Set<String>> byType = new EnumMap<DefType, Set<String>>(DefType.class);
+
+        private NamespaceIndex(File dir) {
+            long builtAt = System.currentTimeMillis();
+            if (!dir.exists()) {
+                dir = caseInsensitiveLookup(dir);
+            }
+            for (DefType dt : filters.keySet()) {
+                byType.put(dt, new HashSet<String>());
+            }
+            if (dir.isDirectory()) {
+                add(dir);
+            } else {
+                // picks up the directory being created
+                dirs.put(dir, dir.lastModified());
+            }
+            long lastModified = 0;
+            for (Long modified : dirs.values()) {
+                lastModified = Math.max(lastModified, modified);
+            }
+            this.racy = builtAt - lastModified < MODIFIED_GRANULARITY_MILLIS;
         }
 
         /**
-         * @see java.io.FileFilter#accept(java.io.File)
+         * @return false if a directory in the index may have changed since it was built.
          */
-        @Override
-        public boolean accept(File file) {
-            return file.isDirectory() || isValidNameForDefType(defType, file.getName());
+        private boolean isCurrent() {
+            if (racy) {
+                return false;
+            }
+            for (Map.Entry<File, Long> entry : dirs.entrySet()) {
+                if (entry.getKey().lastModified() != entry.getValue().longValue()) {
+                    return false;
+                }
+            }
+            return true;
         }
 
+        private void add(File dir) {
+            dirs.put(dir, dir.lastModified());
+            File[] children = dir.listFiles();
+            if (children == null) {
+                return;
+            }
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    add(child);
+                    continue;
+                }
+                String name = child.getName();
+                for (DefType dt : DefType.values()) {
+                    if (isValidNameForDefType(dt, name)) {
+                        if (!primaryTypes.containsKey(name)) {
+                            primaryTypes.put(name, dt);
+                        }
+                        Set<String> names = byType.get(dt);
+                        if (names != null) {
+                            names.add(name);
+                        }
+                    }
+                }
+            }
+        }
     }
 
     /**
-     * This is a twisted filter that actually does the work as it progresses.
-     *
-     * We need to do this because we don't know a-priory what the types are, and rather than redo all of that work, we
-     * can simply do what we need to here.
+     * Drops index entries when files under a base appear or disappear. Content changes don't affect the index.
      */
-    private static class AnyTypeFilter implements FileFilter {
-        private final DescriptorFilter dm;
-        private final Set<DefDescriptor<?>> dset;
-        private String namespace;
-
-        /**
-         * The constructor.
-         *
-         * @param dset the set of descriptors to be filled.
-         * @param dm the matcher to check the descriptors.
-         */
-        public AnyTypeFilter(Set<DefDescriptor<?>> dset, DescriptorFilter dm) {
-            this.dm = dm;
-            this.dset = dset;
-            this.namespace = null;
+    private static class IndexInvalidator implements SourceListener {
+        @Override
+        public void onSourceChanged(DefDescriptor<?> source, SourceMonitorEvent event, String filePath) {
+            if (filePath == null) {
+                if (source == null) {
+                    baseToIndexCache.clear();
+                    baseToNamepsaceCache.clear();
+                } else if (source.getNamespace() != null) {
+                    // e.g. a quick fix created a new definition
+                    String key = source.getNamespace().toLowerCase();
+                    for (ConcurrentMap<String, NamespaceIndex> indexes : baseToIndexCache.values()) {
+                        indexes.remove(key);
+                    }
+                    baseToNamepsaceCache.clear();
+                }
+                return;
+            }
+            if (event == SourceMonitorEvent.changed) {
+                return;
+            }
+            for (Map.Entry<File, ConcurrentMap<String, NamespaceIndex>> entry : baseToIndexCache.entrySet()) {
+                String basePath = entry.getKey().getAbsolutePath() + File.separator;
+                if (filePath.startsWith(basePath)) {
+                    String relative = filePath.substring(basePath.length());
+                    int slash = relative.indexOf(File.separatorChar);
+                    String namespace = slash < 0 ? relative : relative.substring(0, slash);
+                    entry.getValue().remove(namespace.toLowerCase());
+                    baseToNamepsaceCache.remove(entry.getKey());
+                }
+            }
         }
+    }
+
+    private static class SourceFileFilter implements FileFilter {
+
+        private final DefType defType;
 
         /**
-         * Sets the namespace for this instance.
-         *
-         * This must be called before this is used as a filter, otherwise it will fail with a null pointer exception.
-         *
-         * @param namespace The namespace.
          */
-        public void setNamespace(String namespace) {
-            this.namespace = namespace;
+        public SourceFileFilter(DefType defType) {
+            this.defType = defType;
         }
 
         /**
-         * Internal routine to get the deftype associated with a file.
-         *
-         * @return the def type, or null if there is none.
+         * @see java.io.FileFilter#accept(java.io.File)
          */
-        private DefType getDefType(String name) {
-            for (DefType dt : DefType.values()) {
-                if (isValidNameForDefType(dt, name)) {
-                    return dt;
-                }
-            }
-            return null;
-        }
-
         @Override
         public boolean accept(File file) {
-            if (file.isDirectory()) {
-                return true;
-            }
-            DefType dt = getDefType(file.getName());
-            if (dt == null) {
-                return false;
-            }
-            DefDescriptor<?> dd = DefDescriptorImpl.getInstance(getQName(dt, this.namespace, file.getName()),
-                    dt.getPrimaryInterface());
-            if (dm.matchDescriptor(dd)) {
-                this.dset.add(dd);
-            }
-            // We don't need to accept this, as we've already either included or
-            // excluded the
-            // descriptor above.
-            return false;
+            return file.isDirectory() || isValidNameForDefType(defType, file.getName());
         }
+
     }
 
     private static final class CaseInsensitiveFileFilter implements FilenameFilter {
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.source.file;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.auraframework.system.SourceListener.SourceMonitorEvent;
+
+/**
+ * Collapses a stream of per-file events into at most one event per file. Editors tend to produce several events for
+ * a single save (create of a temp file, change, rename), which would otherwise each trigger a cache invalidation.
+ *
+ * Not thread safe, callers synchronize.
+ */
+final class SourceChangeCoalescer {
+    private final Map<String, SourceMonitorEvent> pending = new LinkedHashMap<String, SourceMonitorEvent>();
+    private boolean overflowed = false;
+
+    /**
+     * Record an event for a file, merging it with whatever is already pending for that file.
+     */
+    void add(String filePath, SourceMonitorEvent event) {
+        SourceMonitorEvent previous = pending.get(filePath);
+        SourceMonitorEvent merged = merge(previous, event);
+        if (merged == null) {
+            pending.remove(filePath);
+        } else {
+            pending.put(filePath, merged);
+        }
+    }
+
+    /**
+     * Record that events were lost, so everything must be considered changed.
+     */
+    void overflow() {
+        overflowed = true;
+    }
+
+    boolean isOverflowed() {
+        return overflowed;
+    }
+
+    boolean isEmpty() {
+        return !overflowed && pending.isEmpty();
+    }
+
+    /**
+     * @return the pending events in the order files were first seen, and reset.
+     */
+    Map<String, SourceMonitorEvent> drain() {
+        Map<String, SourceMonitorEvent> result = new LinkedHashMap<String, SourceMonitorEvent>(pending);
+        pending.clear();
+        overflowed = false;
+        return result;
+    }
+
+    /**
+     * @return the net effect of previous followed by next, or null if they cancel out.
+     */
+    static SourceMonitorEvent merge(SourceMonitorEvent previous, SourceMonitorEvent next) {
+        if (previous == null) {
+            return next;
+        }
+        switch (previous) {
+        case created:
+            // a file that appeared and vanished within one batch never needs to be seen
+            return next == SourceMonitorEvent.deleted ? null : SourceMonitorEvent.created;
+        case deleted:
+            // deleted and recreated (the usual "safe write") is just a change
+            return next == SourceMonitorEvent.deleted ? SourceMonitorEvent.deleted : SourceMonitorEvent.changed;
+        default:
+            return next == SourceMonitorEvent.deleted ? SourceMonitorEvent.deleted : SourceMonitorEvent.changed;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.source.file;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.auraframework.system.SourceChange;
+import org.auraframework.system.SourceListener.SourceMonitorEvent;
+
+import com.google.common.collect.Lists;
+
+/**
+ * File monitor built on the platform's native change notification ({@link WatchService}) instead of polling.
+ *
+ * Every directory below a monitored root is registered, new directories are registered as they appear. Events are
+ * coalesced per file and handed to the {@link FileSourceListener} as a single batch once no new event has arrived for
+ * the quiet period, or once the oldest pending event is older than the maximum delay, whichever comes first.
+ *
+ * Only usable on a runtime providing java.nio.file, see {@link #isAvailable()}.
+ */
+final class WatchServiceFileMonitor {
+
+    private static final Logger LOG = Logger.getLogger(WatchServiceFileMonitor.class);
+
+    private final FileSourceListener listener;
+    private final long quietPeriodMillis;
+    private final long maxDelayMillis;
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<WatchKey, Path>();
+    private final SourceChangeCoalescer pending = new SourceChangeCoalescer();
+    private final WatchService watchService;
+    private volatile Thread thread;
+    private long firstPendingAt;
+
+    WatchServiceFileMonitor(FileSourceListener listener, long quietPeriodMillis, long maxDelayMillis)
+            throws IOException {
+        this.listener = listener;
+        this.quietPeriodMillis = quietPeriodMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * @return true if the running JVM provides java.nio.file.WatchService.
+     */
+    static boolean isAvailable() {
+        try {
+            Class.forName("java.nio.file.WatchService");
+            return true;
+        } catch (ClassNotFoundException cnfe) {
+            return false;
+        }
+    }
+
+    /**
+     * Register a root directory and every directory below it.
+     */
+    void addDirectory(File root) throws IOException {
+        register(root, false);
+    }
+
+    synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                processEvents();
+            }
+        }, "AuraFileMonitor");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized void stop() {
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    /**
+     * Register a directory tree. When the tree appeared after monitoring started, the files already in it are
+     * reported as created, since they may have been written before the registration took effect.
+     */
+    private void register(File dir, boolean reportFiles) throws IOException {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        Path path = dir.toPath();
+        WatchKey key = path.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        keys.put(key, path);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                register(child, reportFiles);
+            } else if (reportFiles) {
+                addPending(child.getPath(), SourceMonitorEvent.created);
+            }
+        }
+    }
+
+    private void processEvents() {
+        try {
+            while (thread == Thread.currentThread()) {
+                WatchKey key = watchService.poll(quietPeriodMillis, TimeUnit.MILLISECONDS);
+                try {
+                    if (key != null) {
+                        handleKey(key);
+                    }
+                    if (key == null || isOverdue()) {
+                        flush();
+                    }
+                } catch (RuntimeException re) {
+                    // keep monitoring, a bad event must not stop the thread
+                    LOG.error("Failed to process file events", re);
+                }
+            }
+        } catch (InterruptedException ie) {
+            // stopped
+        } catch (ClosedWatchServiceException cwse) {
+            // stopped
+        }
+    }
+
+    private void handleKey(WatchKey key) {
+        Path dir = keys.get(key);
+        if (dir != null) {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                WatchEvent.Kind<?> kind = event.kind();
+                if (kind == OVERFLOW) {
+                    synchronized (pending) {
+                        pending.overflow();
+                    }
+                    continue;
+                }
+                File file = dir.resolve((Path) event.context()).toFile();
+                if (kind == ENTRY_CREATE) {
+                    if (file.isDirectory()) {
+                        try {
+                            register(file, true);
+                        } catch (IOException ioe) {
+                            LOG.warn("Unable to monitor directory " + file, ioe);
+                        }
+                        continue;
+                    }
+                    addPending(file.getPath(), SourceMonitorEvent.created);
+                } else if (kind == ENTRY_DELETE) {
+                    addPending(file.getPath(), SourceMonitorEvent.deleted);
+                } else if (!file.isDirectory()) {
+                    addPending(file.getPath(), SourceMonitorEvent.changed);
+                }
+            }
+        }
+        if (!key.reset()) {
+            keys.remove(key);
+        }
+    }
+
+    private void addPending(String filePath, SourceMonitorEvent event) {
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                firstPendingAt = System.currentTimeMillis();
+            }
+            pending.add(filePath, event);
+        }
+    }
+
+    private boolean isOverdue() {
+        synchronized (pending) {
+            return !pending.isEmpty() && System.currentTimeMillis() - firstPendingAt >= maxDelayMillis;
+        }
+    }
+
+    /**
+     * Hand the pending batch to the listener. Errors are logged, a failing listener must not stop monitoring.
+     */
+    private void flush() {
+        List<SourceChange> changes;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            changes = Lists.newArrayList();
+            if (pending.isOverflowed()) {
+                // events were lost, so clear everything
+                pending.drain();
+                changes.add(new SourceChange(null, SourceMonitorEvent.changed, null));
+            } else {
+                for (Map.Entry<String, SourceMonitorEvent> entry : pending.drain().entrySet()) {
+                    try {
+                        changes.add(listener.getSourceChange(entry.getKey(), entry.getValue()));
+                    } catch (Throwable t) {
+                        // the change can't be narrowed down, so clear everything
+                        LOG.error("Failed to process change to " + entry.getKey(), t);
+                        changes.add(new SourceChange(null, SourceMonitorEvent.changed, null));
+                    }
+                }
+            }
+        }
+        LOG.info("Files changed: " + changes);
+        try {
+            listener.onSourcesChanged(changes);
+        } catch (Throwable t) {
+            LOG.error("Failed to process file changes", t);
+        }
+    }
+}
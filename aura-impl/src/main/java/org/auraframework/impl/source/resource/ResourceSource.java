@@ -16,21 +16,20 @@
 package org.auraframework.impl.source.resource;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringWriter;
+import java.io.StringReader;
 import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.concurrent.ExecutionException;
 
 import org.auraframework.Aura;
 import org.auraframework.def.DefDescriptor;
 import org.auraframework.def.Definition;
+import org.auraframework.impl.source.SourceContentsCache;
 import org.auraframework.system.Parser.Format;
 import org.auraframework.system.Source;
 import org.auraframework.throwable.AuraRuntimeException;
-import org.auraframework.util.IOUtil;
 import org.auraframework.util.resource.ResourceLoader;
 
 /**
@@ -97,12 +96,17 @@ public class ResourceSource<D extends Definition> extends Source<D> {
         return resourceLoader.getRawResourceUrl(getSystemId()) != null;
     }
 
+    /**
+     * Reads through the shared {@link SourceContentsCache}, in the platform encoding as resources always were.
+     */
     @Override
     public String getContents() {
+        URL url = resourceLoader.getRawResourceUrl(getSystemId());
+        if (url == null) {
+            throw new AuraRuntimeException("Resource not found: " + getSystemId());
+        }
         try {
-            StringWriter sw = new StringWriter();
-            IOUtil.copyStream(getHashingReader(), sw);
-            return sw.toString();
+            return SourceContentsCache.getContents(url, Charset.defaultCharset(), this);
         } catch (IOException e) {
             throw new AuraRuntimeException(e);
         }
@@ -115,11 +119,7 @@ public class ResourceSource<D extends Definition> extends Source<D> {
 
     @Override
     public Reader getReader() {
-        InputStream is = resourceLoader.getResourceAsStream(getSystemId());
-        if (is == null) {
-            throw new AuraRuntimeException("Resource not found: " + getSystemId());
-        }
-        return new InputStreamReader(is);
+        return new StringReader(getContents());
     }
 
     @Override
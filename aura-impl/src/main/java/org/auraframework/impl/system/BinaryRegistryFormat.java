@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.system;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.DefDescriptor.DefType;
+import org.auraframework.def.Definition;
+import org.auraframework.system.DefRegistry;
+import org.auraframework.throwable.AuraRuntimeException;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Reads and writes precompiled registries in a binary layout that can be consumed without deserializing every
+ * definition up front.
+ *
+ * <pre>
+ * int      magic ("AURR")
+ * int      version
+ * int      registry count
+ * per registry:
+ *   strings  def types, prefixes, namespaces (each: int count, then modified UTF-8 strings)
+ *   int      entry count
+ *   per entry: UTF qualified name, UTF def type, int offset, int length
+ * bytes    data section: each definition java-serialized on its own, at offset from the start of the section
+ * </pre>
+ *
+ * The index is everything before the data section, so a reader only has to walk it once to know every descriptor;
+ * the definitions themselves are deserialized by {@link LazyStaticDefRegistryImpl} on first access.
+ */
+public final class BinaryRegistryFormat {
+
+    public static final int MAGIC = 0x41555252;
+    public static final int VERSION = 1;
+
+    private BinaryRegistryFormat() {
+    }
+
+    /**
+     * @return true if the buffer starts with the binary registry header. The buffer position is not changed.
+     */
+    public static boolean isBinaryRegistry(ByteBuffer buffer) {
+        return buffer.remaining() >= 4 && buffer.getInt(buffer.position()) == MAGIC;
+    }
+
+    /**
+     * Write the registries. Only {@link StaticDefRegistryImpl}s hold their definitions, so only those can be written.
+     */
+    public static void write(DefRegistry<?>[] registries, OutputStream out) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream indexOut = new DataOutputStream(index);
+
+        indexOut.writeInt(MAGIC);
+        indexOut.writeInt(VERSION);
+        indexOut.writeInt(registries.length);
+        for (DefRegistry<?> registry : registries) {
+            if (!(registry instanceof StaticDefRegistryImpl)) {
+                throw new AuraRuntimeException("Unable to write registry of type " + registry.getClass().getName());
+            }
+            Map<? extends DefDescriptor<?>, ? extends Definition> defs = ((StaticDefRegistryImpl<?>) registry).defs;
+
+            List<String> types = Lists.newArrayList();
+            for (DefType type : registry.getDefTypes()) {
+                types.add(type.name());
+            }
+            writeStrings(indexOut, types);
+            writeStrings(indexOut, registry.getPrefixes());
+            writeStrings(indexOut, registry.getNamespaces());
+
+            indexOut.writeInt(defs.size());
+            for (Map.Entry<? extends DefDescriptor<?>, ? extends Definition> entry : defs.entrySet()) {
+                int offset = data.size();
+                ObjectOutputStream objectOut = new ObjectOutputStream(data);
+                objectOut.writeObject(entry.getValue());
+                objectOut.close();
+
+                indexOut.writeUTF(entry.getKey().getQualifiedName());
+                indexOut.writeUTF(entry.getKey().getDefType().name());
+                indexOut.writeInt(offset);
+                indexOut.writeInt(data.size() - offset);
+            }
+        }
+        indexOut.flush();
+        index.writeTo(out);
+        data.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Read the index of a binary registry. The returned registries share the buffer and deserialize each definition
+     * on first access.
+     */
+    public static DefRegistry<?>[] read(ByteBuffer buffer) {
+        ByteBuffer in = buffer.duplicate();
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new AuraRuntimeException("Not a binary registry");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new AuraRuntimeException("Unsupported binary registry version " + version);
+            }
+            int count = in.getInt();
+            List<IndexedRegistry> indexed = Lists.newArrayListWithCapacity(count);
+            for (int i = 0; i < count; i++) {
+                indexed.add(readRegistryIndex(in));
+            }
+
+            // the data section starts where the index ends.
+            ByteBuffer data = in.slice();
+            DefRegistry<?>[] registries = new DefRegistry<?>[count];
+            for (int i = 0; i < count; i++) {
+                registries[i] = indexed.get(i).toRegistry(data);
+            }
+            return registries;
+        } catch (BufferUnderflowException bue) {
+            throw new AuraRuntimeException("Truncated binary registry", bue);
+        }
+    }
+
+    private static IndexedRegistry readRegistryIndex(ByteBuffer in) {
+        IndexedRegistry registry = new IndexedRegistry();
+        for (String type : readStrings(in)) {
+            registry.defTypes.add(DefType.valueOf(type));
+        }
+        registry.prefixes.addAll(readStrings(in));
+        registry.namespaces.addAll(readStrings(in));
+
+        int entries = in.getInt();
+        for (int i = 0; i < entries; i++) {
+            String qualifiedName = readUTF(in);
+            DefType type = DefType.valueOf(readUTF(in));
+            int offset = in.getInt();
+            int length = in.getInt();
+            DefDescriptor<?> desc = DefDescriptorImpl.getInstance(qualifiedName, type.getPrimaryInterface());
+            registry.entries.put(desc, new long[] { offset, length });
+        }
+        return registry;
+    }
+
+    private static void writeStrings(DataOutputStream out, Iterable<String> strings) throws IOException {
+        List<String> list = Lists.newArrayList(strings);
+        out.writeInt(list.size());
+        for (String s : list) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer in) {
+        int count = in.getInt();
+        List<String> ret = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++) {
+            ret.add(readUTF(in));
+        }
+        return ret;
+    }
+
+    /**
+     * Read a string written by {@link DataOutputStream#writeUTF(String)}.
+     */
+    private static String readUTF(ByteBuffer in) {
+        int length = in.getShort() & 0xffff;
+        char[] chars = new char[length];
+        int end = in.position() + length;
+        int count = 0;
+        while (in.position() < end) {
+            int c = in.get() & 0xff;
+            if (c < 0x80) {
+                chars[count++] = (char) c;
+            } else if ((c & 0xe0) == 0xc0) {
+                chars[count++] = (char) (((c & 0x1f) << 6) | (in.get() & 0x3f));
+            } else {
+                chars[count++] = (char) (((c & 0x0f) << 12) | ((in.get() & 0x3f) << 6) | (in.get() & 0x3f));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private static class IndexedRegistry {
+        private final Set<DefType> defTypes = EnumSet.noneOf(DefType.class);
+        private final Set<String> prefixes = Sets.newHashSet();
+        private final Set<String> namespaces = Sets.newHashSet();
+        private final Map<DefDescriptor<?>, long[]> entries = Maps.newHashMap();
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private DefRegistry<?> toRegistry(ByteBuffer data) {
+            return new LazyStaticDefRegistryImpl(defTypes, prefixes, namespaces, entries, data);
+        }
+    }
+}
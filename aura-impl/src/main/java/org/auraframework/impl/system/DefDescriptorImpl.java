@@ -221,12 +221,13 @@ public class DefDescriptorImpl<T extends Definition> implements DefDescriptor<T>
             }
             this.qualifiedName = qualifiedName;
             this.descriptorName = buildDescriptorName(prefix, namespace, name);
-            this.prefix = prefix;
+            // prefixes and namespaces are shared by many descriptors, keep one copy of each
+            this.prefix = AuraTextUtil.intern(prefix);
             if (defType == DefType.NAMESPACE) {
-                this.namespace = name;
-                this.name = name;
+                this.namespace = AuraTextUtil.intern(name);
+                this.name = this.namespace;
             } else {
-                this.namespace = namespace;
+                this.namespace = AuraTextUtil.intern(namespace);
                 this.name = name;
             }
             this.hashCode = createHashCode();
@@ -374,7 +375,33 @@ public class DefDescriptorImpl<T extends Definition> implements DefDescriptor<T>
         if (desc == null) {
             throw new AuraRuntimeException("descriptor is null");
         }
-        return new DefDescriptorImpl<E>(desc, defClass, newPrefix);
+        return share(new DefDescriptorImpl<E>(desc, defClass, newPrefix), defClass);
+    }
+
+    /**
+     * Get the cached instance equal to a descriptor that was not made from its qualified name, caching the descriptor
+     * if there is none. Descriptors with name parameters are only looked up, as parsing the qualified name treats
+     * those differently by type.
+     */
+    private static <E extends Definition> DefDescriptor<E> share(DefDescriptor<E> descriptor,
+            Class<? extends Definition> defClass) {
+        DescriptorKey dk = new DescriptorKey(descriptor.getQualifiedName(), defClass);
+        @SuppressWarnings("unchecked")
+        DefDescriptor<E> cached = (DefDescriptor<E>) cache.getIfPresent(dk);
+        if (cached != null) {
+            return cached.equals(descriptor) ? cached : descriptor;
+        }
+        if (descriptor.getNameParameters() == null) {
+            cache.put(dk, descriptor);
+        }
+        return descriptor;
+    }
+
+    /**
+     * Deserialized descriptors, as from a precompiled registry, are shared like the others.
+     */
+    private Object readResolve() {
+        return share(this, defType.getPrimaryInterface());
     }
 
     /**
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.system;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.log4j.Logger;
+import org.auraframework.Aura;
+import org.auraframework.adapter.ContextAdapter;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.DefDescriptor.DefType;
+import org.auraframework.def.Definition;
+import org.auraframework.impl.AuraImpl;
+import org.auraframework.impl.util.json.AuraJsonContext;
+import org.auraframework.system.AuraContext;
+import org.auraframework.system.DefRegistry;
+import org.auraframework.throwable.AuraRuntimeException;
+import org.auraframework.throwable.quickfix.QuickFixException;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Fetches definitions from their registries on a shared pool while the compiling thread is busy elsewhere.
+ *
+ * The compiler walks the dependency tree one level at a time. Before it handles a level, it hands every descriptor
+ * of that level that still needs a registry fetch (read and parse) to {@link #submit}, and later picks the result up
+ * with {@link #get} in its usual order. Only the fetch moves off the compiling thread, validation and linking stay
+ * where they were, so the compile order and its guarantees do not change.
+ *
+ * Each fetch runs in its own context, a copy of the compiling one with its own master registry over the same
+ * delegate registries, as parsing may set the namespace or look up other descriptors.
+ *
+ * The pool has {@link org.auraframework.adapter.ConfigAdapter#getCompileThreads()} threads, with fewer than two
+ * there is no prefetching at all.
+ */
+class DefPrefetcher {
+    private static final Logger logger = Logger.getLogger(DefPrefetcher.class);
+
+    /**
+     * How long to wait on a fetch before checking whether it might be stuck.
+     */
+    private static final long WAIT_MILLIS = 50;
+
+    private static ExecutorService sharedExecutor;
+    private static boolean initialized;
+
+    private final AuraContext parent;
+    private final DefRegistry<?>[] registries;
+    private final ReentrantReadWriteLock lock;
+    private final ExecutorService executor;
+    private final Map<DefDescriptor<?>, Future<? extends Definition>> pending = Maps.newHashMap();
+
+    DefPrefetcher(AuraContext parent, DefRegistry<?>[] registries, ReentrantReadWriteLock lock,
+            ExecutorService executor) {
+        this.parent = parent;
+        this.registries = registries;
+        this.lock = lock;
+        this.executor = executor;
+    }
+
+    /**
+     * Get a prefetcher for a compile in the given context.
+     *
+     * @param context the compiling context.
+     * @param registries the delegate registries of the compiling master registry.
+     * @param lock the registry lock that the compiling thread holds for reading.
+     * @return the prefetcher, or null if prefetching is off.
+     */
+    static DefPrefetcher create(AuraContext context, DefRegistry<?>[] registries, ReentrantReadWriteLock lock) {
+        ExecutorService executor = getSharedExecutor();
+        if (executor == null) {
+            return null;
+        }
+        return new DefPrefetcher(context, registries, lock, executor);
+    }
+
+    private static synchronized ExecutorService getSharedExecutor() {
+        if (!initialized) {
+            initialized = true;
+            int threads = Aura.getConfigAdapter().getCompileThreads();
+            if (threads > 1) {
+                sharedExecutor = Executors.newFixedThreadPool(threads, new CompileThreadFactory());
+            }
+        }
+        return sharedExecutor;
+    }
+
+    /**
+     * Start fetching a definition, unless it is already being fetched.
+     */
+    <D extends Definition> void submit(final DefDescriptor<D> descriptor, final DefRegistry<D> registry) {
+        if (pending.containsKey(descriptor)) {
+            return;
+        }
+        pending.put(descriptor, executor.submit(new Callable<D>() {
+            @Override
+            public D call() throws Exception {
+                ContextAdapter contextAdapter = AuraImpl.getContextAdapter();
+                AuraContext context = contextAdapter.establish(parent.getMode(),
+                        new MasterDefRegistryImpl(registries), getDefaultPrefixes(), parent.getFormat(),
+                        parent.getAccess(), AuraJsonContext.createContext(parent.getMode(), true),
+                        parent.getGlobalProviders(), parent.getApplicationDescriptor());
+                try {
+                    context.setClient(parent.getClient());
+                    return registry.getDef(descriptor);
+                } finally {
+                    contextAdapter.release();
+                }
+            }
+        }));
+    }
+
+    /**
+     * Is there a fetch for this descriptor that has not been picked up?
+     */
+    boolean isPending(DefDescriptor<?> descriptor) {
+        return pending.containsKey(descriptor);
+    }
+
+    /**
+     * Pick up a fetched definition, waiting for it if needed.
+     *
+     * If the fetch cannot finish because a writer is queued on the registry lock, which the compiling thread holds, it
+     * is abandoned and done here instead.
+     *
+     * @param descriptor a descriptor for which {@link #isPending} is true.
+     * @param registry the registry it was submitted with.
+     * @return whatever the registry returned.
+     * @throws QuickFixException if the registry threw one.
+     */
+    <D extends Definition> D get(DefDescriptor<D> descriptor, DefRegistry<D> registry) throws QuickFixException {
+        @SuppressWarnings("unchecked")
+        Future<D> future = (Future<D>) pending.remove(descriptor);
+        try {
+            while (true) {
+                try {
+                    return future.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException te) {
+                    if (lock.hasQueuedThreads()) {
+                        break;
+                    }
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (CancellationException ce) {
+            // fall through and fetch it here.
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof QuickFixException) {
+                throw (QuickFixException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AuraRuntimeException(cause);
+        }
+        logger.debug("Fetching " + descriptor + " on the compiling thread");
+        future.cancel(true);
+        return registry.getDef(descriptor);
+    }
+
+    /**
+     * Drop all fetches that were not picked up, as on a failed compile.
+     */
+    void cancel() {
+        for (Future<?> future : pending.values()) {
+            future.cancel(true);
+        }
+        pending.clear();
+    }
+
+    private Map<DefType, String> getDefaultPrefixes() {
+        Map<DefType, String> prefixes = new EnumMap<DefType, String>(DefType.class);
+        for (DefType defType : DefType.values()) {
+            String prefix = parent.getDefaultPrefix(defType);
+            if (prefix != null) {
+                prefixes.put(defType, prefix);
+            }
+        }
+        return prefixes;
+    }
+
+    private static class CompileThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "AuraCompile-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.system;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+import org.auraframework.def.DefDescriptor.DefType;
+import org.auraframework.def.Definition;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * The number and rough size of the cached definitions of one type, see
+ * {@link MasterDefRegistryImpl#getDefinitionFootprint()}.
+ *
+ * The size is that of the serialized definitions. It is not the heap they take, but follows it closely enough to
+ * compare types and to see whether a change helped. Objects shared between definitions, like descriptors, are counted
+ * with each definition that holds them.
+ */
+public final class DefinitionFootprint {
+    private final DefType defType;
+    private int count;
+    private int unmeasured;
+    private long bytes;
+
+    DefinitionFootprint(DefType defType) {
+        this.defType = defType;
+    }
+
+    void add(Definition def) {
+        count++;
+        CountingOutputStream counter = new CountingOutputStream(ByteStreams.nullOutputStream());
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(counter);
+            out.writeObject(def);
+            out.close();
+            bytes += counter.getCount();
+        } catch (IOException e) {
+            // not serializable, it is counted but not measured.
+            unmeasured++;
+        }
+    }
+
+    public DefType getDefType() {
+        return defType;
+    }
+
+    /**
+     * @return the number of definitions.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of definitions that could not be measured.
+     */
+    public int getUnmeasured() {
+        return unmeasured;
+    }
+
+    /**
+     * @return the serialized size of the definitions that could be measured.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d definitions, %d bytes serialized, %d not measured", defType, count, bytes,
+                unmeasured);
+    }
+}
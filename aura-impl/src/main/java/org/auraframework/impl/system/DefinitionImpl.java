@@ -32,6 +32,7 @@ import org.auraframework.util.json.Json.Serialization;
 import org.auraframework.util.json.Json.Serialization.ReferenceType;
 import org.auraframework.util.text.Hash;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 
 /**
@@ -66,7 +67,7 @@ public abstract class DefinitionImpl<T extends Definition> implements Definition
             String description, Visibility visibility, String ownHash, Hash sourceHash, QuickFixException parseError) {
         this.descriptor = descriptor;
         this.location = location;
-        this.subDefs = subDefs;
+        this.subDefs = subDefs == null ? null : ImmutableMap.copyOf(subDefs);
         this.description = description;
         this.visibility = visibility;
         this.ownHash = ownHash;
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.system;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.DefDescriptor.DefType;
+import org.auraframework.def.Definition;
+import org.auraframework.def.DescriptorFilter;
+import org.auraframework.system.Source;
+import org.auraframework.throwable.AuraRuntimeException;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Immutable DefRegistry implementation backed by a {@link BinaryRegistryFormat} buffer. The descriptors are known up
+ * front, each definition is deserialized the first time it is asked for.
+ */
+public class LazyStaticDefRegistryImpl<T extends Definition> extends DefRegistryImpl<T> {
+
+    private static final long serialVersionUID = 6206727924427186123L;
+    private static final String WILD = "*";
+
+    /**
+     * Descriptor to {offset, length} in the data buffer.
+     */
+    private final Map<DefDescriptor<T>, long[]> index;
+    private final ConcurrentMap<DefDescriptor<T>, T> loaded;
+    private final transient ByteBuffer data;
+
+    public LazyStaticDefRegistryImpl(Set<DefType> defTypes, Set<String> prefixes, Set<String> namespaces,
+            Map<DefDescriptor<T>, long[]> index, ByteBuffer data) {
+        super(defTypes, prefixes, namespaces);
+        this.index = index;
+        this.data = data;
+        this.loaded = Maps.newConcurrentMap();
+    }
+
+    @Override
+    public T getDef(DefDescriptor<T> descriptor) {
+        T def = loaded.get(descriptor);
+        if (def == null) {
+            long[] entry = index.get(descriptor);
+            if (entry == null) {
+                return null;
+            }
+            def = deserialize(descriptor, (int) entry[0], (int) entry[1]);
+            T existing = loaded.putIfAbsent(descriptor, def);
+            if (existing != null) {
+                def = existing;
+            }
+        }
+        return def;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T deserialize(DefDescriptor<T> descriptor, int offset, int length) {
+        ByteBuffer slice = data.duplicate();
+        slice.position(offset);
+        slice.limit(offset + length);
+        ObjectInputStream ois = null;
+        try {
+            ois = new ObjectInputStream(new ByteBufferInputStream(slice));
+            return (T) ois.readObject();
+        } catch (Exception e) {
+            throw new AuraRuntimeException("Unable to read precompiled " + descriptor, e);
+        } finally {
+            if (ois != null) {
+                try {
+                    ois.close();
+                } catch (IOException e) {
+                    // nothing to release.
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean hasFind() {
+        return true;
+    }
+
+    @Override
+    public Set<DefDescriptor<T>> find(DefDescriptor<T> matcher) {
+        String namespace = matcher.getNamespace();
+        String prefix = matcher.getPrefix();
+        DefType defType = matcher.getDefType();
+        Set<DefDescriptor<T>> ret = new HashSet<DefDescriptor<T>>();
+        for (DefDescriptor<T> key : index.keySet()) {
+
+            if (defType == key.getDefType() && key.getPrefix().equalsIgnoreCase(prefix)
+                    && (namespace.equalsIgnoreCase(WILD) || namespace.equalsIgnoreCase(key.getNamespace()))) {
+
+                ret.add(key);
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public Set<DefDescriptor<?>> find(DescriptorFilter matcher) {
+        Set<DefDescriptor<?>> ret = new HashSet<DefDescriptor<?>>();
+
+        for (DefDescriptor<T> key : index.keySet()) {
+            if (matcher.matchDescriptor(key)) {
+                ret.add(key);
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public void save(T def) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean exists(DefDescriptor<T> descriptor) {
+        return index.containsKey(descriptor);
+    }
+
+    @Override
+    public Source<T> getSource(DefDescriptor<T> descriptor) {
+        return null;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * Reads a buffer without copying it.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -18,9 +18,11 @@ package org.auraframework.impl.system;
 import java.lang.ref.WeakReference;
 
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.EnumMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +37,10 @@ import org.auraframework.Aura;
 import org.auraframework.def.*;
 import org.auraframework.def.DefDescriptor.DefType;
 import org.auraframework.impl.root.DependencyDefImpl;
+import org.auraframework.impl.css.parser.ThemeValueProviderImpl;
+import org.auraframework.impl.root.AttributeIndex;
+import org.auraframework.impl.root.component.DefFragmentCache;
+import org.auraframework.impl.source.SourceContentsCache;
 import org.auraframework.service.DefinitionService;
 import org.auraframework.service.LoggingService;
 import org.auraframework.system.*;
@@ -124,6 +130,25 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
         }
     }
 
+    /**
+     * What validating a set of loaded descriptors came to, see
+     * {@link org.auraframework.impl.DefinitionServiceImpl#updateLoaded(DefDescriptor)}.
+     * 
+     * all values are final, and unmodifiable.
+     */
+    public static class LoadedEntry {
+        public final Set<DefDescriptor<?>> preloaded;
+        public final Set<DefDescriptor<?>> dropped;
+        private final Map<DefDescriptor<?>, DependencyEntry> validated;
+
+        private LoadedEntry(Set<DefDescriptor<?>> preloaded, Set<DefDescriptor<?>> dropped,
+                Map<DefDescriptor<?>, DependencyEntry> validated) {
+            this.preloaded = Collections.unmodifiableSet(preloaded);
+            this.dropped = Collections.unmodifiableSet(dropped);
+            this.validated = Collections.unmodifiableMap(validated);
+        }
+    }
+
     private final static Cache<DefDescriptor<?>, Boolean> existsCache = CacheBuilder.newBuilder()
             .initialCapacity(DEFINITION_CACHE_SIZE).maximumSize(DEFINITION_CACHE_SIZE).recordStats().softValues()
             .build();
@@ -142,6 +167,15 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
     private final static Cache<String, Set<DefDescriptor<?>>> descriptorFilterCache = CacheBuilder.newBuilder()
             .initialCapacity(DEPENDENCY_CACHE_SIZE).maximumSize(DEPENDENCY_CACHE_SIZE).recordStats().softValues().build();
 
+    /**
+     * Validated loaded sets. Like the dependencies they are built from, they only go stale on a source change.
+     * 
+     * Keyed by the set, the mode, the access and the registries it was validated against, see
+     * {@link #makeLoadedKey(LoadedSet)}.
+     */
+    private final static Cache<List<Object>, LoadedEntry> loadedCache = CacheBuilder.newBuilder()
+            .initialCapacity(DEPENDENCY_CACHE_SIZE).maximumSize(DEPENDENCY_CACHE_SIZE).recordStats().softValues().build();
+
     /**
      * A local dependencies cache.
      * 
@@ -160,6 +194,11 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
 
     private final RegistryTrie delegateRegistries;
 
+    /**
+     * The registries we delegate to, as they are named in global cache keys.
+     */
+    private final String registriesKey;
+
     private final Map<DefDescriptor<? extends Definition>, Definition> defs = Maps.newHashMap();
 
     private final boolean useCache = true;
@@ -175,12 +214,46 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
 
     public MasterDefRegistryImpl(DefRegistry<?>... registries) {
         delegateRegistries = new RegistryTrie(registries);
+
+        StringBuilder sb = new StringBuilder();
+        for (DefRegistry<?> reg : registries) {
+            sb.append(reg.toString());
+            sb.append(",");
+        }
+        registriesKey = sb.toString();
     }
 
     private boolean isCacheable(DefRegistry<?> reg) {
         return useCache && reg.isCacheable();
     }
 
+    /**
+     * @return true if definitions were added locally, see {@link #addLocalDef(Definition)}.
+     */
+    public boolean hasLocalDefs() {
+        return localDescs != null && !localDescs.isEmpty();
+    }
+
+    /**
+     * Can what is built from a definition be shared with other requests.
+     * 
+     * Static registries are not cacheable, as they already hold all of their definitions, but what they hold never
+     * changes, so it can be shared.
+     * 
+     * @param descriptor the descriptor of the definition.
+     * @return false if the definition was added locally, or its registry is missing or not cacheable.
+     */
+    public boolean isCacheable(DefDescriptor<?> descriptor) {
+        if (localDescs != null && localDescs.contains(descriptor)) {
+            return false;
+        }
+        DefRegistry<?> reg = getRegistryFor(descriptor);
+        if (reg == null) {
+            return false;
+        }
+        return isCacheable(reg) || reg instanceof StaticDefRegistryImpl || reg instanceof LazyStaticDefRegistryImpl;
+    }
+
     @Override
     public Set<DefDescriptor<?>> find(DescriptorFilter matcher) {
         final String filterKey = matcher.toString();
@@ -459,18 +532,26 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
         private Deque<CCStackEntry> stack = new ArrayDeque<CCStackEntry>(); 
         public int level;
 
+        /**
+         * Fetches the defs of the next level in parallel, null if that is turned off.
+         */
+        public final DefPrefetcher prefetcher;
+
         // TODO: remove preloads
         public boolean addedPreloads = false;
 
-        public CompileContext(DefDescriptor<? extends Definition> topLevel, List<ClientLibraryDef> clientLibs) {
+        public CompileContext(DefDescriptor<? extends Definition> topLevel, List<ClientLibraryDef> clientLibs,
+                DefRegistry<?>[] registries) {
             this.clientLibs = clientLibs;
             this.topLevel = topLevel;
             this.level = 0;
+            this.prefetcher = DefPrefetcher.create(context, registries, rwLock);
         }
 
-        public CompileContext(DefDescriptor<? extends Definition> topLevel) {
+        public CompileContext(DefDescriptor<? extends Definition> topLevel, DefRegistry<?>[] registries) {
             this.clientLibs = null;
             this.topLevel = topLevel;
+            this.prefetcher = DefPrefetcher.create(context, registries, rwLock);
         }
 
         public void pushDescriptor(DefDescriptor<?> newTop) {
@@ -512,9 +593,10 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
      * that fails, it retrieves from the registry, and marks the def as locally built.
      * 
      * @param compiling the current compiling def (if there is one).
+     * @param cc the compile context, for the namespace and any prefetched def.
      * @throws QuickFixException if validateDefinition caused a quickfix.
      */
-    private <D extends Definition> boolean fillCompilingDef(CompilingDef<D> compiling, AuraContext context)
+    private <D extends Definition> boolean fillCompilingDef(CompilingDef<D> compiling, CompileContext cc)
             throws QuickFixException {
         assert compiling.def == null;
         {
@@ -575,7 +657,11 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
         // In this case, we make sure that the initial validation is called, and put
         // the def in the 'built' set.
         //
-        compiling.def = registry.getDef(compiling.descriptor);
+        if (cc.prefetcher != null && cc.prefetcher.isPending(compiling.descriptor)) {
+            compiling.def = cc.prefetcher.get(compiling.descriptor, registry);
+        } else {
+            compiling.def = registry.getDef(compiling.descriptor);
+        }
         if (compiling.def == null) {
             return false;
         }
@@ -584,7 +670,7 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
         compiling.descriptor = canonical;
 
         //cc.loggingService.incrementNum(LoggingService.DEF_COUNT);
-        context.setCurrentNamespace(canonical.getNamespace());
+        cc.context.setCurrentNamespace(canonical.getNamespace());
         compiling.def.validateDefinition();
         compiling.built = true;
         return true;
@@ -639,7 +725,7 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
         // We need to walk the whole tree, which is unfortunate perf-wise.
         //
         if (cd.def == null) {
-            if (!fillCompilingDef(cd, cc.context)) {
+            if (!fillCompilingDef(cd, cc)) {
                 // No def. Blow up.
                 throw getDNF(cd);
             }
@@ -698,6 +784,32 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
         return cd.def;
     }
 
+    /**
+     * Start fetching the defs of a level that will have to come from their registries.
+     * 
+     * This only looks at the caches, anything found there is left to getHelper as before.
+     * 
+     * @param descriptors the descriptors of the level about to be compiled.
+     * @param cc the compile context, which must have a prefetcher.
+     */
+    private void prefetch(Collection<? extends DefDescriptor<?>> descriptors, CompileContext cc) {
+        for (DefDescriptor<?> descriptor : descriptors) {
+            prefetch(descriptor, cc);
+        }
+    }
+
+    private <D extends Definition> void prefetch(DefDescriptor<D> descriptor, CompileContext cc) {
+        CompilingDef<?> cd = cc.compiled.get(descriptor);
+        if ((cd != null && cd.def != null) || defs.containsKey(descriptor)) {
+            return;
+        }
+        DefRegistry<D> registry = getRegistryFor(descriptor);
+        if (registry == null || (isCacheable(registry) && defsCache.getIfPresent(descriptor) != null)) {
+            return;
+        }
+        cc.prefetcher.submit(descriptor, registry);
+    }
+
     /**
      * finish up the validation of a set of compiling defs.
      * 
@@ -821,6 +933,9 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
                         throw new AuraRuntimeException("too many levels, you have a cycle");
                     }
                     currentCC.level = level;
+                    if (currentCC.prefetcher != null && current.size() > 1) {
+                        prefetch(current, currentCC);
+                    }
                     for (DefDescriptor<?> cdesc : current) {
                         getHelper(cdesc, currentCC);
                     }
@@ -832,6 +947,9 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
             } finally {
                 if (!nested) {
                     currentCC.loggingService.stopTimer(LoggingService.TIMER_DEFINITION_CREATION);
+                    if (currentCC.prefetcher != null) {
+                        currentCC.prefetcher.cancel();
+                    }
                 }
                 currentCC.popDescriptor();
             }
@@ -895,7 +1013,7 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
 
         try {
             List<ClientLibraryDef> clientLibs = Lists.newArrayList();
-            CompileContext cc = new CompileContext(descriptor, clientLibs);
+            CompileContext cc = new CompileContext(descriptor, clientLibs, getAllRegistries());
             Definition def = compileDef(descriptor, cc);
             DependencyEntry de;
             String uid;
@@ -1076,19 +1194,25 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
             throw new AuraRuntimeException("Ugh, nested compileDE/buildDE on "+currentCC.topLevel
                     +" trying to build "+descriptor);
         }
-        currentCC = new CompileContext(descriptor);
+        currentCC = new CompileContext(descriptor, getAllRegistries());
         try {
             validateHelper(descriptor);
             for (DefDescriptor<?> dd : de.dependencies) {
                 validateHelper(dd);
             }
+            if (currentCC.prefetcher != null) {
+                prefetch(currentCC.compiled.keySet(), currentCC);
+            }
             for (CompilingDef<?> compiling : currentCC.compiled.values()) {
-                if (!fillCompilingDef(compiling, currentCC.context)) {
+                if (!fillCompilingDef(compiling, currentCC)) {
                     throw new DefinitionNotFoundException(descriptor);
                 }
             }
             finishValidation();
         } finally {
+            if (currentCC.prefetcher != null) {
+                currentCC.prefetcher.cancel();
+            }
             currentCC = null;
         }
     }
@@ -1420,6 +1544,10 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
         defsCache.invalidateAll();
         existsCache.invalidateAll();
         descriptorFilterCache.invalidateAll();
+        loadedCache.invalidateAll();
+        DefFragmentCache.invalidateAll();
+        AttributeIndex.invalidateAll();
+        ThemeValueProviderImpl.invalidateAll();
         return false;
     }
 
@@ -1495,11 +1623,81 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
         return de.uid;
     }
 
+    /**
+     * Get the outcome of an earlier validation of a loaded set.
+     * 
+     * Side Effects:
+     * <ul>
+     * <li>The dependency entries of the validated descriptors are populated into the local cache, as validating them
+     * would have.</li>
+     * </ul>
+     * 
+     * @param loaded the set as sent by the client.
+     * @return the entry, or null if the set has not been validated in this mode, with this access and against these
+     *         registries since the last source change.
+     */
+    public LoadedEntry getLoadedEntry(LoadedSet loaded) {
+        LoadedEntry entry = loadedCache.getIfPresent(makeLoadedKey(loaded));
+
+        if (entry != null) {
+            for (Map.Entry<DefDescriptor<?>, DependencyEntry> validated : entry.validated.entrySet()) {
+                DependencyEntry de = validated.getValue();
+
+                // See localDependencies comment
+                localDependencies.put(de.uid, de);
+                localDependencies.put(makeLocalKey(validated.getKey()), de);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Remember the outcome of a successful validation of a loaded set.
+     * 
+     * Nothing is remembered if any of the preloaded definitions can't be cached, see
+     * {@link #isCacheable(DefDescriptor)}.
+     * 
+     * @param loaded the set as sent by the client.
+     * @param preloaded the definitions the set came to.
+     * @param dropped the descriptors dropped from the set as they were preloaded by others.
+     */
+    public void putLoadedEntry(LoadedSet loaded, Set<DefDescriptor<?>> preloaded, Set<DefDescriptor<?>> dropped) {
+        Map<DefDescriptor<?>, DependencyEntry> validated = Maps.newHashMap();
+
+        for (Map.Entry<DefDescriptor<?>, String> entry : loaded.getUids().entrySet()) {
+            String uid = entry.getValue();
+
+            if (uid != null && !dropped.contains(entry.getKey())) {
+                DependencyEntry de = localDependencies.get(uid);
+
+                if (de == null) {
+                    return;
+                }
+                validated.put(entry.getKey(), de);
+            }
+        }
+        for (DefDescriptor<?> descriptor : preloaded) {
+            if (!isCacheable(descriptor)) {
+                return;
+            }
+        }
+        loadedCache.put(makeLoadedKey(loaded), new LoadedEntry(preloaded, dropped, validated));
+    }
+
     /** Creates a key for the localDependencies, using DefType and FQN. */
     private String makeLocalKey(DefDescriptor<?> descriptor) {
         return descriptor.getDefType().toString() + ":" + descriptor.getQualifiedName().toLowerCase();
     }
 
+    /**
+     * Creates a key for the global {@link #loadedCache}, using the set, mode, access and registries.
+     */
+    private List<Object> makeLoadedKey(LoadedSet loaded) {
+        AuraContext context = Aura.getContextService().getCurrentContext();
+
+        return Arrays.<Object> asList(loaded, context.getMode(), context.getAccess(), registriesKey);
+    }
+
     /**
      * Creates a key for the global {@link #depsCache}, using UID, type, and FQN.
      */
@@ -1519,6 +1717,19 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
      */
     public static void notifyDependentSourceChange(Collection<WeakReference<SourceListener>> listeners,
             DefDescriptor<?> source, SourceListener.SourceMonitorEvent event, String filePath) {
+        notifyDependentSourceChanges(listeners, Collections.singletonList(new SourceChange(source, event, filePath)));
+    }
+
+    /**
+     * Batch form of {@link #notifyDependentSourceChange}. The write lock is acquired once for the whole batch, every
+     * listener is told about each change in order, and the static caches are invalidated once per distinct descriptor
+     * (or wholesale if any change has no descriptor).
+     * 
+     * @param listeners - collections of listeners to notify of source changes
+     * @param changes - the changes to propagate
+     */
+    public static void notifyDependentSourceChanges(Collection<WeakReference<SourceListener>> listeners,
+            Collection<SourceChange> changes) {
         boolean haveLock = false;
 
         try {
@@ -1533,15 +1744,37 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
 
             // successfully acquired the lock, start clearing caches
             // notify provided listeners, presumably to clear caches
-            for (WeakReference<SourceListener> i : listeners) {
-                SourceListener sl = i.get();
+            for (SourceChange change : changes) {
+                for (WeakReference<SourceListener> i : listeners) {
+                    SourceListener sl = i.get();
+
+                    if (sl != null) {
+                        sl.onSourceChanged(change.getSource(), change.getEvent(), change.getFilePath());
+                    }
+                }
+            }
 
-                if (sl != null) {
-                    sl.onSourceChanged(source, event, filePath);
+            // drop the contents of changed files, everything if we don't know which
+            for (SourceChange change : changes) {
+                if (change.getFilePath() != null) {
+                    SourceContentsCache.invalidate(change.getFilePath());
+                } else if (change.getSource() == null) {
+                    SourceContentsCache.invalidateAll();
                 }
             }
+
             // lastly, clear MDR's static caches
-            invalidateStaticCaches(source);
+            Set<DefDescriptor<?>> invalidated = Sets.newHashSet();
+            for (SourceChange change : changes) {
+                DefDescriptor<?> source = change.getSource();
+                if (source == null) {
+                    invalidateStaticCaches(null);
+                    break;
+                }
+                if (invalidated.add(source)) {
+                    invalidateStaticCaches(source);
+                }
+            }
 
         } catch (InterruptedException e) {
         } finally {
@@ -1556,6 +1789,13 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
         depsCache.invalidateAll();
         descriptorFilterCache.invalidateAll();
         stringsCache.invalidateAll();
+        loadedCache.invalidateAll();
+        DefFragmentCache.invalidateAll();
+        AttributeIndex.invalidateAll();
+
+        if (descriptor == null || descriptor.getDefType() == DefType.THEME) {
+            ThemeValueProviderImpl.invalidateAll();
+        }
 
         if (descriptor == null) {
             defsCache.invalidateAll();
@@ -1606,6 +1846,31 @@ public class MasterDefRegistryImpl implements MasterDefRegistry {
         return defsCache.asMap().values();
     }
 
+    /**
+     * Get the number and serialized size of the cached definitions, by type.
+     *
+     * This serializes every cached definition, so it is meant for the admin pages and for tests, not for requests.
+     *
+     * @return a footprint for each type that has definitions in the cache.
+     */
+    public static Map<DefType, DefinitionFootprint> getDefinitionFootprint() {
+        Map<DefType, DefinitionFootprint> footprint = new EnumMap<DefType, DefinitionFootprint>(DefType.class);
+        for (Optional<? extends Definition> odef : defsCache.asMap().values()) {
+            Definition def = odef.orNull();
+            if (def == null) {
+                continue;
+            }
+            DefType defType = def.getDescriptor().getDefType();
+            DefinitionFootprint entry = footprint.get(defType);
+            if (entry == null) {
+                entry = new DefinitionFootprint(defType);
+                footprint.put(defType, entry);
+            }
+            entry.add(def);
+        }
+        return footprint;
+    }
+
     public static CacheStats getDefsCacheStats() {
         return defsCache.stats();
     }
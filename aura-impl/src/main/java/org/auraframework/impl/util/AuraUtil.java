@@ -81,6 +81,20 @@ public class AuraUtil {
         }
     }
 
+    /**
+     * Like {@link #immutableList(List)}, except that null stays null, for fields where null and empty differ.
+     * 
+     * @param <T> Any Object type
+     * @param list any List, or null
+     * @return An ImmutableList that is a copy of list, or null if list was null
+     */
+    public static <T> List<T> immutableListOrNull(List<T> list) {
+        if (list == null) {
+            return null;
+        }
+        return ImmutableList.copyOf(list);
+    }
+
     /**
      * shortcut for hashing some stuff.
      * 
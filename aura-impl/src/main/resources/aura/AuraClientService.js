@@ -506,101 +506,32 @@ var AuraClientService = function() {
             // Save off any context global stuff like new labels
             $A.getContext().join(config["context"]);
 
-            var actionResult = config["actions"][0];
-            var action = $A.get("c.aura://ComponentController.getComponent");
-
-            action.setCallback(action, function(a) {
-                var element = $A.util.getElement(locatorDomId);
-
-                // Check for bogus locatorDomId
-                var errors;
-                if (!element) {
-                    // We have no other place to display this
-                    // critical failure - fallback to the
-                    // document.body
-                    element = document.body;
-                    errors = [
-                        "Invalid locatorDomId specified - no element found in the DOM with id=" + locatorDomId
-                    ];
-                } else {
-                    errors = a.getState() === "SUCCESS" ? undefined : action.getError();
-                }
-
-                var componentConfig;
-                if (!errors) {
-                    componentConfig = a.getReturnValue();
-                } else {
-                    //
-                    // Make sure we clear any configs associated with the action.
-                    //
-                    $A.getContext().clearComponentConfigs(a.getId());
-                    // 
-                    // Display the errors in a ui:message instead
-                    //
-                    componentConfig = {
-                        "componentDef" : {
-                            "descriptor" : "markup://ui:message"
-                        },
-
-                        "attributes" : {
-                            "values" : {
-                                "title" : "Aura Integration Service Error",
-                                "severity" : "error",
-                                "body" : [
-                                    {
-                                        "componentDef" : {
-                                            "descriptor" : "markup://ui:outputText"
-                                        },
-
-                                        "attributes" : {
-                                            "values" : {
-                                                "value" : $A.util.json.encode(errors)
-                                            }
-                                        }
-                                    }
-                                ]
-                            }
-                        }
-                    };
-                }
-
-                componentConfig["localId"] = localId;
-
-                var root = $A.getRoot();
-                var c = $A.componentService.newComponentDeprecated(componentConfig, root);
-
-                if (!errors) {
-                    // Wire up event handlers
-                    var actionEventHandlers = config["actionEventHandlers"];
-                    if (actionEventHandlers) {
-                        var containerValueProvider = {
-                            getValue : function(functionName) {
-                                return {
-                                    run : function(event) {
-                                        window[functionName](event);
-                                    },
-                                    runDeprecated : function(event) {
-                                        window[functionName](event);
-                                    }
-                                };
-                            }
-                        };
-
-                        for ( var event in actionEventHandlers) {
-                            c.addHandler(event, containerValueProvider, actionEventHandlers[event]);
-                        }
-                    }
-                }
-
-                root.getValue("v.body").push(c);
+            priv.injectComponent(config["actions"][0], locatorDomId, localId, config["actionEventHandlers"]);
+        },
 
-                $A.render(c, element);
+        /**
+         * Inject several components sent in one response. For Integration
+         * Service.
+         *
+         * FIXME: this should be private.
+         *
+         * @param {Object} rawConfig the response, with one action for each component to be injected
+         * @param {Array} injections for each action in turn, its locatorDomId, localId and actionEventHandlers
+         * @memberOf AuraClientService
+         * @public
+         */
+        injectComponents : function(rawConfig, injections) {
+            var config = $A.util.json.resolveRefs(rawConfig);
 
-                $A.afterRender(c);
-            });
+            // Save off any context global stuff like new labels
+            $A.getContext().join(config["context"]);
 
-            action.updateFromResponse(actionResult);
-            action.finishAction($A.getContext());
+            var actions = config["actions"];
+            for (var i = 0; i < injections.length; i++) {
+                var injection = injections[i];
+                priv.injectComponent(actions[i], injection["locatorDomId"], injection["localId"],
+                        injection["actionEventHandlers"]);
+            }
         },
 
         /**
@@ -28,6 +28,7 @@ exp(clientService,
     "hardRefresh", clientService.hardRefresh,
     "setOutdated", clientService.setOutdated,
     "injectComponent", clientService.injectComponent,
+    "injectComponents", clientService.injectComponents,
     "isConnected", clientService.isConnected,
 	"setConnected", clientService.setConnected
 );
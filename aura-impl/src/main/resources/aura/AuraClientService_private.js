@@ -531,6 +531,107 @@ var priv = {
         }
     },
 
+    /**
+     * Inject one component from the response to its getComponent action.
+     * 
+     * @private
+     */
+    injectComponent : function(actionResult, locatorDomId, localId, actionEventHandlers) {
+        var action = $A.get("c.aura://ComponentController.getComponent");
+
+        action.setCallback(action, function(a) {
+            var element = $A.util.getElement(locatorDomId);
+
+            // Check for bogus locatorDomId
+            var errors;
+            if (!element) {
+                // We have no other place to display this
+                // critical failure - fallback to the
+                // document.body
+                element = document.body;
+                errors = [
+                    "Invalid locatorDomId specified - no element found in the DOM with id=" + locatorDomId
+                ];
+            } else {
+                errors = a.getState() === "SUCCESS" ? undefined : action.getError();
+            }
+
+            var componentConfig;
+            if (!errors) {
+                componentConfig = a.getReturnValue();
+            } else {
+                //
+                // Make sure we clear any configs associated with the action.
+                //
+                $A.getContext().clearComponentConfigs(a.getId());
+                // 
+                // Display the errors in a ui:message instead
+                //
+                componentConfig = {
+                    "componentDef" : {
+                        "descriptor" : "markup://ui:message"
+                    },
+
+                    "attributes" : {
+                        "values" : {
+                            "title" : "Aura Integration Service Error",
+                            "severity" : "error",
+                            "body" : [
+                                {
+                                    "componentDef" : {
+                                        "descriptor" : "markup://ui:outputText"
+                                    },
+
+                                    "attributes" : {
+                                        "values" : {
+                                            "value" : $A.util.json.encode(errors)
+                                        }
+                                    }
+                                }
+                            ]
+                        }
+                    }
+                };
+            }
+
+            componentConfig["localId"] = localId;
+
+            var root = $A.getRoot();
+            var c = $A.componentService.newComponentDeprecated(componentConfig, root);
+
+            if (!errors) {
+                // Wire up event handlers
+                if (actionEventHandlers) {
+                    var containerValueProvider = {
+                        getValue : function(functionName) {
+                            return {
+                                run : function(event) {
+                                    window[functionName](event);
+                                },
+                                runDeprecated : function(event) {
+                                    window[functionName](event);
+                                }
+                            };
+                        }
+                    };
+
+                    for ( var event in actionEventHandlers) {
+                        c.addHandler(event, containerValueProvider, actionEventHandlers[event]);
+                    }
+                }
+            }
+
+            root.getValue("v.body").push(c);
+
+            $A.render(c, element);
+
+            $A.afterRender(c);
+        });
+
+        action.updateFromResponse(actionResult);
+        action.finishAction($A.getContext());
+    },
+
     hardRefresh : function() {
         var url = location.href;
         if (!priv.isManifestPresent() || url.indexOf("?nocache=") > -1) {
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.http;
+
+import java.util.EnumSet;
+
+import org.auraframework.Aura;
+import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.test.AuraTestCase;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests for {@link AppWarmUp}.
+ */
+public class AppWarmUpTest extends AuraTestCase {
+
+    public AppWarmUpTest(String name) {
+        super(name);
+    }
+
+    public void testWarmUpApplication() throws Exception {
+        AppWarmUp warmUp = new AppWarmUp(Lists.newArrayList("test:laxSecurity"), EnumSet.of(Mode.UTEST, Mode.DEV), 2);
+        assertEquals(0, warmUp.run());
+        assertFalse("Warm up must not leave a context behind", Aura.getContextService().isEstablished());
+    }
+
+    public void testFailureDoesNotStopOthers() throws Exception {
+        AppWarmUp warmUp = new AppWarmUp(Lists.newArrayList("test:doesNotExistForWarmUp", "test:laxSecurity"),
+                EnumSet.of(Mode.UTEST), 2);
+        assertEquals(1, warmUp.run());
+    }
+
+    public void testNothingConfigured() throws Exception {
+        assertTrue(Aura.getConfigAdapter().getWarmUpApplications().isEmpty());
+        AppWarmUp.runConfigured();
+    }
+}
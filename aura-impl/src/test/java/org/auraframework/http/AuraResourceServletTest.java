@@ -135,6 +135,24 @@ public class AuraResourceServletTest extends AuraTestCase {
         }
     }
 
+    /**
+     * Apps that add their own URLs to the manifest get them from a server action on every request, so only the
+     * manifests of other apps are cached.
+     */
+    public void testManifestNotCachedWithAdditionalUrls() throws Exception {
+        AuraContext context = Aura.getContextService().startContext(AuraContext.Mode.UTEST,
+                AuraContext.Format.MANIFEST, AuraContext.Access.AUTHENTICATED);
+        context.setApplicationDescriptor(DefDescriptorImpl.getInstance("appCache:nopreload", ApplicationDef.class));
+        assertNotNull("Manifest should be cached", AuraResourceServlet.getManifestKey(context));
+        Aura.getContextService().endContext();
+
+        context = Aura.getContextService().startContext(AuraContext.Mode.UTEST, AuraContext.Format.MANIFEST,
+                AuraContext.Access.AUTHENTICATED);
+        context.setApplicationDescriptor(DefDescriptorImpl.getInstance("appCache:additionalUrls",
+                ApplicationDef.class));
+        assertNull("Manifest with additional URLs should not be cached", AuraResourceServlet.getManifestKey(context));
+    }
+
     /**
      * Verify the CSS cache is cleared in DEV mode after a source change. Usually this would be picked up by the file
      * source monitor, but we'll just emulate a source change for the sake of speed and simplicity. Original dev caching
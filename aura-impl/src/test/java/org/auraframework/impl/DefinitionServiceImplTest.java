@@ -438,6 +438,72 @@ public class DefinitionServiceImplTest extends AuraImplTestCase {
         assertTrue("Preloads missing parent from client", preloads.contains(clientDesc));
         assertTrue("Preloads missing dependency from client", preloads.contains(depDesc));
     }
+
+    /**
+     * A loaded set that was validated before gets the same outcome without validating it again.
+     */
+    public void testUpdateLoadedReusesValidation() throws Exception {
+        AuraContext context = Aura.getContextService().startContext(Mode.PROD, Format.JSON, Access.AUTHENTICATED,
+                laxSecurityApp);
+        DefDescriptor<?> depDesc = addSourceAutoCleanup(ComponentDef.class, String.format(baseComponentTag, "", ""));
+        DefDescriptor<?> clientDesc = addSourceAutoCleanup(ComponentDef.class,
+                String.format(baseComponentTag, "", String.format("<%s/>", depDesc.getDescriptorName())));
+        String depUid = context.getDefRegistry().getUid(null, depDesc);
+        String clientUid = context.getDefRegistry().getUid(null, clientDesc);
+        Map<DefDescriptor<?>,String> clientLoaded = Maps.newLinkedHashMap();
+        clientLoaded.put(clientDesc, clientUid);
+        clientLoaded.put(depDesc, depUid);
+        context.setClientLoaded(clientLoaded);
+        Aura.getDefinitionService().updateLoaded(null);
+        Set<DefDescriptor<?>> preloads = context.getPreloadedDefinitions();
+        assertNotNull("Validation should be remembered",
+                ((MasterDefRegistryImpl) context.getDefRegistry()).getLoadedEntry(LoadedSet.of(clientLoaded)));
+        Aura.getContextService().endContext();
+
+        context = Aura.getContextService().startContext(Mode.PROD, Format.JSON, Access.AUTHENTICATED, laxSecurityApp);
+        context.setClientLoaded(clientLoaded);
+        Aura.getDefinitionService().updateLoaded(null);
+
+        Map<DefDescriptor<?>, String> loaded = context.getLoaded();
+        assertEquals("Parent missing from loaded set", clientUid, loaded.get(clientDesc));
+        assertFalse("Dependency should be dropped again", loaded.containsKey(depDesc));
+        assertEquals("Preloads should not change", preloads, context.getPreloadedDefinitions());
+        assertNotNull("Dependencies of the validated set should be available",
+                context.getDefRegistry().getDependencies(clientUid));
+        Aura.getContextService().endContext();
+
+        context = Aura.getContextService().startContext(Mode.PROD, Format.JSON, Access.PUBLIC, laxSecurityApp);
+        assertNull("Validation should not be shared with other access",
+                ((MasterDefRegistryImpl) context.getDefRegistry()).getLoadedEntry(LoadedSet.of(clientLoaded)));
+
+        context.getDefRegistry().invalidate(null);
+        Aura.getContextService().endContext();
+        context = Aura.getContextService().startContext(Mode.PROD, Format.JSON, Access.AUTHENTICATED, laxSecurityApp);
+        assertNull("Invalidating the registry should drop the validation",
+                ((MasterDefRegistryImpl) context.getDefRegistry()).getLoadedEntry(LoadedSet.of(clientLoaded)));
+    }
+
+    /**
+     * A loaded set that comes to definitions that can't be cached is validated on every request.
+     */
+    public void testUpdateLoadedDoesNotRememberLocalDefs() throws Exception {
+        AuraContext context = Aura.getContextService().startContext(Mode.PROD, Format.JSON, Access.AUTHENTICATED,
+                laxSecurityApp);
+        DefDescriptor<ComponentDef> depDesc = addSourceAutoCleanup(ComponentDef.class,
+                String.format(baseComponentTag, "", ""));
+        DefDescriptor<?> clientDesc = addSourceAutoCleanup(ComponentDef.class,
+                String.format(baseComponentTag, "", String.format("<%s/>", depDesc.getDescriptorName())));
+        context.getDefRegistry().addLocalDef(depDesc.getDef());
+        String clientUid = context.getDefRegistry().getUid(null, clientDesc);
+        Map<DefDescriptor<?>,String> clientLoaded = Maps.newLinkedHashMap();
+        clientLoaded.put(clientDesc, clientUid);
+        context.setClientLoaded(clientLoaded);
+        Aura.getDefinitionService().updateLoaded(null);
+
+        assertTrue("Local def should be preloaded", context.getPreloadedDefinitions().contains(depDesc));
+        assertNull("Validation should not be remembered",
+                ((MasterDefRegistryImpl) context.getDefRegistry()).getLoadedEntry(LoadedSet.of(clientLoaded)));
+    }
     
     /**
      * Dependencies should be added to loaded set during updateLoaded.
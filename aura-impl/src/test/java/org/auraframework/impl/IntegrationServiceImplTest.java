@@ -24,6 +24,7 @@ import org.auraframework.def.ApplicationDef;
 import org.auraframework.def.ComponentDef;
 import org.auraframework.def.DefDescriptor;
 import org.auraframework.def.InterfaceDef;
+import org.auraframework.integration.ComponentInjection;
 import org.auraframework.integration.Integration;
 import org.auraframework.integration.IntegrationServiceObserver;
 import org.auraframework.integration.UnsupportedUserAgentException;
@@ -182,6 +183,30 @@ public class IntegrationServiceImplTest extends AuraImplTestCase {
         assertEquals("Bootstrap template should be written out only once.", 1, counter);
     }
 
+    /**
+     * Verify injecting several components in one batch writes a single injection script.
+     */
+    public void testInjectComponents() throws Exception {
+        DefDescriptor<ComponentDef> cmp1 = addSourceAutoCleanup(ComponentDef.class,
+                String.format(baseComponentTag, "", ""));
+        DefDescriptor<ComponentDef> cmp2 = addSourceAutoCleanup(ComponentDef.class,
+                String.format(baseComponentTag, "", ""));
+        Map<String, Object> attributes = Maps.newHashMap();
+        Appendable out = new StringBuffer();
+        Integration integration = createIntegration();
+        integration.injectComponents(Lists.newArrayList(
+                new ComponentInjection(cmp1.getDescriptorName(), attributes, "first", "placeholder1"),
+                new ComponentInjection(cmp2.getDescriptorName(), attributes, "second", "placeholder2")), out);
+
+        String output = out.toString();
+        assertTrue("Missing injection script for the batch", output.indexOf("injectComponents(") >= 0);
+        assertEquals("Expected one injection script for the batch", output.indexOf("injectComponents("),
+                output.lastIndexOf("injectComponents("));
+        assertTrue("Missing action for the first component", output.contains("\"ais0\""));
+        assertTrue("Missing action for the second component", output.contains("\"ais1\""));
+        assertTrue("Missing locator for the second component", output.contains("placeholder2"));
+    }
+
     /**
      * Verify injection a component with different attribute types.
      * 
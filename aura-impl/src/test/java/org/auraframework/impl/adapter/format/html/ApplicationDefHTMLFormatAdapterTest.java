@@ -117,6 +117,45 @@ public class ApplicationDefHTMLFormatAdapterTest extends BaseComponentDefHTMLFor
         }
     }
 
+    /**
+     * A page served from the cached template must match the first rendering, and carry its own auraInit.
+     */
+    public void testWriteFromCachedTemplate() throws Exception {
+        AuraContext context = Aura.getContextService().getCurrentContext();
+        DefDescriptor<ApplicationDef> desc = addSourceAutoCleanup(ApplicationDef.class,
+                "<aura:application render='client'></aura:application>");
+        context.setApplicationDescriptor(desc);
+        context.addLoaded(desc, context.getDefRegistry().getUid(null, desc));
+        String first = doWrite(desc.getDef());
+        String second = doWrite(desc.getDef());
+        assertEquals(first, second);
+        assertTrue("auraInit missing from page:\n" + second,
+                second.contains("$A.initAsync({") && second.contains(desc.getQualifiedName()));
+        assertFalse("auraInit placeholder left in page:\n" + second, second.contains("__auraInitSlot_"));
+    }
+
+    /**
+     * The cached template is shared by contexts that only differ in what is serialized into urls, each page gets the
+     * urls for its own context.
+     */
+    public void testWriteFromCachedTemplateWithOtherContext() throws Exception {
+        AuraContext context = Aura.getContextService().getCurrentContext();
+        DefDescriptor<ApplicationDef> desc = addSourceAutoCleanup(ApplicationDef.class,
+                "<aura:application render='client'></aura:application>");
+        context.setApplicationDescriptor(desc);
+        context.addLoaded(desc, context.getDefRegistry().getUid(null, desc));
+        doWrite(desc.getDef());
+
+        DefDescriptor<ComponentDef> other = addSourceAutoCleanup(ComponentDef.class, "<aura:component/>");
+        context.addLoaded(other, context.getDefRegistry().getUid(null, other));
+        StringBuilder serialized = new StringBuilder();
+        Aura.getSerializationService().write(context, null, AuraContext.class, serialized, "HTML");
+        String page = doWrite(desc.getDef());
+        assertTrue("Urls for the current context missing from page:\n" + page,
+                page.contains(AuraTextUtil.urlencode(serialized.toString()) + "/app.js"));
+        assertFalse("Placeholder left in page:\n" + page, page.contains("Slot_"));
+    }
+
     /**
      * Verify that comments in Template CSS are stripped out before sending it to client.
      * 
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.adapter.format.json;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import org.auraframework.impl.AuraImplTestCase;
+import org.auraframework.instance.Action;
+import org.auraframework.throwable.quickfix.DefinitionNotFoundException;
+
+public class MessageJSONFormatAdapterTest extends AuraImplTestCase {
+    private static final String CONTROLLER = "java://org.auraframework.impl.java.controller.JavaTestController";
+
+    public MessageJSONFormatAdapterTest(String name) {
+        super(name);
+    }
+
+    private List<Action> read(String message) throws Exception {
+        return new MessageJSONFormatAdapter().read(new StringReader(message)).getActions();
+    }
+
+    public void testReadActions() throws Exception {
+        List<Action> actions = read("{'actions':[" + "{'id':'1;a','descriptor':'" + CONTROLLER
+                + "/ACTION$getInt','params':{'param':66}}," + "{'id':'2;a','descriptor':'" + CONTROLLER
+                + "/ACTION$getString','params':{'param':'hi','extra':{'nested':[1,2]}}}]}");
+        assertEquals(2, actions.size());
+
+        Action first = actions.get(0);
+        assertEquals("1;a", first.getId());
+        assertEquals(CONTROLLER + "/ACTION$getInt", first.getDescriptor().getQualifiedName());
+        assertEquals("Params should be bound to the parameter type", Integer.valueOf(66), first.getParams()
+                .get("param"));
+
+        Action second = actions.get(1);
+        assertEquals("2;a", second.getId());
+        assertEquals("hi", second.getParams().get("param"));
+        assertTrue(second.getParams().get("extra") instanceof Map);
+    }
+
+    public void testReadParamsBeforeDescriptor() throws Exception {
+        List<Action> actions = read("{'actions':[{'params':{'param':7},'descriptor':'" + CONTROLLER
+                + "/ACTION$getInt','id':'3;a'}]}");
+        assertEquals(1, actions.size());
+        assertEquals("3;a", actions.get(0).getId());
+        assertEquals(Integer.valueOf(7), actions.get(0).getParams().get("param"));
+    }
+
+    public void testReadNoActions() throws Exception {
+        assertEquals(0, read("{'actions':[]}").size());
+        assertEquals(0, read("{}").size());
+    }
+
+    public void testReadUnknownAction() throws Exception {
+        try {
+            read("{'actions':[{'id':'1;a','descriptor':'" + CONTROLLER + "/ACTION$doesNotExist','params':{}}]}");
+            fail("Should not read an action that does not exist");
+        } catch (DefinitionNotFoundException expected) {
+        }
+    }
+}
@@ -28,12 +28,15 @@ import org.auraframework.def.BaseComponentDef;
 import org.auraframework.def.ClientLibraryDef;
 import org.auraframework.def.ClientLibraryDef.Type;
 import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.ResourceDef;
 import org.auraframework.impl.AuraImplTestCase;
+import org.auraframework.impl.source.StringSourceLoader;
 import org.auraframework.service.ContextService;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Access;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.system.SourceListener.SourceMonitorEvent;
 import org.auraframework.test.annotation.UnAdaptableTest;
 import org.auraframework.throwable.AuraRuntimeException;
 import org.auraframework.throwable.NoContextException;
@@ -149,6 +152,46 @@ public class ClientLibraryServiceImplTest extends AuraImplTestCase {
 
     }
 
+    /**
+     * Changes to sources that are not combined should not throw away combined output, changes to the combined
+     * resource itself must, even while the client still has the same app uid.
+     */
+    public void testWriteResourcesCSSInvalidatedByResourceChange() throws Exception {
+        DefDescriptor<ResourceDef> resourceDesc = addSourceAutoCleanup(ResourceDef.class,
+                ".clientLibraryFirst { color: red; }");
+        DefDescriptor<ApplicationDef> appDesc = addSourceAutoCleanup(ApplicationDef.class, String.format(
+                "<aura:application><aura:clientLibrary name='resource' url='%s' type='CSS' combine='true'/>"
+                        + "</aura:application>", resourceDesc.getQualifiedName()));
+        AuraContext context = Aura.getContextService().getCurrentContext();
+        context.setApplicationDescriptor(appDesc);
+        Aura.getDefinitionService().updateLoaded(appDesc);
+
+        StringBuilder first = new StringBuilder();
+        clientLibraryService.writeCss(context, first);
+        assertTrue("Missing resource CSS", first.toString().contains("clientLibraryFirst"));
+
+        Aura.getDefinitionService().onSourceChanged(
+                Aura.getDefinitionService().getDefDescriptor("clientLibraryTest:unrelated", ApplicationDef.class),
+                SourceMonitorEvent.changed, null);
+        StringBuilder second = new StringBuilder();
+        clientLibraryService.writeCss(context, second);
+        assertEquals(first.toString(), second.toString());
+
+        String uid = context.getUid(appDesc);
+        StringSourceLoader.getInstance().putSource(resourceDesc, ".clientLibrarySecond { color: blue; }", true);
+        // a new request, as definitions are kept for the length of one
+        Aura.getContextService().endContext();
+        context = Aura.getContextService().startContext(Mode.SELENIUM, Format.HTML, Access.AUTHENTICATED);
+        context.setApplicationDescriptor(appDesc);
+        Aura.getDefinitionService().updateLoaded(appDesc);
+        assertEquals("The app itself did not change", uid, context.getUid(appDesc));
+
+        StringBuilder third = new StringBuilder();
+        clientLibraryService.writeCss(context, third);
+        assertFalse("Stale resource CSS", third.toString().contains("clientLibraryFirst"));
+        assertTrue("Missing changed resource CSS", third.toString().contains("clientLibrarySecond"));
+    }
+
     public void testGetResolvedUrl() {
         assertNull(clientLibraryService.getResolvedUrl(null));
 
@@ -20,9 +20,13 @@ import org.auraframework.adapter.ContextAdapter;
 import org.auraframework.impl.AuraImpl;
 import org.auraframework.impl.AuraImplTestCase;
 import org.auraframework.service.ContextService;
+import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Access;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.system.ContextHandle;
+import org.auraframework.system.LoggingContext;
+import org.auraframework.throwable.AuraRuntimeException;
 
 public class AuraContextServiceImplTest extends AuraImplTestCase {
 
@@ -47,4 +51,39 @@ public class AuraContextServiceImplTest extends AuraImplTestCase {
         contextService.endContext();
         assertFalse(p.isEstablished());
     }
+
+    public void testDetachAndResume() {
+        ContextService contextService = Aura.getContextService();
+        AuraContext context = contextService.startContext(Mode.DEV, Format.JSON, Access.AUTHENTICATED);
+        LoggingContext loggingContext = AuraImpl.getLoggingAdapter().getLoggingContext();
+        try {
+            ContextHandle handle = contextService.detachContext();
+            assertFalse("Detaching should release the context", contextService.isEstablished());
+            assertSame(context, handle.getContext());
+            assertSame(loggingContext, handle.getLoggingContext());
+
+            contextService.resumeContext(handle);
+            assertSame(context, contextService.getCurrentContext());
+            assertSame(loggingContext, AuraImpl.getLoggingAdapter().getLoggingContext());
+        } finally {
+            contextService.endContext();
+        }
+    }
+
+    public void testResumeWhileEstablished() {
+        ContextService contextService = Aura.getContextService();
+        contextService.startContext(Mode.DEV, Format.JSON, Access.AUTHENTICATED);
+        try {
+            ContextHandle handle = contextService.detachContext();
+            contextService.startContext(Mode.DEV, Format.JSON, Access.AUTHENTICATED);
+            try {
+                contextService.resumeContext(handle);
+                fail("Expected resuming over an established context to fail");
+            } catch (AuraRuntimeException expected) {
+                assertEquals("Cannot resume a context, one is already established", expected.getMessage());
+            }
+        } finally {
+            contextService.endContext();
+        }
+    }
 }
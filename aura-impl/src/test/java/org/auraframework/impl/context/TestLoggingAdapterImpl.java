@@ -55,6 +55,11 @@ public class TestLoggingAdapterImpl extends LoggingAdapterImpl implements TestLo
     	super.release();
     }
     
+    @Override
+    public void bind(LoggingContext loggingContext) {
+        currentContext.set(loggingContext);
+    }
+
     @Override
     public List<Map<String, Object>> getLogs() {
         return logs;
@@ -25,6 +25,7 @@ import org.auraframework.impl.AuraImplTestCase;
 import org.auraframework.impl.css.parser.ThemeOverrideMapImpl;
 import org.auraframework.impl.css.parser.ThemeValueProviderImpl;
 import org.auraframework.impl.root.theme.ThemeDefImpl;
+import org.auraframework.impl.source.StringSource;
 import org.auraframework.throwable.AuraRuntimeException;
 import org.auraframework.throwable.quickfix.DefinitionNotFoundException;
 import org.auraframework.throwable.quickfix.QuickFixException;
@@ -128,6 +129,27 @@ public class ThemeValueProviderTest extends AuraImplTestCase {
         assertEquals(val, "absolute");
     }
 
+    /** resolved values are shared between providers, and dropped when the theme changes */
+    public void testCachedValueDroppedOnChange() throws QuickFixException {
+        String contents = "<aura:theme><aura:attribute name='color' default='%s'/></aura:theme>";
+        DefDescriptor<ThemeDef> theme = addSourceAutoCleanup(ThemeDef.class, String.format(contents, "red"));
+        String reference = String.format("%s.%s.color", theme.getNamespace(), theme.getName());
+
+        assertEquals("red", provider().getValue(reference, null).toString());
+        assertEquals("red", provider().getValue(reference, null).toString());
+
+        StringSource<?> source = (StringSource<?>) getAuraTestingUtil().getSource(theme);
+        source.addOrUpdate(String.format(contents, "blue"));
+        assertEquals("blue", provider().getValue(reference, null).toString());
+    }
+
+    /** values resolved with overrides are kept apart from those without */
+    public void testCachedValueKeptPerOverrides() throws QuickFixException {
+        assertEquals(provider().getValue("themeTest.baseTheme.color", null).toString(), "red");
+        assertEquals(overridden().getValue("themeTest.baseTheme.color", null).toString(), "yellow");
+        assertEquals(provider().getValue("themeTest.baseTheme.color", null).toString(), "red");
+    }
+
     /** utility */
     private static ThemeValueProvider provider() {
         return new ThemeValueProviderImpl();
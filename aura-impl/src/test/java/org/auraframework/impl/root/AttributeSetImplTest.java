@@ -24,6 +24,8 @@ import org.auraframework.def.DefDescriptor;
 import org.auraframework.impl.AuraImplTestCase;
 import org.auraframework.impl.expression.PropertyReferenceImpl;
 import org.auraframework.impl.util.AuraUtil;
+import org.auraframework.instance.Attribute;
+import org.auraframework.instance.AttributeSet;
 import org.auraframework.instance.Component;
 import org.auraframework.throwable.quickfix.DefinitionNotFoundException;
 import org.auraframework.util.json.JsonReader;
@@ -195,4 +197,48 @@ public class AttributeSetImplTest extends AuraImplTestCase {
         attSetValues = (Map<?, ?>) ((Map<?, ?>) attSet.get("value")).get("values");
         assertEquals(0, attSetValues.size());
     }
+
+    /**
+     * Defaults worked out once for the definition still give each instance its own attribute, with the converted
+     * value.
+     */
+    public void testConstantDefaults() throws Exception {
+        DefDescriptor<ComponentDef> desc = addSourceAutoCleanup(ComponentDef.class, String.format(baseComponentTag,
+                "", "<aura:attribute name='label' type='String' default='hi'/>"
+                        + "<aura:attribute name='flag' type='Boolean' default='true'/>"
+                        + "<aura:attribute name='other' type='String' default='{!v.label}'/>"));
+        AttributeSet first = Aura.getInstanceService().getInstance(desc).getAttributes();
+        AttributeSet second = Aura.getInstanceService().getInstance(desc).getAttributes();
+
+        assertEquals("hi", first.getValue("label"));
+        assertEquals(Boolean.TRUE, first.getValue("flag"));
+        assertEquals("hi", first.getValue("other"));
+        assertEquals(Boolean.TRUE, second.getValue("flag"));
+
+        Attribute firstLabel = null;
+        for (Attribute attribute : first) {
+            if (attribute.getName().equals("label")) {
+                firstLabel = attribute;
+            }
+        }
+        assertNotNull(firstLabel);
+        for (Attribute attribute : second) {
+            assertNotSame(firstLabel, attribute);
+        }
+    }
+
+    /**
+     * Required attributes without a value are reported missing, and the size counts only attributes with values.
+     */
+    public void testMissingAttributes() throws Exception {
+        DefDescriptor<ComponentDef> desc = addSourceAutoCleanup(ComponentDef.class, String.format(baseComponentTag,
+                "", "<aura:attribute name='needed' type='String' required='true'/>"
+                        + "<aura:attribute name='given' type='String' required='true' default='x'/>"
+                        + "<aura:attribute name='optional' type='String'/>"));
+        AttributeSet attributes = new AttributeSetImpl(desc, null, null);
+
+        assertEquals(1, attributes.size());
+        assertEquals(1, attributes.getMissingAttributes().size());
+        assertEquals("needed", attributes.getMissingAttributes().iterator().next().getName());
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.root.component;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.auraframework.Aura;
+import org.auraframework.def.ComponentDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.impl.AuraImplTestCase;
+import org.auraframework.system.AuraContext;
+import org.auraframework.system.AuraContext.Access;
+import org.auraframework.system.AuraContext.Format;
+import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.util.json.Json;
+
+public class DefFragmentCacheTest extends AuraImplTestCase {
+    private AuraContext context;
+
+    public DefFragmentCacheTest(String name) {
+        super(name, false);
+    }
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        context = Aura.getContextService().startContext(Mode.PROD, Format.JSON, Access.AUTHENTICATED);
+        DefFragmentCache.invalidateAll();
+    }
+
+    private String serialize(Object value) {
+        return Json.serialize(value, context.getJsonSerializationContext());
+    }
+
+    public void testSerializedDefIsReused() throws Exception {
+        ComponentDef def = addSourceAutoCleanup(ComponentDef.class,
+                "<aura:component><aura:attribute name='label' type='String'/>{!v.label}</aura:component>").getDef();
+
+        String first = serialize(def);
+        long hits = DefFragmentCache.getStats().hitCount();
+        assertEquals(first, serialize(def));
+        assertEquals(hits + 1, DefFragmentCache.getStats().hitCount());
+    }
+
+    /**
+     * A cached definition written after other values still refers to them and to itself by the right ids.
+     */
+    public void testReferencesAreRenumbered() throws Exception {
+        DefDescriptor<ComponentDef> child = addSourceAutoCleanup(ComponentDef.class,
+                "<aura:component>child</aura:component>");
+        ComponentDef parent = addSourceAutoCleanup(ComponentDef.class,
+                String.format("<aura:component><%s/><%s/></aura:component>", child.getDescriptorName(),
+                        child.getDescriptorName())).getDef();
+
+        String first = serialize(Arrays.asList(child.getDef(), parent, parent));
+        serialize(parent);
+        assertEquals(first, serialize(Arrays.asList(child.getDef(), parent, parent)));
+    }
+
+    /**
+     * Whether a nested definition is preloaded changes the output, so a cached definition is only reused when it is
+     * preloaded the same way.
+     */
+    public void testPreloadsAreChecked() throws Exception {
+        DefDescriptor<ComponentDef> base = addSourceAutoCleanup(ComponentDef.class,
+                "<aura:component extensible='true'>base</aura:component>");
+        ComponentDef def = addSourceAutoCleanup(ComponentDef.class,
+                String.format("<aura:component extends='%s'/>", base.getDescriptorName())).getDef();
+
+        String notPreloaded = serialize(def);
+        context.setPreloadedDefinitions(Collections.<DefDescriptor<?>> singleton(base));
+        String preloaded = serialize(def);
+        assertFalse("Super definition should not be serialized when preloaded", notPreloaded.equals(preloaded));
+
+        DefFragmentCache.invalidateAll();
+        assertEquals(preloaded, serialize(def));
+    }
+
+    /**
+     * A definition added locally, or one that depends on it however deeply, is not shared with later requests.
+     */
+    public void testLocalDefsAreNotCached() throws Exception {
+        DefDescriptor<ComponentDef> local = addSourceAutoCleanup(ComponentDef.class,
+                "<aura:component extensible='true'>local</aura:component>");
+        DefDescriptor<ComponentDef> base = addSourceAutoCleanup(ComponentDef.class,
+                String.format("<aura:component extensible='true' extends='%s'/>", local.getDescriptorName()));
+        ComponentDef def = addSourceAutoCleanup(ComponentDef.class,
+                String.format("<aura:component extends='%s'/>", base.getDescriptorName())).getDef();
+        context.getDefRegistry().addLocalDef(local.getDef());
+
+        String first = serialize(def);
+        long hits = DefFragmentCache.getStats().hitCount();
+        assertEquals(first, serialize(def));
+        assertEquals(hits, DefFragmentCache.getStats().hitCount());
+    }
+
+    /**
+     * Writing a cached definition sets the current namespace as serializing it does.
+     */
+    public void testNamespaceIsSetOnReuse() throws Exception {
+        ComponentDef def = addSourceAutoCleanup(ComponentDef.class, "<aura:component>text</aura:component>").getDef();
+
+        serialize(def);
+        context.setCurrentNamespace("other");
+        long hits = DefFragmentCache.getStats().hitCount();
+        serialize(def);
+        assertEquals(hits + 1, DefFragmentCache.getStats().hitCount());
+        assertEquals(def.getDescriptor().getNamespace(), context.getCurrentNamespace());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.root.parser;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.auraframework.test.UnitTestCase;
+
+/**
+ * Unit tests for {@link HTMLReader}
+ */
+public class HTMLReaderTest extends UnitTestCase {
+
+    private static String read(String markup, int chunk) throws IOException {
+        Reader reader = new HTMLReader(new ChunkedReader(new StringReader(markup), chunk));
+        StringBuilder sb = new StringBuilder();
+        char[] buf = new char[5];
+        int n;
+        while ((n = reader.read(buf, 0, buf.length)) != -1) {
+            sb.append(buf, 0, n);
+        }
+        reader.close();
+        return sb.toString();
+    }
+
+    private static void assertRead(String expected, String markup) throws IOException {
+        for (int chunk : new int[] { 1, 2, 3, 4096 }) {
+            assertEquals("Reading in chunks of " + chunk, expected, read(markup, chunk));
+        }
+    }
+
+    public void testNamedReferencesAreNumbered() throws Exception {
+        assertRead("<a title='x&#160;y'>&#169;&#08230;&#8800;</a>", "<a title='x&nbsp;y'>&copy;&hellip;&ne;</a>");
+    }
+
+    public void testXmlAndUnknownReferencesAreKept() throws Exception {
+        assertRead("<a>&amp;&lt;&gt;&quot;&apos;&#160;&unknown;& nbsp;&nbsp</a>",
+                "<a>&amp;&lt;&gt;&quot;&apos;&#160;&unknown;& nbsp;&nbsp</a>");
+    }
+
+    public void testCommentsAndCDataAreKept() throws Exception {
+        assertRead("<a><!-- &nbsp; --><![CDATA[&nbsp; ]] ]]>&#160;<!---->&#169;</a>",
+                "<a><!-- &nbsp; --><![CDATA[&nbsp; ]] ]]>&nbsp;<!---->&copy;</a>");
+    }
+
+    public void testSingleCharacterReads() throws Exception {
+        Reader reader = new HTMLReader(new StringReader("&nbsp;<"));
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1) {
+            sb.append((char) c);
+        }
+        assertEquals("&#160;<", sb.toString());
+    }
+
+    /**
+     * Hands out at most a few characters per read, so that references span reads.
+     */
+    private static class ChunkedReader extends FilterReader {
+        private final int chunk;
+
+        private ChunkedReader(Reader in, int chunk) {
+            super(in);
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, chunk));
+        }
+    }
+}
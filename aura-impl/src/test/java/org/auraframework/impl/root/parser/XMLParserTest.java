@@ -18,15 +18,20 @@ package org.auraframework.impl.root.parser;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import org.auraframework.def.AttributeDef;
 import org.auraframework.def.ComponentDef;
+import org.auraframework.def.ComponentDefRef;
 import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.DocumentationDef;
 import org.auraframework.def.EventDef;
 import org.auraframework.def.EventType;
+import org.auraframework.def.NamespaceDef;
 import org.auraframework.impl.AuraImplTestCase;
 import org.auraframework.impl.root.event.EventDefImpl;
+import org.auraframework.impl.source.StringSource;
 import org.auraframework.impl.source.file.FileSource;
 import org.auraframework.impl.system.DefDescriptorImpl;
 import org.auraframework.system.Location;
@@ -174,4 +179,33 @@ public class XMLParserTest extends AuraImplTestCase {
         def = parser.parse(descriptor, source);
         assertEquals("Unexpected Descriptor", descriptor, def.getDescriptor());
     }
+
+    /**
+     * Named html entities reach the handlers as the characters they stand for, in text, descriptions and namespace
+     * values, as they did when the entities were declared in a dtd.
+     */
+    public void testParseEntities() throws Exception {
+        XMLParser parser = XMLParser.getInstance();
+
+        DefDescriptor<ComponentDef> cmpDesc = DefDescriptorImpl.getInstance("test:parserEntities", ComponentDef.class);
+        ComponentDef cmp = parser.parse(cmpDesc, new StringSource<ComponentDef>(cmpDesc,
+                "<aura:component>a&nbsp;b&hellip;&amp;</aura:component>", "myID", Format.XML));
+        List<?> body = (List<?>) cmp.getFacets().get(0).getValue();
+        assertEquals(1, body.size());
+        assertEquals("a\u00a0b\u2026&", ((ComponentDefRef) body.get(0)).getAttributeDefRef("value").getValue());
+
+        DefDescriptor<DocumentationDef> docDesc = DefDescriptorImpl.getInstance("test:parserEntities",
+                DocumentationDef.class);
+        DocumentationDef doc = parser.parse(docDesc, new StringSource<DocumentationDef>(docDesc,
+                "<aura:documentation><aura:description>x&nbsp;<b>y</b>&copy;</aura:description></aura:documentation>",
+                "myID", Format.XML));
+        assertEquals(1, doc.getDescriptionDefs().size());
+        assertEquals("x\u00a0<b>y</b>\u00a9", doc.getDescriptionDefs().values().iterator().next().getBody());
+
+        DefDescriptor<NamespaceDef> nsDesc = DefDescriptorImpl.getInstance("markup://parserEntities", NamespaceDef.class);
+        NamespaceDef ns = parser.parse(nsDesc, new StringSource<NamespaceDef>(nsDesc,
+                "<aura:namespace><style><tokens><SPACE>&nbsp;&mdash;</SPACE></tokens></style></aura:namespace>",
+                "myID", Format.XML));
+        assertEquals("\u00a0\u2014", ns.getStyleTokens().get("SPACE"));
+    }
 }
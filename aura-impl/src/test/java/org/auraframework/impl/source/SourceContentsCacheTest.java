@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.source;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.URL;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.auraframework.def.Definition;
+import org.auraframework.system.Parser.Format;
+import org.auraframework.system.Source;
+import org.auraframework.test.UnitTestCase;
+import org.auraframework.util.text.Hash;
+
+import com.google.common.base.Charsets;
+
+public class SourceContentsCacheTest extends UnitTestCase {
+    private File file;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        file = File.createTempFile("SourceContentsCacheTest", ".cmp");
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        SourceContentsCache.invalidate(file.getPath());
+        file.delete();
+        super.tearDown();
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static Hash hashOf(String contents) throws IOException {
+        return new Hash(new StringReader(contents));
+    }
+
+    private static String read(Source<?> source, File file) throws IOException {
+        return SourceContentsCache.getContents(file, Charsets.UTF_8, source);
+    }
+
+    public void testContentsAndHash() throws Exception {
+        String contents = "<aura:component>café ☃ 😀</aura:component>";
+        write(contents.getBytes(Charsets.UTF_8));
+        TestSource source = new TestSource();
+
+        assertEquals(contents, read(source, file));
+        assertEquals(hashOf(contents), source.getHash());
+
+        TestSource other = new TestSource();
+        assertSame("Unchanged file should come from the cache", read(source, file), read(other, file));
+        assertEquals(hashOf(contents), other.getHash());
+    }
+
+    public void testChangedFileIsReadAgain() throws Exception {
+        write("<aura:component/>".getBytes(Charsets.UTF_8));
+        assertEquals("<aura:component/>", read(new TestSource(), file));
+
+        write("<aura:component>changed</aura:component>".getBytes(Charsets.UTF_8));
+        TestSource source = new TestSource();
+        assertEquals("<aura:component>changed</aura:component>", read(source, file));
+        assertEquals(hashOf("<aura:component>changed</aura:component>"), source.getHash());
+    }
+
+    public void testInvalidateDropsSameSizedChange() throws Exception {
+        write("one".getBytes(Charsets.UTF_8));
+        long lastModified = file.lastModified();
+        assertEquals("one", read(new TestSource(), file));
+
+        write("two".getBytes(Charsets.UTF_8));
+        file.setLastModified(lastModified);
+        assertEquals("A change the file system can't see is not noticed", "one", read(new TestSource(), file));
+
+        SourceContentsCache.invalidate(file.getPath());
+        assertEquals("two", read(new TestSource(), file));
+    }
+
+    public void testMalformedInputIsReplaced() throws Exception {
+        write(new byte[] { 'a', (byte) 0xff, 'b' });
+        TestSource source = new TestSource();
+
+        assertEquals("a�b", read(source, file));
+        assertEquals(hashOf("a�b"), source.getHash());
+    }
+
+    public void testLargeFile() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 600 * 1024) {
+            sb.append(".THIS .row").append(sb.length()).append(" {color: red;} /* é */\n");
+        }
+        String contents = sb.toString();
+        write(contents.getBytes(Charsets.UTF_8));
+        TestSource source = new TestSource();
+
+        assertEquals(contents, read(source, file));
+        assertEquals(hashOf(contents), source.getHash());
+    }
+
+    public void testUrl() throws Exception {
+        write("<aura:component/>".getBytes(Charsets.UTF_8));
+        TestSource source = new TestSource();
+
+        assertEquals("<aura:component/>",
+                SourceContentsCache.getContents(file.toURI().toURL(), Charsets.UTF_8, source));
+        assertEquals(hashOf("<aura:component/>"), source.getHash());
+    }
+
+    /**
+     * Resources in a jar are checked against the jar file, and come from the cache while it is unchanged.
+     */
+    public void testJarUrl() throws Exception {
+        File jar = File.createTempFile("SourceContentsCacheTest", ".jar");
+        try {
+            JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+            try {
+                out.putNextEntry(new ZipEntry("test.cmp"));
+                out.write("<aura:component/>".getBytes(Charsets.UTF_8));
+                out.closeEntry();
+            } finally {
+                out.close();
+            }
+            URL url = new URL("jar:" + jar.toURI().toURL() + "!/test.cmp");
+            TestSource source = new TestSource();
+
+            String contents = SourceContentsCache.getContents(url, Charsets.UTF_8, source);
+            assertEquals("<aura:component/>", contents);
+            assertEquals(hashOf("<aura:component/>"), source.getHash());
+            assertSame("Unchanged jar should come from the cache", contents,
+                    SourceContentsCache.getContents(url, Charsets.UTF_8, new TestSource()));
+        } finally {
+            SourceContentsCache.invalidateAll();
+            jar.delete();
+        }
+    }
+
+    private static class TestSource extends Source<Definition> {
+        private static final long serialVersionUID = 1L;
+
+        private TestSource() {
+            super(null, "test", Format.XML);
+        }
+
+        @Override
+        public Reader getReader() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Writer getWriter() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean addOrUpdate(CharSequence newContents) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getContents() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getLastModified() {
+            return 0;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+    }
+}
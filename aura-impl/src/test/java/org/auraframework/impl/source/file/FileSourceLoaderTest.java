@@ -16,6 +16,7 @@
 package org.auraframework.impl.source.file;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.Set;
@@ -31,6 +32,7 @@ import org.auraframework.impl.util.AuraImplFiles;
 import org.auraframework.system.Parser.Format;
 import org.auraframework.system.Source;
 import org.auraframework.throwable.AuraRuntimeException;
+import org.auraframework.util.IOUtil;
 
 public class FileSourceLoaderTest extends AuraImplTestCase {
 
@@ -157,4 +159,58 @@ public class FileSourceLoaderTest extends AuraImplTestCase {
         found = loader.find(new DescriptorFilter("markup://test:doesntexist"));
         assertEquals("Should not have found any components", 0, found.size());
     }
+
+    public void testFindTypeFromIndex() {
+        FileSourceLoader loader = new FileSourceLoader(AuraImplFiles.TestComponents.asFile());
+        Set<DefDescriptor<ComponentDef>> found = loader.find(ComponentDef.class, "markup", "test");
+        assertTrue(found.contains(DefDescriptorImpl.getInstance("markup://test:extendsParent", ComponentDef.class)));
+
+        assertTrue("Unknown namespace should find nothing", loader.find(ComponentDef.class, "markup", "nonExistentNs")
+                .isEmpty());
+    }
+
+    /**
+     * New files show up in later finds without the test reporting a source change, through the file monitor when it
+     * runs and through the directory modification times when it doesn't.
+     */
+    public void testFindAfterFileCreated() throws Exception {
+        File base = new File(System.getProperty("java.io.tmpdir"), getName() + System.currentTimeMillis());
+        try {
+            File first = new File(base, "indexTest/first/first.cmp");
+            IOUtil.mkdirs(first.getParentFile());
+            writeFile(first, "<aura:component/>");
+            // as if written a while ago, so the index doesn't just rebuild because it is new
+            long past = System.currentTimeMillis() - 60000;
+            first.getParentFile().setLastModified(past);
+            first.getParentFile().getParentFile().setLastModified(past);
+
+            FileSourceLoader loader = new FileSourceLoader(base);
+            DescriptorFilter filter = new DescriptorFilter("markup://indexTest:*", "COMPONENT");
+            assertEquals(1, loader.find(filter).size());
+
+            File second = new File(base, "indexTest/second/second.cmp");
+            IOUtil.mkdirs(second.getParentFile());
+            writeFile(second, "<aura:component/>");
+
+            // the file monitor, when running, reports the new file a little later
+            Set<DefDescriptor<?>> found = loader.find(filter);
+            for (int i = 0; i < 100 && found.size() < 2; i++) {
+                Thread.sleep(100);
+                found = loader.find(filter);
+            }
+            assertEquals(2, found.size());
+            assertTrue(found.contains(DefDescriptorImpl.getInstance("markup://indexTest:second", ComponentDef.class)));
+        } finally {
+            IOUtil.delete(base);
+        }
+    }
+
+    private void writeFile(File file, String contents) throws IOException {
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
 }
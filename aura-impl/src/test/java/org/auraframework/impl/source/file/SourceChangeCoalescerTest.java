@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.source.file;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.auraframework.system.SourceListener.SourceMonitorEvent;
+import org.auraframework.test.UnitTestCase;
+
+/**
+ * Unit tests for {@link SourceChangeCoalescer}
+ */
+public class SourceChangeCoalescerTest extends UnitTestCase {
+
+    public void testSingleEventsPassThrough() {
+        SourceChangeCoalescer coalescer = new SourceChangeCoalescer();
+        coalescer.add("/a/a.cmp", SourceMonitorEvent.changed);
+        coalescer.add("/b/b.cmp", SourceMonitorEvent.created);
+        coalescer.add("/c/c.cmp", SourceMonitorEvent.deleted);
+
+        Map<String, SourceMonitorEvent> drained = coalescer.drain();
+        Iterator<Map.Entry<String, SourceMonitorEvent>> it = drained.entrySet().iterator();
+        assertEquals(SourceMonitorEvent.changed, it.next().getValue());
+        assertEquals(SourceMonitorEvent.created, it.next().getValue());
+        assertEquals(SourceMonitorEvent.deleted, it.next().getValue());
+        assertTrue(coalescer.isEmpty());
+    }
+
+    public void testRepeatedChangesCollapse() {
+        SourceChangeCoalescer coalescer = new SourceChangeCoalescer();
+        coalescer.add("/a/a.cmp", SourceMonitorEvent.changed);
+        coalescer.add("/a/a.cmp", SourceMonitorEvent.changed);
+        coalescer.add("/a/a.cmp", SourceMonitorEvent.changed);
+
+        Map<String, SourceMonitorEvent> drained = coalescer.drain();
+        assertEquals(1, drained.size());
+        assertEquals(SourceMonitorEvent.changed, drained.get("/a/a.cmp"));
+    }
+
+    public void testCreatedThenDeletedCancels() {
+        SourceChangeCoalescer coalescer = new SourceChangeCoalescer();
+        coalescer.add("/a/a.cmp~", SourceMonitorEvent.created);
+        coalescer.add("/a/a.cmp~", SourceMonitorEvent.changed);
+        coalescer.add("/a/a.cmp~", SourceMonitorEvent.deleted);
+
+        assertTrue(coalescer.isEmpty());
+    }
+
+    public void testDeletedThenCreatedIsChange() {
+        assertEquals(SourceMonitorEvent.changed,
+                SourceChangeCoalescer.merge(SourceMonitorEvent.deleted, SourceMonitorEvent.created));
+        assertEquals(SourceMonitorEvent.created,
+                SourceChangeCoalescer.merge(SourceMonitorEvent.created, SourceMonitorEvent.changed));
+        assertEquals(SourceMonitorEvent.deleted,
+                SourceChangeCoalescer.merge(SourceMonitorEvent.changed, SourceMonitorEvent.deleted));
+    }
+
+    public void testOverflowIsNotEmptyUntilDrained() {
+        SourceChangeCoalescer coalescer = new SourceChangeCoalescer();
+        coalescer.overflow();
+        assertFalse(coalescer.isEmpty());
+        assertTrue(coalescer.isOverflowed());
+
+        coalescer.drain();
+        assertTrue(coalescer.isEmpty());
+        assertFalse(coalescer.isOverflowed());
+    }
+}
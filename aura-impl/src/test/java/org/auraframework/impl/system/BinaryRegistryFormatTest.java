@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.system;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+
+import org.auraframework.def.ComponentDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.DefDescriptor.DefType;
+import org.auraframework.def.DescriptorFilter;
+import org.auraframework.impl.AuraImplTestCase;
+import org.auraframework.system.DefRegistry;
+import org.auraframework.throwable.AuraRuntimeException;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Round trips registries through {@link BinaryRegistryFormat}.
+ */
+public class BinaryRegistryFormatTest extends AuraImplTestCase {
+
+    public BinaryRegistryFormatTest(String name) {
+        super(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testRoundTrip() throws Exception {
+        DefDescriptor<ComponentDef> firstDesc = DefDescriptorImpl.getInstance("test:binaryFirst", ComponentDef.class);
+        DefDescriptor<ComponentDef> secondDesc = DefDescriptorImpl.getInstance("test:binarySecond",
+                ComponentDef.class);
+        ComponentDef first = vendor.makeComponentDef(firstDesc, null);
+        ComponentDef second = vendor.makeComponentDef(secondDesc, null);
+        DefRegistry<?> registry = new StaticDefRegistryImpl<ComponentDef>(EnumSet.of(DefType.COMPONENT),
+                Sets.newHashSet("markup"), Sets.newHashSet("test"), Lists.newArrayList(first, second));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryRegistryFormat.write(new DefRegistry<?>[] { registry }, out);
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        assertTrue(BinaryRegistryFormat.isBinaryRegistry(buffer));
+
+        DefRegistry<?>[] read = BinaryRegistryFormat.read(buffer);
+        assertEquals(1, read.length);
+        DefRegistry<ComponentDef> lazy = (DefRegistry<ComponentDef>) read[0];
+        assertEquals(EnumSet.of(DefType.COMPONENT), lazy.getDefTypes());
+        assertEquals(Sets.newHashSet("markup"), lazy.getPrefixes());
+        assertEquals(Sets.newHashSet("test"), lazy.getNamespaces());
+
+        assertTrue(lazy.exists(firstDesc));
+        assertEquals(2, lazy.find(new DescriptorFilter("markup://test:binary*")).size());
+        assertEquals(2, lazy.find(DefDescriptorImpl.getInstance("test:*", ComponentDef.class)).size());
+
+        ComponentDef readFirst = lazy.getDef(firstDesc);
+        assertEquals(firstDesc, readFirst.getDescriptor());
+        assertSame("Definitions should only be read once", readFirst, lazy.getDef(firstDesc));
+        assertEquals(secondDesc, lazy.getDef(secondDesc).getDescriptor());
+        assertNull(lazy.getDef(DefDescriptorImpl.getInstance("test:binaryMissing", ComponentDef.class)));
+    }
+
+    public void testSerializedRegistryIsNotBinary() throws Exception {
+        assertFalse(BinaryRegistryFormat.isBinaryRegistry(ByteBuffer.wrap(new byte[] { (byte) 0xac, (byte) 0xed, 0,
+                5 })));
+        try {
+            BinaryRegistryFormat.read(ByteBuffer.wrap(new byte[] { (byte) 0xac, (byte) 0xed, 0, 5 }));
+            fail("Should not read a java serialized stream");
+        } catch (AuraRuntimeException expected) {
+        }
+    }
+}
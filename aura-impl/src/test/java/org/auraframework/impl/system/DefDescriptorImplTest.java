@@ -21,6 +21,7 @@ import org.auraframework.def.ControllerDef;
 import org.auraframework.def.DefDescriptor;
 import org.auraframework.def.DefDescriptor.DefType;
 import org.auraframework.def.LayoutsDef;
+import org.auraframework.def.StyleDef;
 import org.auraframework.def.TypeDef;
 import org.auraframework.impl.AuraImplTestCase;
 import org.auraframework.throwable.AuraRuntimeException;
@@ -237,4 +238,12 @@ public class DefDescriptorImplTest extends AuraImplTestCase {
         testEquals(DefDescriptorImpl.getInstance("aura:text", ApplicationDef.class),
                 vendor.makeComponentDefDescriptor("aura:text"), -1);
     }
+
+    public void testAssociateDescriptorShared() throws Exception {
+        DefDescriptor<ComponentDef> cmp = DefDescriptorImpl.getInstance("fake:sharedAssociate", ComponentDef.class);
+        DefDescriptor<StyleDef> style = DefDescriptorImpl.getAssociateDescriptor(cmp, StyleDef.class, "css");
+
+        assertSame(style, DefDescriptorImpl.getAssociateDescriptor(cmp, StyleDef.class, "css"));
+        assertSame(style, DefDescriptorImpl.getInstance("css://fake.sharedAssociate", StyleDef.class));
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.system;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.auraframework.Aura;
+import org.auraframework.adapter.RegistryAdapter;
+import org.auraframework.def.ComponentDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.impl.AuraImpl;
+import org.auraframework.impl.AuraImplTestCase;
+import org.auraframework.system.AuraContext;
+import org.auraframework.system.DefRegistry;
+import org.auraframework.throwable.quickfix.InvalidDefinitionException;
+import org.mockito.Mockito;
+
+import com.google.common.collect.Lists;
+
+public class DefPrefetcherTest extends AuraImplTestCase {
+    private ExecutorService executor;
+    private RegistryTrie registries;
+    private DefPrefetcher prefetcher;
+
+    public DefPrefetcherTest(String name) {
+        super(name);
+    }
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        AuraContext context = Aura.getContextService().getCurrentContext();
+        List<DefRegistry<?>> all = Lists.newArrayList();
+        for (RegistryAdapter provider : AuraImpl.getRegistryAdapters()) {
+            DefRegistry<?>[] provided = provider.getRegistries(context.getMode(), context.getAccess(), null);
+            if (provided != null) {
+                all.addAll(Lists.newArrayList(provided));
+            }
+        }
+        registries = new RegistryTrie(all.toArray(new DefRegistry<?>[all.size()]));
+        executor = Executors.newFixedThreadPool(2);
+        prefetcher = new DefPrefetcher(context, registries.getAllRegistries(), new ReentrantReadWriteLock(), executor);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        super.tearDown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <D extends ComponentDef> DefRegistry<D> getRegistry(DefDescriptor<D> descriptor) {
+        return (DefRegistry<D>) registries.getRegistryFor(descriptor);
+    }
+
+    public void testFetchMatchesRegistry() throws Exception {
+        DefDescriptor<ComponentDef> first = addSourceAutoCleanup(ComponentDef.class,
+                "<aura:component><aura:attribute name='label' type='String'/>{!v.label}</aura:component>");
+        DefDescriptor<ComponentDef> second = addSourceAutoCleanup(ComponentDef.class,
+                "<aura:component><div>second</div></aura:component>");
+        AuraContext context = Aura.getContextService().getCurrentContext();
+
+        prefetcher.submit(first, getRegistry(first));
+        prefetcher.submit(second, getRegistry(second));
+        assertTrue(prefetcher.isPending(first));
+
+        ComponentDef def = prefetcher.get(first, getRegistry(first));
+        assertFalse("Picked up fetch should no longer be pending", prefetcher.isPending(first));
+        assertEquals(first, def.getDescriptor());
+        assertEquals(getRegistry(first).getDef(first).getOwnHash(), def.getOwnHash());
+        assertNotNull(def.getAttributeDef("label"));
+        assertEquals(second, prefetcher.get(second, getRegistry(second)).getDescriptor());
+        assertSame("Fetching changed the compiling context", context, Aura.getContextService().getCurrentContext());
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testFetchRethrowsQuickFix() throws Exception {
+        DefDescriptor<ComponentDef> desc = addSourceAutoCleanup(ComponentDef.class, "<aura:component/>");
+        InvalidDefinitionException broken = new InvalidDefinitionException("broken", null);
+        DefRegistry<ComponentDef> registry = Mockito.mock(DefRegistry.class);
+        Mockito.when(registry.getDef(desc)).thenThrow(broken);
+
+        prefetcher.submit(desc, registry);
+        try {
+            prefetcher.get(desc, registry);
+            fail("Expected the fetch to fail");
+        } catch (InvalidDefinitionException expected) {
+            assertSame(broken, expected);
+        }
+    }
+
+    public void testCancelDropsPending() throws Exception {
+        DefDescriptor<ComponentDef> desc = addSourceAutoCleanup(ComponentDef.class, "<aura:component/>");
+
+        prefetcher.submit(desc, getRegistry(desc));
+        prefetcher.cancel();
+        assertFalse(prefetcher.isPending(desc));
+    }
+}
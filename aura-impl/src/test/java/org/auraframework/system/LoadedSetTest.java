@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.system;
+
+import java.util.Map;
+
+import org.auraframework.Aura;
+import org.auraframework.def.ApplicationDef;
+import org.auraframework.def.ComponentDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.impl.AuraImplTestCase;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+public class LoadedSetTest extends AuraImplTestCase {
+    public LoadedSetTest(String name) {
+        super(name);
+    }
+
+    public void testParse() {
+        Map<String, String> loaded = Maps.newHashMap();
+        loaded.put("APPLICATION@markup://aura:application", "app-uid");
+        loaded.put("COMPONENT@markup://aura:component", "cmp-uid");
+        loaded.put("COMPONENT@markup://aura:text", "null");
+        loaded.put("BOGUS@markup://aura:html", "bogus-uid");
+        loaded.put("markup://aura:html", "nokey-uid");
+
+        LoadedSet set = LoadedSet.parse(loaded);
+        DefDescriptor<ApplicationDef> app = Aura.getDefinitionService().getDefDescriptor("aura:application",
+                ApplicationDef.class);
+        DefDescriptor<ComponentDef> cmp = Aura.getDefinitionService().getDefDescriptor("aura:component",
+                ComponentDef.class);
+        assertEquals(ImmutableMap.of(app, "app-uid", cmp, "cmp-uid"), set.getUids());
+        assertEquals(ImmutableMap.of("APPLICATION@markup://aura:application", "app-uid",
+                "COMPONENT@markup://aura:component", "cmp-uid"), set.getSerialized());
+    }
+
+    public void testInterned() {
+        Map<String, String> loaded = Maps.newHashMap();
+        loaded.put("COMPONENT@markup://aura:component", "cmp-uid");
+        LoadedSet set = LoadedSet.parse(loaded);
+
+        assertSame(set, LoadedSet.parse(Maps.newHashMap(loaded)));
+        assertSame(set, LoadedSet.of(Maps.newHashMap(set.getUids())));
+        assertSame("Serialized form should be reused", set.getSerialized(), LoadedSet.of(set.getUids())
+                .getSerialized());
+    }
+
+    public void testOfWithNullUid() {
+        DefDescriptor<ComponentDef> cmp = Aura.getDefinitionService().getDefDescriptor("aura:component",
+                ComponentDef.class);
+        Map<DefDescriptor<?>, String> uids = Maps.newHashMap();
+        uids.put(cmp, null);
+        LoadedSet set = LoadedSet.of(uids);
+
+        assertTrue(set.getUids().containsKey(cmp));
+        assertNull(set.getSerialized().get("COMPONENT@markup://aura:component"));
+        assertTrue(LoadedSet.of(Maps.<DefDescriptor<?>, String> newHashMap()).isEmpty());
+    }
+}
@@ -40,6 +40,7 @@ import org.auraframework.def.RendererDef;
 import org.auraframework.def.ResourceDef;
 import org.auraframework.def.TestSuiteDef;
 import org.auraframework.def.StyleDef;
+import org.auraframework.impl.system.BinaryRegistryFormat;
 import org.auraframework.impl.system.StaticDefRegistryImpl;
 import org.auraframework.service.DefinitionService;
 import org.auraframework.system.AuraContext.Access;
@@ -55,22 +56,39 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 public class RegistrySerializer {
+    /**
+     * Command line flag selecting the {@link BinaryRegistryFormat} output.
+     */
+    public static final String BINARY_FLAG = "--binary";
+
     private final String[] namespaces;
     private final String outputFile;
+    private final boolean binary;
 
     private final List<String> templateStyles = Lists.newArrayList();
 
     public RegistrySerializer(String outputFile, String[] namespaces) {
+        this(outputFile, namespaces, false);
+    }
+
+    /**
+     * @param binary write the indexed, lazily loadable {@link BinaryRegistryFormat} instead of java serialization.
+     */
+    public RegistrySerializer(String outputFile, String[] namespaces, boolean binary) {
         this.outputFile = outputFile;
         this.namespaces = namespaces;
+        this.binary = binary;
     }
 
     public void write(OutputStream out) throws QuickFixException, IOException {
         ObjectOutputStream objectOut = null;
         try {
-            objectOut = new ObjectOutputStream(out);
-            objectOut.writeObject(getRegistries(namespaces));
-
+            if (binary) {
+                BinaryRegistryFormat.write(getRegistries(namespaces), out);
+            } else {
+                objectOut = new ObjectOutputStream(out);
+                objectOut.writeObject(getRegistries(namespaces));
+            }
         } finally {
             out.close();
         }
@@ -179,14 +197,23 @@ public class RegistrySerializer {
         }
     }
 
+    /**
+     * Usage: RegistrySerializer [--binary] outputFile namespace...
+     */
     public static void main(String[] args) {
-        String outputFile = args[0];
-        String[] namespaces = new String[args.length - 1];
-        for (int i = 1; i < args.length; i++) {
-            namespaces[i - 1] = args[i];
+        int first = 0;
+        boolean binary = false;
+        if (args.length > 0 && BINARY_FLAG.equals(args[0])) {
+            binary = true;
+            first = 1;
+        }
+        String outputFile = args[first];
+        String[] namespaces = new String[args.length - first - 1];
+        for (int i = first + 1; i < args.length; i++) {
+            namespaces[i - first - 1] = args[i];
         }
         try {
-            new RegistrySerializer(outputFile, namespaces).execute();
+            new RegistrySerializer(outputFile, namespaces, binary).execute();
         } catch (Throwable t) {
             throw new AuraRuntimeException(t);
         }
@@ -15,6 +15,7 @@
  */
 package org.auraframework.util;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
@@ -24,6 +25,8 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.ObjectArrays;
 
 /**
@@ -41,7 +44,24 @@ public class AuraTextUtil {
             "\u2029", "\u0000", "*/" };
     private static final String[] JSON_OUT = new String[] { "\\\\", "\\n", "\\r", "\\t", "\\\"", "\\u0021--",
             "\\u003C", "\\u003E", "\\n", "\\u2029", "", "\\u002A/" };
-    private static final TrieMatcher JSON_SEARCH_REPLACE = TrieMatcher.compile(JSON_IN, JSON_OUT);
+
+    /**
+     * Replacement for each ASCII character that {@link #JSON_IN} escapes on its own, null for the rest. '!' and '*'
+     * only start a sequence, they are looked at in {@link #jsonEscapeAt(String, int)}. The line and paragraph
+     * separators are checked there too.
+     */
+    private static final String[] JSON_ESCAPES = new String[128];
+    static {
+        for (int i = 0; i < JSON_IN.length; i++) {
+            if (JSON_IN[i].length() == 1 && JSON_IN[i].charAt(0) < 128) {
+                JSON_ESCAPES[JSON_IN[i].charAt(0)] = JSON_OUT[i];
+            }
+        }
+    }
+    private static final String JSON_BANG_ESCAPE = "\\u0021--";
+    private static final String JSON_STAR_ESCAPE = "\\u002A/";
+    private static final String JSON_LS_ESCAPE = "\\n";
+    private static final String JSON_PS_ESCAPE = "\\u2029";
 
     //
     // Note that unicode 2028 is encoded as a raw newline. This means that putting it in a string will break,
@@ -68,6 +88,8 @@ public class AuraTextUtil {
             ObjectArrays.concat(ESCAPED_HTML, new String[] { "<br>", "<br/>" }, String.class),
             ObjectArrays.concat(ESCAPED_TEXT, new String[] { "\n", "\n" }, String.class));
 
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
     /**
      * Makes the first letter of the input string lower case.
      */
@@ -188,7 +210,97 @@ public class AuraTextUtil {
      * Properly escapes string for JSON.
      */
     public static String escapeForJSONString(String in) {
-        return TrieMatcher.replaceMultiple(in, JSON_SEARCH_REPLACE);
+        if (in == null) {
+            return null;
+        }
+        int first = indexOfJSONEscape(in, 0);
+        if (first < 0) {
+            return in;
+        }
+        StringBuilder sb = new StringBuilder(in.length() + 16);
+        try {
+            escapeForJSONString(in, first, sb);
+        } catch (IOException ioe) {
+            // StringBuilder does not throw.
+            throw new AssertionError(ioe);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Escapes a string for JSON straight into out, the same as {@link #escapeForJSONString(String)} but without
+     * building the escaped string. Runs of characters that need no escaping are appended in one call.
+     *
+     * @param in the string to escape
+     * @param out where to write the escaped string
+     * @throws IOException if out does
+     */
+    public static void escapeForJSONString(String in, Appendable out) throws IOException {
+        int first = indexOfJSONEscape(in, 0);
+        if (first < 0) {
+            out.append(in);
+        } else {
+            escapeForJSONString(in, first, out);
+        }
+    }
+
+    private static void escapeForJSONString(String in, int first, Appendable out) throws IOException {
+        int length = in.length();
+        int start = 0;
+        int i = first;
+        while (i >= 0) {
+            String escape = jsonEscapeAt(in, i);
+            if (i > start) {
+                out.append(in, start, i);
+            }
+            out.append(escape);
+            // the sequences replaced as a whole are the only ones longer than a character.
+            start = i + (escape == JSON_BANG_ESCAPE ? 3 : escape == JSON_STAR_ESCAPE ? 2 : 1);
+            i = indexOfJSONEscape(in, start);
+        }
+        if (start < length) {
+            out.append(in, start, length);
+        }
+    }
+
+    /**
+     * @return the index of the next character at which something needs to be escaped, or -1.
+     */
+    private static int indexOfJSONEscape(String in, int from) {
+        int length = in.length();
+        for (int i = from; i < length; i++) {
+            if (jsonEscapeAt(in, i) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the replacement for whatever starts at index i, or null if it is written as is.
+     */
+    private static String jsonEscapeAt(String in, int i) {
+        char c = in.charAt(i);
+        if (c < 128) {
+            String escape = JSON_ESCAPES[c];
+            if (escape != null) {
+                return escape;
+            }
+            if (c == '!') {
+                return in.startsWith("--", i + 1) ? JSON_BANG_ESCAPE : null;
+            }
+            if (c == '*') {
+                return in.startsWith("/", i + 1) ? JSON_STAR_ESCAPE : null;
+            }
+            return null;
+        }
+        if (c == '\u2028') {
+            return JSON_LS_ESCAPE;
+        }
+        if (c == '\u2029') {
+            return JSON_PS_ESCAPE;
+        }
+        return null;
     }
 
     /**
@@ -619,6 +731,20 @@ public class AuraTextUtil {
         return a;
     }
 
+    /**
+     * Get a shared instance of a string, for strings that many long lived objects hold, like namespaces and file
+     * names. Unlike {@link String#intern()}, strings that are no longer used can be collected.
+     * 
+     * @param in the string, may be null.
+     * @return an equal string, the same instance for every equal string passed in.
+     */
+    public static String intern(String in) {
+        if (in == null) {
+            return null;
+        }
+        return STRINGS.intern(in);
+    }
+
     /**
      * case insensitive string search over a collection of strings
      * 
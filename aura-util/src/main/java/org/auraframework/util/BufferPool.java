@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.util;
+
+import java.lang.ref.SoftReference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pools of string builders and byte buffers, for the large buffers that responses are put together in.
+ *
+ * Buffers are pooled by size class. A buffer is taken with one of the get methods and must be given back with
+ * {@link #release(StringBuilder)} or {@link #release(byte[])} once nothing refers to it any more, usually in a finally
+ * block after its contents have been copied out. A string builder that grew while it was in use goes back into the
+ * largest class it now fits, so the next caller starts with the room the last one needed. Each class keeps buffers up
+ * to a limit on their total size, so it keeps fewer of the builders that grew, and buffers larger than the largest
+ * class are left to the garbage collector. The buffers a class keeps are only softly held, so they are given up when
+ * memory runs low.
+ */
+public final class BufferPool {
+    private static final int[] CHAR_SIZES = { 16 * 1024, 256 * 1024, 2 * 1024 * 1024 };
+    private static final int[] CHAR_LIMITS = { 16 * 16 * 1024, 8 * 256 * 1024, 2 * 2 * 1024 * 1024 };
+    private static final int MAX_CHARS = 4 * 1024 * 1024;
+
+    private static final int[] BYTE_SIZES = { 8 * 1024, 64 * 1024 };
+    private static final int[] BYTE_LIMITS = { 64 * 8 * 1024, 16 * 64 * 1024 };
+
+    private static final SizeClass<StringBuilder>[] builders = newClasses(CHAR_SIZES, CHAR_LIMITS);
+    private static final SizeClass<byte[]>[] bytes = newClasses(BYTE_SIZES, BYTE_LIMITS);
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong oversize = new AtomicLong();
+
+    private static class Pooled<T> extends SoftReference<T> {
+        private final int size;
+
+        private Pooled(T buffer, int size) {
+            super(buffer);
+            this.size = size;
+        }
+    }
+
+    private static class SizeClass<T> {
+        private final int size;
+        private final int limit;
+        private final Queue<Pooled<T>> free = new ConcurrentLinkedQueue<Pooled<T>>();
+        private final AtomicInteger total = new AtomicInteger();
+
+        private SizeClass(int size, int limit) {
+            this.size = size;
+            this.limit = limit;
+        }
+
+        private T poll() {
+            Pooled<T> pooled;
+            while ((pooled = free.poll()) != null) {
+                total.addAndGet(-pooled.size);
+                T buffer = pooled.get();
+                if (buffer != null) {
+                    return buffer;
+                }
+            }
+            return null;
+        }
+
+        private void offer(T buffer, int bufferSize) {
+            if (total.addAndGet(bufferSize) > limit) {
+                total.addAndGet(-bufferSize);
+                return;
+            }
+            free.offer(new Pooled<T>(buffer, bufferSize));
+        }
+    }
+
+    private BufferPool() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> SizeClass<T>[] newClasses(int[] sizes, int[] limits) {
+        SizeClass<T>[] classes = new SizeClass[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            classes[i] = new SizeClass<T>(sizes[i], limits[i]);
+        }
+        return classes;
+    }
+
+    /**
+     * Get an empty string builder from the smallest class.
+     */
+    public static StringBuilder getStringBuilder() {
+        return getStringBuilder(0);
+    }
+
+    /**
+     * Get an empty string builder.
+     *
+     * @param expected the number of characters expected, the builder will be at least this large.
+     * @return the builder, to be given back with {@link #release(StringBuilder)}.
+     */
+    public static StringBuilder getStringBuilder(int expected) {
+        SizeClass<StringBuilder> sizeClass = findClass(builders, expected);
+        if (sizeClass == null) {
+            oversize.incrementAndGet();
+            return new StringBuilder(expected);
+        }
+        StringBuilder sb = sizeClass.poll();
+        if (sb == null) {
+            misses.incrementAndGet();
+            return new StringBuilder(sizeClass.size);
+        }
+        hits.incrementAndGet();
+        return sb;
+    }
+
+    /**
+     * Give back a string builder. It must not be used afterwards.
+     *
+     * @param sb the builder, may be null.
+     */
+    public static void release(StringBuilder sb) {
+        if (sb == null) {
+            return;
+        }
+        int capacity = sb.capacity();
+        if (capacity > MAX_CHARS) {
+            oversize.incrementAndGet();
+            return;
+        }
+        SizeClass<StringBuilder> sizeClass = fitClass(builders, capacity);
+        if (sizeClass != null) {
+            sb.setLength(0);
+            sizeClass.offer(sb, capacity);
+        }
+    }
+
+    /**
+     * Get a byte buffer.
+     *
+     * @param size the smallest size wanted, the buffer may be larger.
+     * @return the buffer, with undefined contents, to be given back with {@link #release(byte[])}.
+     */
+    public static byte[] getBytes(int size) {
+        SizeClass<byte[]> sizeClass = findClass(bytes, size);
+        if (sizeClass == null) {
+            oversize.incrementAndGet();
+            return new byte[size];
+        }
+        byte[] buffer = sizeClass.poll();
+        if (buffer == null) {
+            misses.incrementAndGet();
+            return new byte[sizeClass.size];
+        }
+        hits.incrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Give back a byte buffer. It must not be used afterwards. Buffers that did not come from the pool are ignored.
+     *
+     * @param buffer the buffer, may be null.
+     */
+    public static void release(byte[] buffer) {
+        if (buffer == null) {
+            return;
+        }
+        SizeClass<byte[]> sizeClass = fitClass(bytes, buffer.length);
+        if (sizeClass != null && sizeClass.size == buffer.length) {
+            sizeClass.offer(buffer, buffer.length);
+        }
+    }
+
+    /**
+     * @return the number of buffers handed out from the pool.
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of buffers that had to be made because their class was empty.
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of buffers made or given back that were too large to pool.
+     */
+    public static long getOversizeCount() {
+        return oversize.get();
+    }
+
+    /**
+     * @return the smallest class that holds the size, or null if none does.
+     */
+    private static <T> SizeClass<T> findClass(SizeClass<T>[] classes, int size) {
+        for (SizeClass<T> sizeClass : classes) {
+            if (sizeClass.size >= size) {
+                return sizeClass;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the largest class a buffer of the size is big enough for, or null if it is smaller than all of them.
+     */
+    private static <T> SizeClass<T> fitClass(SizeClass<T>[] classes, int size) {
+        for (int i = classes.length - 1; i >= 0; i--) {
+            if (classes[i].size <= size) {
+                return classes[i];
+            }
+        }
+        return null;
+    }
+}
@@ -39,7 +39,12 @@ import com.google.common.base.Preconditions;
 public class IOUtil {
 
     public static long copyStream(InputStream in, OutputStream out) throws IOException {
-        return copyStream(in, out, new byte[8192]);
+        byte[] buf = BufferPool.getBytes(8192);
+        try {
+            return copyStream(in, out, buf);
+        } finally {
+            BufferPool.release(buf);
+        }
     }
 
     public static long copyStream(InputStream in, OutputStream out, byte[] buf) throws IOException {
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A Writer that encodes straight to UTF-8 bytes in its own buffer, the counterpart of {@link Utf8InputStreamReader}.
+ * <br>
+ * <br>
+ * Unlike OutputStreamWriter, appending part of a CharSequence does not make a String of that part first, and there
+ * is no CharsetEncoder in between, so serializers that append runs of a larger string (like JSON escaping) do not
+ * allocate per run. The buffer is written to the wrapped OutputStream when full, on {@link #flush()} and on
+ * {@link #close()}.<br>
+ * <br>
+ * Surrogate pairs are encoded as one 4-byte character, even when split across calls. Unpaired surrogates are written
+ * as '?', as OutputStreamWriter does.
+ */
+@NotThreadSafe
+public class Utf8OutputStreamWriter extends Writer {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+
+    /**
+     * High surrogate waiting for its pair, or 0.
+     */
+    private char highSurrogate;
+
+    public Utf8OutputStreamWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public Utf8OutputStreamWriter(OutputStream out, int bufferSize) {
+        if (bufferSize < 4) {
+            throw new IllegalArgumentException("Buffer must hold at least one character");
+        }
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        writeChar((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            writeChar(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            writeChar(str.charAt(i));
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        if (csq == null) {
+            csq = "null";
+        }
+        for (int i = start; i < end; i++) {
+            writeChar(csq.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public Writer append(char c) throws IOException {
+        writeChar(c);
+        return this;
+    }
+
+    private void writeChar(char c) throws IOException {
+        if (count + 4 > buffer.length) {
+            flushBuffer();
+        }
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int cp = Character.toCodePoint(high, c);
+                buffer[count++] = (byte) (0xf0 | (cp >> 18));
+                buffer[count++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buffer[count++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buffer[count++] = (byte) (0x80 | (cp & 0x3f));
+                return;
+            }
+            buffer[count++] = '?';
+            writeChar(c);
+            return;
+        }
+        if (c < 0x80) {
+            buffer[count++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[count++] = (byte) (0xc0 | (c >> 6));
+            buffer[count++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer[count++] = '?';
+        } else {
+            buffer[count++] = (byte) (0xe0 | (c >> 12));
+            buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            buffer[count++] = (byte) (0x80 | (c & 0x3f));
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    /**
+     * Writes out buffered bytes and flushes the stream. A pending high surrogate is kept, in case its pair comes next.
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            if (count + 1 > buffer.length) {
+                flushBuffer();
+            }
+            buffer[count++] = '?';
+        }
+        flushBuffer();
+        out.close();
+    }
+}
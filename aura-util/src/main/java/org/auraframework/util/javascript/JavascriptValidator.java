@@ -18,9 +18,14 @@ package org.auraframework.util.javascript;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import javax.script.Invocable;
@@ -29,20 +34,116 @@ import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 import org.auraframework.util.IOUtil;
+import org.auraframework.util.text.Hash;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * validates some javascript using jslint
+ *
+ * Loading jslint is slow, so script engines with it loaded are kept in a pool shared by all validators, which are
+ * cheap to create. Each engine is used by one thread at a time, so up to {@link #MAX_ENGINES} sources can be
+ * validated in parallel. Results are cached by file name, options and a hash of the source, so unchanged files are
+ * only linted once.
  */
 public class JavascriptValidator {
     public static final String JSLINT = "jslint.js";
     public static final String JSLINT_HELPER = "jslint_helper.js";
 
-    private final ScriptEngineManager manager = new ScriptEngineManager();
-    private final ScriptEngine engine = manager.getEngineByName("js");
+    /**
+     * The most engines kept, and so the most validations run at once.
+     */
+    public static final int MAX_ENGINES = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * How long to wait for an engine to be given back before checking whether one can be loaded instead, as the
+     * thread loading an engine may have failed.
+     */
+    private static final long WAIT_MILLIS = 250;
+
     private static final Pattern newlinePattern = Pattern.compile("\\r?\\n");
 
+    private static final BlockingQueue<ScriptEngine> engines = new LinkedBlockingQueue<ScriptEngine>();
+    private static final AtomicInteger engineCount = new AtomicInteger();
+
+    private static final Cache<String, List<JavascriptProcessingError>> results = CacheBuilder.newBuilder()
+            .maximumSize(4096).build();
+
     public JavascriptValidator() throws IOException {
+        // make sure jslint loads, so that problems show up here rather than on the first validation.
+        releaseEngine(acquireEngine());
+    }
 
+    public List<JavascriptProcessingError> validate(String filename, String source, boolean allowDebugger,
+            boolean allowUnfilteredForIn) {
+        if (source == null) {
+            source = "";
+        }
+        Hash.StringBuilder hash = new Hash.StringBuilder();
+        hash.addString(source);
+        String key = String.format("%s|%b|%b|%s", filename, allowDebugger, allowUnfilteredForIn, hash.build());
+
+        List<JavascriptProcessingError> errors = results.getIfPresent(key);
+        if (errors == null) {
+            ScriptEngine engine;
+            try {
+                engine = acquireEngine();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            try {
+                errors = runJSLint(engine, filename, source, allowDebugger, allowUnfilteredForIn);
+            } finally {
+                releaseEngine(engine);
+            }
+            results.put(key, errors);
+        }
+        return new ArrayList<JavascriptProcessingError>(errors);
+    }
+
+    /**
+     * Get an engine from the pool, loading a new one if there are fewer than {@link #MAX_ENGINES}, or waiting for one
+     * otherwise. A load that fails gives its place back, so waiters check again now and then whether they can load
+     * one themselves.
+     */
+    private static ScriptEngine acquireEngine() throws IOException {
+        while (true) {
+            ScriptEngine engine = engines.poll();
+            if (engine != null) {
+                return engine;
+            }
+            if (engineCount.incrementAndGet() <= MAX_ENGINES) {
+                boolean loaded = false;
+                try {
+                    engine = loadEngine();
+                    loaded = true;
+                    return engine;
+                } finally {
+                    if (!loaded) {
+                        engineCount.decrementAndGet();
+                    }
+                }
+            }
+            engineCount.decrementAndGet();
+            try {
+                engine = engines.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a jslint engine");
+            }
+            if (engine != null) {
+                return engine;
+            }
+        }
+    }
+
+    private static void releaseEngine(ScriptEngine engine) {
+        engines.add(engine);
+    }
+
+    private static ScriptEngine loadEngine() throws IOException {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("js");
         InputStreamReader jsLintReader = new InputStreamReader(JavascriptValidator.class.getResourceAsStream(JSLINT));
         InputStreamReader helperReader = new InputStreamReader(
                 JavascriptValidator.class.getResourceAsStream(JSLINT_HELPER));
@@ -55,23 +156,15 @@ public class JavascriptValidator {
             jsLintReader.close();
             helperReader.close();
         }
-    }
-
-    public List<JavascriptProcessingError> validate(String filename, String source, boolean allowDebugger,
-            boolean allowUnfilteredForIn) {
-        return runJSLint(filename, source, allowDebugger, allowUnfilteredForIn);
+        return engine;
     }
 
     @SuppressWarnings("unchecked")
-    private List<JavascriptProcessingError> runJSLint(String filename, String source, boolean allowDebugger,
-            boolean allowUnfilteredForIn) {
+    private static List<JavascriptProcessingError> runJSLint(ScriptEngine engine, String filename, String source,
+            boolean allowDebugger, boolean allowUnfilteredForIn) {
         try {
             List<JavascriptProcessingError> errors = new ArrayList<JavascriptProcessingError>();
 
-            if (source == null) {
-                source = "";
-            }
-
             String[] src = newlinePattern.split(source);
 
             List<Map<String, ?>> lintErrors = (List<Map<String, ?>>) ((Invocable) engine).invokeFunction(
@@ -18,17 +18,28 @@ package org.auraframework.util.javascript.directive;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.auraframework.util.javascript.CommonJavascriptGroupImpl;
 import org.auraframework.util.javascript.JavascriptProcessingError;
 import org.auraframework.util.javascript.JavascriptValidator;
+import org.auraframework.util.javascript.JavascriptWriter;
 import org.auraframework.util.text.Hash;
 
 /**
@@ -91,11 +102,23 @@ public class DirectiveBasedJavascriptGroup extends CommonJavascriptGroupImpl {
     // name for threads that compress and write the output
     public static final String THREAD_NAME = "jsgen.";
 
+    // name for threads that validate
+    public static final String LINT_THREAD_NAME = "jslint.";
+
     private final List<DirectiveType<?>> directiveTypes;
     private final Set<JavascriptGeneratorMode> modes;
     private final File startFile;
-    private CountDownLatch counter;
-    private Map<String, Throwable> errors;
+
+    /**
+     * The most modes generated at once. Each one runs Closure over the whole group, which takes a lot of memory.
+     */
+    public static final int GENERATE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * The hash of what was last compiled into each generated file, by path, so that a file that would come out the
+     * same is not compiled again.
+     */
+    private static final Map<String, String> generatedHashes = new ConcurrentHashMap<String, String>();
 
     // used during parsing, should be clear for storing in memory
     private DirectiveParser parser;
@@ -103,7 +126,6 @@ public class DirectiveBasedJavascriptGroup extends CommonJavascriptGroupImpl {
     public DirectiveBasedJavascriptGroup(String name, File root, String start) throws IOException {
         this(name, root, start, DirectiveTypes.DEFAULT_TYPES, EnumSet.of(JavascriptGeneratorMode.DEVELOPMENT,
                 JavascriptGeneratorMode.PRODUCTION));
-        errors = null;
     }
 
     public DirectiveBasedJavascriptGroup(String name, File root, String start, List<DirectiveType<?>> directiveTypes,
@@ -141,24 +163,122 @@ public class DirectiveBasedJavascriptGroup extends CommonJavascriptGroupImpl {
             validate();
         }
 
-        counter = new CountDownLatch(modes.size());
-        errors = new HashMap<String, Throwable>();
+        // Modes that build the same content for the same writer share one compile.
+        Map<String, Generation> generations = new LinkedHashMap<String, Generation>();
         for (JavascriptGeneratorMode mode : modes) {
-            generateForMode(destRoot, mode);
+            File dest = new File(destRoot, getName() + "_" + mode.getSuffix() + ".js");
+            if (dest.exists() && dest.lastModified() >= getLastMod()) {
+                // its up to date already, skip
+                continue;
+            }
+            String content = buildContent(mode);
+            JavascriptWriter writer = mode.getJavascriptWriter();
+            Hash.StringBuilder hashBuilder = new Hash.StringBuilder();
+            hashBuilder.addString(writer.name());
+            hashBuilder.addString(content);
+            String hash = hashBuilder.build().toString();
+            if (dest.exists()) {
+                if (hash.equals(generatedHashes.get(dest.getPath()))) {
+                    // the output would be the same, so just mark it as current.
+                    dest.setLastModified(System.currentTimeMillis());
+                    continue;
+                }
+                dest.delete();
+            }
+            dest.getParentFile().mkdirs();
+            Generation generation = generations.get(hash);
+            if (generation == null) {
+                generation = new Generation(mode, content, hash);
+                generations.put(hash, generation);
+            }
+            generation.dests.add(dest);
+        }
+        if (generations.isEmpty()) {
+            return;
         }
+
+        final Map<String, Throwable> errors = new ConcurrentHashMap<String, Throwable>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(GENERATE_THREADS, generations.size()),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, THREAD_NAME + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
         try {
-            counter.await();
+            for (final Generation generation : generations.values()) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            generation.run();
+                        } catch (Throwable t) {
+                            // Store any problems, to be thrown in a composite runtime exception from the main thread.
+                            // Otherwise, they kill this worker thread but are basically ignored.
+                            errors.put(THREAD_NAME + generation.mode, t);
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
         }
         if (!errors.isEmpty()) {
             throw new CompositeRuntimeException("Errors generating javascript for " + getName(), errors);
         }
-        errors = null;
     }
 
+    /**
+     * Validate all files in the group.
+     *
+     * The files are first linted in parallel, which leaves the results in the validator's cache, and then validated
+     * again in order to collect them.
+     */
     public void validate() throws IOException {
-        JavascriptValidator jsv = new JavascriptValidator();
+        final JavascriptValidator jsv = new JavascriptValidator();
+        final List<Callable<List<JavascriptProcessingError>>> lints = new ArrayList<Callable<List<JavascriptProcessingError>>>();
+        parser.validate(new JavascriptValidator() {
+            @Override
+            public List<JavascriptProcessingError> validate(final String filename, final String source,
+                    final boolean allowDebugger, final boolean allowUnfilteredForIn) {
+                lints.add(new Callable<List<JavascriptProcessingError>>() {
+                    @Override
+                    public List<JavascriptProcessingError> call() {
+                        return jsv.validate(filename, source, allowDebugger, allowUnfilteredForIn);
+                    }
+                });
+                return Collections.emptyList();
+            }
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(JavascriptValidator.MAX_ENGINES,
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, LINT_THREAD_NAME + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        try {
+            executor.invokeAll(lints);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while validating " + getName());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Anything that failed above fails again here, on this thread.
         List<JavascriptProcessingError> errors = parser.validate(jsv);
         if (!errors.isEmpty()) {
             StringBuilder errorSb = new StringBuilder();
@@ -170,45 +290,37 @@ public class DirectiveBasedJavascriptGroup extends CommonJavascriptGroupImpl {
         }
     }
 
-    protected void generateForMode(File destRoot, final JavascriptGeneratorMode mode) throws IOException {
-        final File dest = new File(destRoot, getName() + "_" + mode.getSuffix() + ".js");
-        if (dest.exists()) {
-            if (dest.lastModified() < getLastMod()) {
-                dest.delete();
-            } else {
-                // its up to date already, skip
-                counter.countDown();
-                return;
-            }
+    /**
+     * One compile, written to the files of all modes that share it.
+     */
+    private static class Generation {
+        private final JavascriptGeneratorMode mode;
+        private final String content;
+        private final String hash;
+        private final List<File> dests = new ArrayList<File>();
+
+        private Generation(JavascriptGeneratorMode mode, String content, String hash) {
+            this.mode = mode;
+            this.content = content;
+            this.hash = hash;
         }
-        dest.getParentFile().mkdirs();
-        final String everything = buildContent(mode);
-        final String threadName = THREAD_NAME + mode;
-        Thread t = new Thread(new Runnable() {
-            @Override
-            public void run() {
+
+        private void run() throws IOException {
+            StringWriter compressed = new StringWriter(content.length());
+            mode.getJavascriptWriter().compress(content, compressed, dests.get(0).getName());
+            compressed.write('\n');
+            String output = compressed.toString();
+            for (File dest : dests) {
+                Writer writer = new FileWriter(dest);
                 try {
-                    Writer writer = null;
-                    try {
-                        writer = new FileWriter(dest);
-                        mode.getJavascriptWriter().compress(everything, writer, dest.getName());
-                        writer.write('\n');
-                    } finally {
-                        if (writer != null) {
-                            writer.close();
-                        }
-                        dest.setReadOnly();
-                    }
-                } catch (Throwable t) {
-                    // Store any problems, to be thrown in a composite runtime exception from the main thread.
-                    // Otherwise, they kill this worker thread but are basically ignored.
-                    errors.put(threadName, t);
+                    writer.write(output);
                 } finally {
-                    counter.countDown();
+                    writer.close();
+                    dest.setReadOnly();
                 }
+                generatedHashes.put(dest.getPath(), hash);
             }
-        }, threadName);
-        t.start();
+        }
     }
 
     protected String buildContent(JavascriptGeneratorMode mode) {
@@ -18,7 +18,6 @@ package org.auraframework.util.json;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Inherited;
@@ -41,10 +40,10 @@ import java.util.TimeZone;
 import javax.annotation.Nonnull;
 
 import org.auraframework.util.AuraTextUtil;
+import org.auraframework.util.Utf8OutputStreamWriter;
 import org.auraframework.util.UncloseableOutputStream;
 import org.auraframework.util.json.Json.Serialization.ReferenceType;
 
-import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.io.CountingOutputStream;
@@ -164,6 +163,11 @@ public class Json {
     private CountingOutputStream currentBinaryStream;
     private long currentBinaryStreamLength;
 
+    /**
+     * Set while capturing a fragment, see {@link #capture(JsonSerializationContext, JsonSerializable)}.
+     */
+    private final Capture capture;
+
     /**
      * Create a Json Serialization context object that maintains information
      * about one run. This Object is NOT thread-safe. It should only be used by
@@ -180,8 +184,13 @@ public class Json {
     }
 
     protected Json(Appendable out, OutputStream binaryOutput, JsonSerializationContext context) {
+        this(out, binaryOutput, context, null);
+    }
+
+    private Json(Appendable out, OutputStream binaryOutput, JsonSerializationContext context, Capture capture) {
         this.out = out;
         this.serializationContext = context;
+        this.capture = capture;
 
         // No need to create the maps if we're not doing the ref stuff
         if (this.serializationContext.refSupport()) {
@@ -284,6 +293,24 @@ public class Json {
         }
     }
 
+    /**
+     * Serialize something into a fragment that can be written into other streams later.
+     * 
+     * @param context the serialization context of the streams the fragment will be written to. Formatting must be off,
+     *            as a fragment can't follow the indent of where it ends up.
+     * @param value the value to serialize.
+     * @return the fragment.
+     * @throws IOException if the value could not be serialized.
+     */
+    public static JsonFragment capture(JsonSerializationContext context, JsonSerializable value) throws IOException {
+        if (context.format()) {
+            throw new JsonException("Can't capture a fragment while formatting");
+        }
+        Capture capture = new Capture();
+        value.serialize(new Json(capture.out, null, context, capture));
+        return capture.toFragment(context.refSupport());
+    }
+
     public static String serialize(Object[] result) {
         StringBuilder sb = new StringBuilder(result.length * 16);
         serialize(result, sb);
@@ -349,7 +376,7 @@ public class Json {
         if (out == null) {
             throw new IllegalArgumentException("out must not be null");
         }
-        final Writer writer = new OutputStreamWriter(out, Charsets.UTF_8);
+        final Writer writer = new Utf8OutputStreamWriter(out);
         return new Json(writer, out, context);
     }
 
@@ -376,9 +403,25 @@ public class Json {
         int ret = ++lastRefId;
         Map<Object, Integer> m = rt == ReferenceType.IDENTITY ? identityMap : equalityMap;
         m.put(value, ret);
+        if (capture != null) {
+            capture.references.add(value);
+            capture.referenceTypes.add(rt);
+        }
         return ret;
     }
 
+    /**
+     * Write a serId or serRefId entry, leaving a place for the id when capturing.
+     */
+    private void writeRefEntry(String indicator, int refId) throws IOException {
+        if (capture != null) {
+            writeMapKey(indicator);
+            capture.addId(refId);
+        } else {
+            writeMapEntry(indicator, refId);
+        }
+    }
+
     /**
      * @param value
      * @return The refId previously assigned to the value, or null if none has
@@ -618,13 +661,13 @@ public class Json {
             if ((refId = getRefId(rt, value)) != null) {
                 // Output a simple reference
                 writeMapBegin();
-                writeMapEntry(REF_INDICATOR, refId);
+                writeRefEntry(REF_INDICATOR, refId);
                 writeMapEnd();
             } else {
                 refId = addReference(rt, value);
                 // Now manually output this 2-element map to avoid loop
                 writeMapBegin();
-                writeMapEntry(ID_INDICATOR, refId);
+                writeRefEntry(ID_INDICATOR, refId);
                 writeMapKey(VALUE);
                 serializer.serialize(this, value);
                 writeMapEnd();
@@ -634,6 +677,47 @@ public class Json {
         }
     }
 
+    /**
+     * Write a captured fragment in place of a value.
+     * 
+     * The ids in the fragment follow the ones already written, and the objects it holds serIds for are remembered, as
+     * if the value had been serialized here.
+     * 
+     * @param fragment the fragment, captured with the same reference support as this stream.
+     * @throws IOException
+     */
+    public void writeFragment(JsonFragment fragment) throws IOException {
+        if (fragment.isRefSupported() != serializationContext.refSupport()) {
+            throw new JsonException("Fragment was captured with different reference support");
+        }
+        int base = lastRefId;
+        Object[] references = fragment.getReferences();
+        ReferenceType[] referenceTypes = fragment.getReferenceTypes();
+        for (int i = 0; i < references.length; i++) {
+            Map<Object, Integer> m = referenceTypes[i] == ReferenceType.IDENTITY ? identityMap : equalityMap;
+            if (!m.containsKey(references[i])) {
+                m.put(references[i], base + i + 1);
+            }
+            if (capture != null) {
+                capture.references.add(references[i]);
+                capture.referenceTypes.add(referenceTypes[i]);
+            }
+        }
+        lastRefId += references.length;
+
+        String[] chunks = fragment.getChunks();
+        int[] ids = fragment.getIds();
+        out.append(chunks[0]);
+        for (int i = 0; i < ids.length; i++) {
+            if (capture != null) {
+                capture.addId(base + ids[i]);
+            } else {
+                out.append(Integer.toString(base + ids[i]));
+            }
+            out.append(chunks[i + 1]);
+        }
+    }
+
     /**
      * Just write the value.toString() out. Does not quote the value.
      * 
@@ -652,7 +736,7 @@ public class Json {
      */
     public void writeString(Object value) throws IOException {
         out.append('"');
-        out.append(AuraTextUtil.escapeForJSONString(value.toString()));
+        AuraTextUtil.escapeForJSONString(value.toString(), out);
         out.append('"');
     }
 
@@ -878,7 +962,7 @@ public class Json {
     }
 
     /**
-     * Writes out any buffered characters in the OutputStreamWriter to the
+     * Writes out any buffered characters in the UTF-8 writer to the
      * binary OutputStream and then closes the OutputStream.<br>
      * <br>
      * Note that this method does nothing if Json was not created with an
@@ -978,4 +1062,35 @@ public class Json {
         }
         return config;
     }
+
+    /**
+     * What a stream collects while capturing a fragment.
+     */
+    private static class Capture {
+        private final StringBuilder out = new StringBuilder();
+        private final List<Integer> offsets = Lists.newArrayList();
+        private final List<Integer> ids = Lists.newArrayList();
+        private final List<Object> references = Lists.newArrayList();
+        private final List<ReferenceType> referenceTypes = Lists.newArrayList();
+
+        private void addId(int id) {
+            offsets.add(out.length());
+            ids.add(id);
+        }
+
+        private JsonFragment toFragment(boolean refSupport) {
+            String[] chunks = new String[ids.size() + 1];
+            int[] idArray = new int[ids.size()];
+            int start = 0;
+            for (int i = 0; i < idArray.length; i++) {
+                int end = offsets.get(i);
+                chunks[i] = out.substring(start, end);
+                idArray[i] = ids.get(i);
+                start = end;
+            }
+            chunks[idArray.length] = out.substring(start);
+            return new JsonFragment(chunks, idArray, references.toArray(),
+                    referenceTypes.toArray(new ReferenceType[referenceTypes.size()]), refSupport);
+        }
+    }
 }
@@ -96,7 +96,7 @@ public enum JsonConstant {
         return token;
     }
 
-    public static JsonConstant valueOf(Character c) {
+    public static JsonConstant valueOf(char c) {
 
         JsonConstant ret = null;
         int charVal = c;
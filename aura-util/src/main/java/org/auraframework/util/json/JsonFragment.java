@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.util.json;
+
+import org.auraframework.util.json.Json.Serialization.ReferenceType;
+
+/**
+ * A serialized value that can be written again into any {@link Json} stream.
+ *
+ * Created by {@link Json#capture(JsonSerializationContext, JsonSerializable)} and written with
+ * {@link Json#writeFragment(JsonFragment)}. With reference support on, the serIds and serRefIds in the fragment are
+ * numbered from one, and are shifted past the ids already used when it is written. The objects that got a serId are
+ * kept, so that later values in the same stream can still refer to them.
+ *
+ * Fragments are immutable and may be shared between threads.
+ */
+public final class JsonFragment {
+    private final String[] chunks;
+    private final int[] ids;
+    private final Object[] references;
+    private final ReferenceType[] referenceTypes;
+    private final boolean refSupport;
+    private final int length;
+
+    JsonFragment(String[] chunks, int[] ids, Object[] references, ReferenceType[] referenceTypes,
+            boolean refSupport) {
+        this.chunks = chunks;
+        this.ids = ids;
+        this.references = references;
+        this.referenceTypes = referenceTypes;
+        this.refSupport = refSupport;
+        int total = 0;
+        for (String chunk : chunks) {
+            total += chunk.length();
+        }
+        this.length = total;
+    }
+
+    String[] getChunks() {
+        return chunks;
+    }
+
+    int[] getIds() {
+        return ids;
+    }
+
+    Object[] getReferences() {
+        return references;
+    }
+
+    ReferenceType[] getReferenceTypes() {
+        return referenceTypes;
+    }
+
+    /**
+     * @return true if the fragment was captured with reference support, and can only be written to streams with it.
+     */
+    public boolean isRefSupported() {
+        return refSupport;
+    }
+
+    /**
+     * @return the number of characters in the fragment, not counting the ids.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return the fragment as it would be written to a fresh stream.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(length + ids.length * 2);
+        sb.append(chunks[0]);
+        for (int i = 0; i < ids.length; i++) {
+            sb.append(ids[i]);
+            sb.append(chunks[i + 1]);
+        }
+        return sb.toString();
+    }
+}
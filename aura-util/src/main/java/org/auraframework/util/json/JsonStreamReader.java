@@ -40,7 +40,6 @@ import static org.auraframework.util.json.JsonConstant.WHITESPACE;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PushbackReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.math.BigDecimal;
@@ -90,7 +89,8 @@ import com.google.common.collect.Maps;
  * default json->java mappings:<br>
  * json object(map) ==> java.util.HashMap<String, Object><br>
  * json String ==> java.lang.String<br>
- * json Number ==> java.math.BigDecimal<br>
+ * json Number ==> java.math.BigDecimal (or Long/Double, see
+ * {@link #setPrimitiveNumbersEnabled(boolean)})<br>
  * json boolean ==> boolean<br>
  * json null ==> null<br>
  * json array ==> java.util.ArrayList&lt;Object&gt;<br>
@@ -101,11 +101,26 @@ import com.google.common.collect.Maps;
  * pass in your own implementation of JsonHandlerProvider, and then your
  * JsonHandlers will be used. This allows you to skip the intermediate step of
  * parsing into Maps and Lists, and lets you put the primitives directly into
- * your objects as they are parsed.
+ * your objects as they are parsed.<br>
+ * <br>
+ * Input is read a buffer at a time (except for JSON+binary, where the reader
+ * must not read past the binary data), and strings, keys and numbers that fit in
+ * the buffer are taken straight out of it. Line and column numbers are only
+ * worked out when something asks for them, such as an error message.
  */
 public class JsonStreamReader {
 
     private static final int MAX_LENGTH = 1000000;
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * The most characters that are ever unread in a row. These are kept when the
+     * buffer is refilled.
+     */
+    private static final int MAX_UNREAD = 2;
+
+    private static final int KEY_CACHE_SIZE = 256;
+    private static final int MAX_CACHED_KEY_LENGTH = 32;
     private static JsonHandlerProvider defaultProvider = new JsonHandlerProviderImpl();
     private static Map<Character, Character> escapes = Maps.newHashMapWithExpectedSize(13);
     static {
@@ -122,36 +137,74 @@ public class JsonStreamReader {
         escapes.put('v', '\u000B');
     }
 
-    private final PushbackReader reader;
+    private final Reader reader;
+
+    /**
+     * The current window on the input: buffer[pos] is the next char, buffer[limit]
+     * is past the last one read, buffer[0] is char number bufferStart of the
+     * input.
+     */
+    private final char[] buffer;
+    private int pos = 0;
+    private int limit = 0;
+    private long bufferStart = 0;
+
+    /**
+     * pos past which the input is too long, see {@link #MAX_LENGTH}.
+     */
+    private int posLimit;
+
+    /**
+     * Newlines before the buffer, and the input offset of the last one.
+     */
+    private long linesBeforeBuffer = 0;
+    private long lastNewlineBeforeBuffer = -1;
+
+    /**
+     * Newlines counted up to buffer[scanned], see {@link #scanLines(int)}.
+     */
+    private int scanned = 0;
+    private long scannedLines = 0;
+    private long scannedLastNewline = -1;
+
+    /**
+     * Keys seen by this reader, so repeated keys share one String.
+     */
+    private final String[] keyCache = new String[KEY_CACHE_SIZE];
 
     private JsonConstant currentToken;
     private Object current;
-    private int charNum = 0;
-    private int colNum = 0; // current parse column number
-    private int prevColNum = 0; // max colNum of previously parsed line
-    private int lineNum = 0; // current parse line number
     private JsonHandlerProvider provider;
     private final DataInputStream binaryInput;
     private boolean recursiveRead = true;
     private boolean lengthLimitsEnabled = true;
+    private boolean primitiveNumbersEnabled = false;
 
     public JsonStreamReader(Reader reader, JsonHandlerProvider provider) {
-        this(reader, null, provider);
+        this(reader, null, provider, null);
     }
 
-    private JsonStreamReader(Reader reader, InputStream binaryInput, JsonHandlerProvider provider) {
+    private JsonStreamReader(Reader reader, InputStream binaryInput, JsonHandlerProvider provider, char[] input) {
         if (reader == null) {
             throw new JsonParseException("Reader cannot be null");
         }
-        this.reader = new PushbackReader(reader, 2);
+        this.reader = reader;
         this.binaryInput = binaryInput == null ? null
                 : (binaryInput instanceof DataInputStream ? (DataInputStream) binaryInput : new DataInputStream(
                         binaryInput));
         this.provider = provider;
+        if (input != null) {
+            // the whole input is already in memory, use it as the buffer.
+            this.buffer = input;
+            this.limit = input.length;
+        } else {
+            this.buffer = new char[BUFFER_SIZE];
+        }
+        updatePosLimit();
     }
 
     public JsonStreamReader(String string, JsonHandlerProvider provider) {
-        this(createStringReader(string), null, provider);
+        this(new StringReader(""), null, provider, toCharArray(string));
     }
 
     /**
@@ -192,7 +245,7 @@ public class JsonStreamReader {
      * @param binaryInput The raw InputStream to read from
      */
     public JsonStreamReader(InputStream binaryInput) {
-        this(new Utf8InputStreamReader(binaryInput), binaryInput, null);
+        this(new Utf8InputStreamReader(binaryInput), binaryInput, null, null);
         this.recursiveRead = false;
     }
 
@@ -206,17 +259,32 @@ public class JsonStreamReader {
      */
     public void disableLengthLimitsBecauseIAmStreamingAndMyMemoryUseIsNotProportionalToTheStreamLength() {
         lengthLimitsEnabled = false;
+        updatePosLimit();
     }
 
-    private static StringReader createStringReader(String string) {
+    /**
+     * When true, numbers are read as a Long if they are integers that fit in
+     * one, and as a Double if they have at most 15 significant digits (so the
+     * Double holds exactly what was written) and are in range. Everything else
+     * is still read as a BigDecimal. Defaults to false.
+     */
+    public void setPrimitiveNumbersEnabled(boolean primitiveNumbersEnabled) {
+        this.primitiveNumbersEnabled = primitiveNumbersEnabled;
+    }
+
+    public boolean isPrimitiveNumbersEnabled() {
+        return primitiveNumbersEnabled;
+    }
+
+    private static char[] toCharArray(String string) {
         if (string == null) {
             throw new JsonParseException("String cannot be null");
         }
-        return new StringReader(string);
+        return string.toCharArray();
     }
 
     public JsonStreamReader(Reader reader) {
-        this(reader, null, null);
+        this(reader, null, null, null);
     }
 
     public JsonStreamReader(String string) {
@@ -301,6 +369,12 @@ public class JsonStreamReader {
 
     public BigDecimal getNumber() {
         assertCurrentToken(NUMBER);
+        if (current instanceof Long) {
+            return BigDecimal.valueOf((Long) current);
+        }
+        if (current instanceof Double && !((Double) current).isNaN() && !((Double) current).isInfinite()) {
+            return BigDecimal.valueOf((Double) current);
+        }
         return (BigDecimal) current;
     }
 
@@ -337,16 +411,15 @@ public class JsonStreamReader {
     }
 
     public boolean hasNext() throws IOException {
-        Character c = null;
         try {
+            // this leaves the first char after the whitespace unread, so there is one.
             ignoreWhitespace();
-            c = readChar();
-            unreadChar(c);
+            return true;
         } catch (Exception e) {
             // We may have hit the end of the stream, which in most cases is a
             // bad thing -- except this case.
+            return false;
         }
-        return c != null;
     }
 
     public JsonConstant next() throws IOException {
@@ -405,7 +478,7 @@ public class JsonStreamReader {
         case MULTICOMMENT_DELIM:
             throw new JsonStreamParseException("Illegal '*' token");
         case LITERAL_START:
-            unreadChar(c);
+            unreadChar();
             if (hint == STRING) {
                 current = readLiteralString();
                 token = STRING;
@@ -416,10 +489,10 @@ public class JsonStreamReader {
                     token = BOOLEAN;
                     break;
                 case 'f':
-                    c = readChar();
+                    readChar();
                     char c2 = readChar();
-                    unreadChar(c2);
-                    unreadChar(c);
+                    unreadChar();
+                    unreadChar();
                     if (c2 == 'u') {
                         current = readFunction();
                         token = FUNCTION;
@@ -445,7 +518,7 @@ public class JsonStreamReader {
             break;
         case QUOTE_SINGLE:
         case QUOTE_DOUBLE:
-            current = readString(token, false);
+            current = readString(token, false, hint == STRING);
             token = STRING;
             break;
         case BINARY_STREAM: {
@@ -530,17 +603,17 @@ public class JsonStreamReader {
         if (JsonConstant.valueOf(c) == COMMENT_DELIM) {
             // Peek one more to see if this is a comment or not.
             c = readChar();
-            unreadChar(c);
+            unreadChar();
             if (JsonConstant.valueOf(c) == COMMENT_DELIM || JsonConstant.valueOf(c) == MULTICOMMENT_DELIM) {
                 current = readComment();
                 readWhitespaceAndComments();
             } else {
                 // Just a slash token, not a comment: restore the slash
-                unreadChar(COMMENT_DELIM.getToken());
+                unreadChar();
             }
         } else {
             // We always read one char too many, so step back one.
-            unreadChar(c);
+            unreadChar();
         }
     }
 
@@ -549,7 +622,7 @@ public class JsonStreamReader {
         do {
             c = readChar();
         } while (Character.isWhitespace(c));
-        unreadChar(c);
+        unreadChar();
     }
 
     private Object readObject() throws IOException, JsonEndOfStreamException {
@@ -626,11 +699,32 @@ public class JsonStreamReader {
         return handler.getValue();
     }
 
-    private String readString(JsonConstant delim, boolean keepEscapers) throws IOException, JsonEndOfStreamException {
-        StringBuilder sb = new StringBuilder();
+    private String readString(JsonConstant delim, boolean keepEscapers, boolean isKey) throws IOException,
+            JsonEndOfStreamException {
+        char d = delim.getToken();
+        long start = bufferStart + pos;
+        int end = Math.min(limit, posLimit);
+        int i = pos;
+
+        // Fast path: the whole string is in the buffer and has no escapes.
+        if (!keepEscapers) {
+            while (i < end) {
+                char c = buffer[i];
+                if (c == d) {
+                    String ret = isKey ? toKey(pos, i - pos) : new String(buffer, pos, i - pos);
+                    pos = i + 1;
+                    return ret;
+                } else if (c == '\\') {
+                    break;
+                }
+                i++;
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(Math.max(16, (i - pos) * 2));
+        sb.append(buffer, pos, i - pos);
+        pos = i;
         boolean isEscaped = false;
-        int line = getLineNum();
-        int col = getColNum();
 
         try {
             while (true) {
@@ -654,12 +748,40 @@ public class JsonStreamReader {
                 sb.append(c);
             }
         } catch (JsonEndOfStreamException e) {
-            throw new JsonStreamParseException(String.format("Unterminated string at line %d, column %d: '%s'", line,
-                    col, sb));
+            throw new JsonStreamParseException(String.format("Unterminated string at %s: '%s'",
+                    describePosition(start), sb));
         }
         return sb.toString();
     }
 
+    /**
+     * Make a String of a key in the buffer, reusing the one made for the same
+     * key before if there was one.
+     */
+    private String toKey(int offset, int length) {
+        if (length > MAX_CACHED_KEY_LENGTH) {
+            return new String(buffer, offset, length);
+        }
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (KEY_CACHE_SIZE - 1);
+        String cached = keyCache[slot];
+        if (cached != null && cached.length() == length) {
+            int i = 0;
+            while (i < length && cached.charAt(i) == buffer[offset + i]) {
+                i++;
+            }
+            if (i == length) {
+                return cached;
+            }
+        }
+        String key = new String(buffer, offset, length);
+        keyCache[slot] = key;
+        return key;
+    }
+
     private boolean readTrue() throws IOException, JsonEndOfStreamException {
         consumeWord("true");
         return true;
@@ -708,7 +830,7 @@ public class JsonStreamReader {
                     if (c2 == COMMENT_DELIM.getToken()) {
                         break;
                     } else {
-                        unreadChar(c2);
+                        unreadChar();
                     }
                 }
                 sb.append(c);
@@ -790,11 +912,11 @@ public class JsonStreamReader {
             case QUOTE_DOUBLE:
             case QUOTE_SINGLE:
                 sb.append(c);
-                sb.append(readString(token, true));
+                sb.append(readString(token, true, false));
                 break;
             case COMMENT_DELIM:
                 char delim = readChar();
-                unreadChar(delim);
+                unreadChar();
                 if (delim == COMMENT_DELIM.getToken() || delim == MULTICOMMENT_DELIM.getToken()) {
                     readComment();
                     c = '\n';
@@ -814,35 +936,129 @@ public class JsonStreamReader {
     }
 
     private Number readNumber() throws IOException, JsonEndOfStreamException {
+        int end = Math.min(limit, posLimit);
+        int i = pos;
+        while (i < end && JsonConstant.valueOf(buffer[i]) == LITERAL_START) {
+            i++;
+        }
+        if (i < end && !Character.isWhitespace(buffer[i])) {
+            // Fast path: the number ends inside the buffer.
+            int start = pos;
+            pos = i;
+            return toNumber(buffer, start, i - start);
+        }
+
+        // whitespace after a number is skipped to look for more of it.
         StringBuilder sb = new StringBuilder();
+        sb.append(buffer, pos, i - pos);
+        pos = i;
         while (hasNext()) {
             char c = readChar();
             JsonConstant token = JsonConstant.valueOf(c);
             if ((!token.equals(LITERAL_START))) {
-                unreadChar(c);
+                unreadChar();
                 break;
             } else {
                 sb.append(c);
             }
         }
-        BigDecimal ret;
+        char[] chars = new char[sb.length()];
+        sb.getChars(0, chars.length, chars, 0);
+        return toNumber(chars, 0, chars.length);
+    }
+
+    private Number toNumber(char[] chars, int offset, int length) {
+        boolean negative = chars[offset] == '-';
+        int digitsStart = negative ? offset + 1 : offset;
+        int digitsLength = length - (digitsStart - offset);
+        if (regionMatches(chars, offset, length, "NaN")) {
+            return Double.NaN;
+        } else if (regionMatches(chars, digitsStart, digitsLength, "Infinity")) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+
+        if (primitiveNumbersEnabled) {
+            Number primitive = toPrimitiveNumber(chars, digitsStart, digitsLength, negative);
+            if (primitive != null) {
+                return primitive;
+            }
+        }
+
         try {
-            String s = sb.toString();
-            if (s.equals("NaN")) {
-                return Double.NaN;
-            } else {
-                boolean negative = s.charAt(0) == '-';
-                if ("Infinity".equals(negative ? s.substring(1) : s)) {
-                    return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            return new BigDecimal(chars, offset, length);
+        } catch (NumberFormatException e) {
+            throw new JsonStreamParseException("Attempted to convert \"" + new String(chars, offset, length)
+                    + "\" to BigDecimal\r\n" + e.toString());
+        }
+    }
+
+    /**
+     * @return the number as a Long or Double if it fits without loss, null
+     *         otherwise.
+     */
+    private static Number toPrimitiveNumber(char[] chars, int offset, int length, boolean negative) {
+        int digits = 0;
+        boolean integer = true;
+        boolean nonZero = false;
+        boolean inExponent = false;
+        for (int i = offset; i < offset + length; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                if (!inExponent) {
+                    if (c != '0') {
+                        nonZero = true;
+                    }
+                    if (nonZero) {
+                        digits++;
+                    }
                 }
+            } else if (c == '.') {
+                integer = false;
+            } else if ((c == 'e' || c == 'E') && !inExponent) {
+                integer = false;
+                inExponent = true;
+            } else if (!(inExponent && (c == '-' || c == '+'))) {
+                // let BigDecimal report it
+                return null;
             }
-            ret = new BigDecimal(sb.toString());
-
+        }
+        if (length == 0) {
+            return null;
+        }
+        if (integer) {
+            if (digits > 18) {
+                return null;
+            }
+            long value = 0;
+            for (int i = offset; i < offset + length; i++) {
+                value = value * 10 + (chars[i] - '0');
+            }
+            return Long.valueOf(negative ? -value : value);
+        }
+        if (digits > 15) {
+            return null;
+        }
+        try {
+            double value = Double.parseDouble(new String(chars, offset, length));
+            if (Double.isInfinite(value) || (value == 0 && nonZero)) {
+                return null;
+            }
+            return Double.valueOf(negative ? -value : value);
         } catch (NumberFormatException e) {
-            throw new JsonStreamParseException("Attempted to convert \"" + sb.toString() + "\" to BigDecimal\r\n"
-                    + e.toString());
+            return null;
+        }
+    }
+
+    private static boolean regionMatches(char[] chars, int offset, int length, String s) {
+        if (length != s.length()) {
+            return false;
         }
-        return ret;
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -853,12 +1069,26 @@ public class JsonStreamReader {
      * @throws IOException
      */
     private String readLiteralString() throws IOException, JsonEndOfStreamException {
+        int end = Math.min(limit, posLimit);
+        int i = pos;
+        while (i < end && JsonConstant.valueOf(buffer[i]) == LITERAL_START && buffer[i] != '\\') {
+            i++;
+        }
+        if (i < end && buffer[i] != '\\') {
+            // Fast path: the key ends inside the buffer and has no escapes.
+            String ret = toKey(pos, i - pos);
+            pos = i;
+            return ret;
+        }
+
         StringBuilder sb = new StringBuilder();
+        sb.append(buffer, pos, i - pos);
+        pos = i;
         while (true) {
             char c = readChar();
             JsonConstant token = JsonConstant.valueOf(c);
             if (token != LITERAL_START) {
-                unreadChar(c);
+                unreadChar();
                 break;
             } else if (c == '\\') {
                 c = readEscapedChar();
@@ -869,45 +1099,122 @@ public class JsonStreamReader {
     }
 
     private char readChar() throws IOException, JsonEndOfStreamException {
-        int i = reader.read();
-
-        if (i == -1) {
+        if (pos == limit && !fill()) {
             throw new JsonEndOfStreamException("End of stream unexpectedly reached.");
         }
 
-        charNum++;
+        char c = buffer[pos++];
 
         // If we have a binary input stream and if length limits were disabled,
         // then don't validate the length because
         // we are streaming in, and memory use is supposed to be O(1) with
         // respect to the stream length by callers
         // that are using streaming
-        if (charNum > MAX_LENGTH && lengthLimitsEnabled) {
+        if (pos > posLimit) {
             throw new JsonStreamParseException("Input too long.");
         }
 
-        char c = (char) i;
+        return c;
+    }
 
-        if (c == '\n') {
-            prevColNum = colNum;
-            lineNum++;
-            colNum = 0;
+    /**
+     * Step back over the last char read. Callers never step back more than
+     * {@link #MAX_UNREAD} chars.
+     */
+    private void unreadChar() {
+        pos--;
+    }
+
+    /**
+     * Read more of the input into the buffer, once everything in it has been
+     * read.
+     *
+     * @return false at the end of the input.
+     */
+    private boolean fill() throws IOException {
+        if (limit == buffer.length) {
+            dropConsumed(limit - Math.min(MAX_UNREAD, limit));
+        }
+        int read;
+        if (binaryInput != null) {
+            // binary data follows the json, so nothing past the current char may be read.
+            int c = reader.read();
+            if (c == -1) {
+                return false;
+            }
+            buffer[limit] = (char) c;
+            read = 1;
         } else {
-            colNum++;
+            read = reader.read(buffer, limit, buffer.length - limit);
+            if (read <= 0) {
+                return false;
+            }
         }
+        limit += read;
+        return true;
+    }
 
-        return c;
+    /**
+     * Let go of the first chars of the buffer, counting their lines first.
+     */
+    private void dropConsumed(int count) {
+        if (count == 0) {
+            return;
+        }
+        scanLines(count);
+        linesBeforeBuffer = scannedLines;
+        lastNewlineBeforeBuffer = scannedLastNewline;
+        System.arraycopy(buffer, count, buffer, 0, limit - count);
+        bufferStart += count;
+        limit -= count;
+        pos -= count;
+        scanned = 0;
+        updatePosLimit();
     }
 
-    private void unreadChar(char c) throws IOException {
-        reader.unread(c);
-        charNum--;
-        if (c == '\n') {
-            colNum = prevColNum;
-            lineNum--;
+    private void updatePosLimit() {
+        if (lengthLimitsEnabled) {
+            posLimit = (int) Math.min(Integer.MAX_VALUE, MAX_LENGTH - bufferStart);
         } else {
-            colNum--;
+            posLimit = Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Bring the newline count up (or back) to buffer[to].
+     */
+    private void scanLines(int to) {
+        while (scanned > to) {
+            scanned--;
+            if (buffer[scanned] == '\n') {
+                scannedLines--;
+                scannedLastNewline = lastNewlineBeforeBuffer;
+                for (int i = scanned - 1; i >= 0; i--) {
+                    if (buffer[i] == '\n') {
+                        scannedLastNewline = bufferStart + i;
+                        break;
+                    }
+                }
+            }
+        }
+        for (; scanned < to; scanned++) {
+            if (buffer[scanned] == '\n') {
+                scannedLines++;
+                scannedLastNewline = bufferStart + scanned;
+            }
+        }
+    }
+
+    /**
+     * Describe where an earlier offset in the input is, by line and column if
+     * it is still in the buffer.
+     */
+    private String describePosition(long offset) {
+        if (offset < bufferStart) {
+            return String.format("character %d", offset);
         }
+        scanLines((int) (offset - bufferStart));
+        return String.format("line %d, column %d", scannedLines, offset - scannedLastNewline - 1);
     }
 
     private char readEscapedChar() throws IOException, JsonEndOfStreamException {
@@ -955,7 +1262,7 @@ public class JsonStreamReader {
             if (Character.isLetterOrDigit(c)) {
                 throw new JsonStreamParseException(String.format("Unexpected char %s found", c));
             }
-            unreadChar(c);
+            unreadChar();
         } catch (JsonEndOfStreamException e) {
             // ignore
         }
@@ -980,11 +1287,13 @@ public class JsonStreamReader {
     }
 
     private int getLineNum() {
-        return lineNum;
+        scanLines(pos);
+        return (int) scannedLines;
     }
 
     private int getColNum() {
-        return colNum;
+        scanLines(pos);
+        return (int) (bufferStart + pos - scannedLastNewline - 1);
     }
 
     /**
@@ -19,15 +19,16 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.net.URL;
-import java.util.Comparator;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import org.auraframework.util.javascript.MultiStreamReader;
 import org.auraframework.util.text.Hash;
 
 /**
@@ -50,6 +51,9 @@ public abstract class CommonFileGroup implements FileGroup {
         private long lastMod;
         private Hash groupHash;
 
+        /** Bumped on every change to the file set, so that a hash computed outside the lock can be checked. */
+        private int version;
+
         public StateBundle() {
             bundleLock = new ReentrantReadWriteLock();
             files = new TreeSet<File>();
@@ -64,6 +68,7 @@ public abstract class CommonFileGroup implements FileGroup {
                 files.clear();
                 groupHash = null;
                 lastMod = -1;
+                version += 1;
             } finally {
                 bundleLock.writeLock().unlock();
             }
@@ -102,30 +107,35 @@ public abstract class CommonFileGroup implements FileGroup {
         /**
          * Gets the group hash, computing it if necessary.
          *
+         * The hash is computed outside the lock, from a snapshot of the files, and only kept if the file set did not
+         * change meanwhile.
+         *
          * @returns a non-{@code null} {@link Hash} for the group.
          * @throws java.io.IOException
          */
         public Hash getHash() throws IOException {
-            Hash retVal = null;
+            Set<File> snapshot;
+            int snapshotVersion;
             try {
                 bundleLock.readLock().lock();
-                retVal = groupHash;
+                if (groupHash != null) {
+                    return groupHash;
+                }
+                snapshot = new TreeSet<File>(files);
+                snapshotVersion = version;
             } finally {
                 bundleLock.readLock().unlock();
             }
-            if (retVal == null) { // We hadn't hashed yet, so we need to write.
-                try {
-                    bundleLock.writeLock().lock();
-                    // Re-test for race conditions, maybe somebody else did it already:
-                    if (groupHash == null) {
-                        groupHash = computeGroupHash(files);
-                    }
-                    retVal = groupHash;
-                } finally {
-                    bundleLock.writeLock().unlock();
+            Hash computed = computeGroupHash(snapshot);
+            try {
+                bundleLock.writeLock().lock();
+                if (version == snapshotVersion && groupHash == null) {
+                    groupHash = computed;
                 }
+                return computed;
+            } finally {
+                bundleLock.writeLock().unlock();
             }
-            return retVal;
         }
 
         /**
@@ -167,19 +177,13 @@ public abstract class CommonFileGroup implements FileGroup {
                 lastMod = Math.max(lastMod, f.lastModified());
                 groupHash = null;
                 files.add(f);
+                version += 1;
             } finally {
                 bundleLock.writeLock().unlock();
             }
         }
     };
 
-    private static final Comparator<URL> compareUrls = new Comparator<URL>() {
-        @Override
-        public int compare(URL url1, URL url2) {
-            return url1.toString().compareTo(url2.toString());
-        }
-    };
-
     protected final String name;
     protected final File root;
 
@@ -221,18 +225,25 @@ public abstract class CommonFileGroup implements FileGroup {
     }
 
     /**
-     * Scan all group files to compute a new hash of current contents. This is used both to initially compute the hash
-     * for the group and also to test for changes from some known version.
+     * Compute a new hash of current contents. This is used both to initially compute the hash for the group and also
+     * to test for changes from some known version.
+     *
+     * The hash combines the digests of the files, in the order of their URLs. File digests are kept by path, length
+     * and last modified time, so only files that changed since they were last hashed are read.
      *
      * @return a newly-computed Hash.
      * @throws IOException
      */
     protected static Hash computeGroupHash(Set<File> files) throws IOException {
-        Set<URL> urls = new TreeSet<URL>(compareUrls);
+        SortedMap<String, File> byUrl = new TreeMap<String, File>();
         for (File file : files) {
-            urls.add(file.toURI().toURL());
+            byUrl.put(file.toURI().toURL().toString(), file);
+        }
+        MessageDigest digest = FileDigestCache.newDigest();
+        for (byte[] fileDigest : FileDigestCache.getDigests(new ArrayList<File>(byUrl.values()))) {
+            digest.update(fileDigest);
         }
-        return new Hash(new MultiStreamReader(urls));
+        return new Hash(digest.digest());
     }
 
     /**
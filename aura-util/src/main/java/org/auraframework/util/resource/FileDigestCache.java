@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.util.resource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+
+/**
+ * MD5 digests of single files, kept by path and checked against the length and last modified time on each use.
+ *
+ * Group hashes are combined from these, so only the files that changed since a group was last hashed are read again,
+ * and checking whether a group is stale costs little more than listing its files. When many files are not known yet,
+ * as when a group is first hashed, they are read on several threads.
+ */
+final class FileDigestCache {
+    /**
+     * Fewer unknown files are read on the calling thread, starting threads costs more than it saves.
+     */
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    private static final int MAX_THREADS = 8;
+
+    private static final Cache<String, Entry> digests = CacheBuilder.newBuilder().maximumSize(16 * 1024).build();
+
+    private static class Entry {
+        private final long lastModified;
+        private final long length;
+        private final byte[] digest;
+
+        private Entry(long lastModified, long length, byte[] digest) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.digest = digest;
+        }
+    }
+
+    private FileDigestCache() {
+    }
+
+    /**
+     * Get the digest of a file, reading it if it is not known or has changed.
+     *
+     * @param file the file.
+     * @return the MD5 digest of its contents, not to be modified.
+     * @throws IOException if the file could not be read.
+     */
+    static byte[] getDigest(File file) throws IOException {
+        String key = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        Entry entry = digests.getIfPresent(key);
+
+        if (entry == null || entry.lastModified != lastModified || entry.length != length) {
+            entry = new Entry(lastModified, length, digest(file));
+            digests.put(key, entry);
+        }
+        return entry.digest;
+    }
+
+    /**
+     * Get the digests of several files, in the same order.
+     *
+     * @param files the files.
+     * @return the digests.
+     * @throws IOException if any file could not be read.
+     */
+    static List<byte[]> getDigests(List<File> files) throws IOException {
+        List<File> unknown = Lists.newArrayList();
+        for (File file : files) {
+            Entry entry = digests.getIfPresent(file.getAbsolutePath());
+            if (entry == null || entry.lastModified != file.lastModified() || entry.length != file.length()) {
+                unknown.add(file);
+            }
+        }
+        if (unknown.size() >= PARALLEL_THRESHOLD) {
+            readAll(unknown);
+        }
+        List<byte[]> result = Lists.newArrayListWithCapacity(files.size());
+        for (File file : files) {
+            result.add(getDigest(file));
+        }
+        return result;
+    }
+
+    private static void readAll(List<File> files) throws IOException {
+        int threads = Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new DigestThreadFactory());
+        try {
+            List<Future<byte[]>> futures = Lists.newArrayListWithCapacity(files.size());
+            for (final File file : files) {
+                futures.add(executor.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws IOException {
+                        return getDigest(file);
+                    }
+                }));
+            }
+            for (Future<byte[]> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ee) {
+                    Throwable cause = ee.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new RuntimeException(cause);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while hashing files");
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] digest(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        FileInputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return digest.digest();
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("MD5 is a required MessageDigest algorithm, but is not registered here.");
+        }
+    }
+
+    private static class DigestThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "AuraFileDigest-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -168,6 +168,8 @@ public class AuraTextUtilTest extends UnitTestCase {
             new StringPair("'abc'", "\\'abc\\'"), new StringPair("<!--", "\\u003C\\u0021--"),
             new StringPair("-->", "--\\u003E"), new StringPair("\"", "\\\""), new StringPair("\\", "\\\\"),
             new StringPair("\u0000", ""),
+            new StringPair("/*a*/", "/*a\\u002A/"), new StringPair("a!-!b*", "a!-!b*"),
+            new StringPair("\u00e9\u2029\tx", "\u00e9\\u2029\\tx"),
             new StringPair("0123456789/!@#$%^&*()-_abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ"), };
 
     public void testEscapeForJavascriptString() {
@@ -183,6 +185,8 @@ public class AuraTextUtilTest extends UnitTestCase {
             new StringPair("\n", "\\n"), new StringPair("\u2028", "\\n"), new StringPair("'abc'", "'abc'"),
             new StringPair("<!--", "\\u003C\\u0021--"), new StringPair("-->", "--\\u003E"),
             new StringPair("\"", "\\\""), new StringPair("\\", "\\\\"), new StringPair("\u0000", ""),
+            new StringPair("/*a*/", "/*a\\u002A/"), new StringPair("a!-!b*", "a!-!b*"),
+            new StringPair("\u00e9\u2029\tx", "\u00e9\\u2029\\tx"),
             new StringPair("0123456789/!@#$%^&*()-_abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ"), };
 
     public void testEscapeForJSONString() {
@@ -191,6 +195,16 @@ public class AuraTextUtilTest extends UnitTestCase {
         }
     }
 
+    public void testEscapeForJSONStringToAppendable() throws Exception {
+        for (StringPair p : JSON_STRING_PAIRS) {
+            if (p.input != null) {
+                StringBuilder sb = new StringBuilder("prefix");
+                AuraTextUtil.escapeForJSONString(p.input, sb);
+                assertEquals("prefix" + p.expected, sb.toString());
+            }
+        }
+    }
+
     private static class SplitMatch {
         public final String input;
         public final String delimiter;
@@ -354,4 +368,13 @@ public class AuraTextUtilTest extends UnitTestCase {
         }
     }
 
+    public void testIntern() {
+        String first = new String("aura");
+        String second = new String("aura");
+
+        assertSame(AuraTextUtil.intern(first), AuraTextUtil.intern(second));
+        assertEquals("aura", AuraTextUtil.intern(second));
+        assertNull(AuraTextUtil.intern(null));
+    }
+
 }
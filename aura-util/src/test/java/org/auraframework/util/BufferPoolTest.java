@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.util;
+
+import org.auraframework.test.UnitTestCase;
+import org.auraframework.test.annotation.ThreadHostileTest;
+
+/**
+ * The pool is shared by the whole vm, these tests need it to themselves.
+ */
+@ThreadHostileTest
+public class BufferPoolTest extends UnitTestCase {
+    private static final int CHARS = 1024 * 1024;
+
+    public BufferPoolTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Take builders of the size until one has to be made, so that the class it comes from is empty.
+     */
+    private void drainStringBuilders(int size) {
+        long misses = BufferPool.getMissCount();
+        while (BufferPool.getMissCount() == misses) {
+            BufferPool.getStringBuilder(size);
+        }
+    }
+
+    /**
+     * Take buffers of the size until one has to be made, so that the class it comes from is empty.
+     */
+    private void drainBytes(int size) {
+        long misses = BufferPool.getMissCount();
+        while (BufferPool.getMissCount() == misses) {
+            BufferPool.getBytes(size);
+        }
+    }
+
+    public void testStringBuilderIsReused() throws Exception {
+        drainStringBuilders(CHARS);
+        StringBuilder sb = BufferPool.getStringBuilder(CHARS);
+        assertTrue(sb.capacity() >= CHARS);
+        sb.append("left over");
+        BufferPool.release(sb);
+
+        long hits = BufferPool.getHitCount();
+        StringBuilder again = BufferPool.getStringBuilder(CHARS);
+        assertSame("The released builder should be reused", sb, again);
+        assertEquals(hits + 1, BufferPool.getHitCount());
+        assertEquals("A released builder should come back empty", 0, again.length());
+        BufferPool.release(again);
+    }
+
+    /**
+     * Builders smaller than the smallest class are not taken in.
+     */
+    public void testSmallStringBuilderIsNotPooled() throws Exception {
+        drainStringBuilders(0);
+        BufferPool.release(new StringBuilder(100));
+
+        long misses = BufferPool.getMissCount();
+        assertTrue(BufferPool.getStringBuilder(100).capacity() > 100);
+        assertEquals(misses + 1, BufferPool.getMissCount());
+    }
+
+    public void testOversizeIsNotPooled() throws Exception {
+        long oversize = BufferPool.getOversizeCount();
+        StringBuilder sb = BufferPool.getStringBuilder(8 * CHARS);
+        assertTrue(sb.capacity() >= 8 * CHARS);
+        BufferPool.release(sb);
+        assertEquals(oversize + 2, BufferPool.getOversizeCount());
+    }
+
+    public void testBytes() throws Exception {
+        drainBytes(100);
+        byte[] buffer = BufferPool.getBytes(100);
+        assertTrue(buffer.length >= 100);
+        BufferPool.release(buffer);
+
+        long hits = BufferPool.getHitCount();
+        assertSame("The released buffer should be reused", buffer, BufferPool.getBytes(100));
+        assertEquals(hits + 1, BufferPool.getHitCount());
+    }
+
+    /**
+     * Only buffers of the sizes the pool hands out are taken in.
+     */
+    public void testBytesOfOtherSizesAreNotPooled() throws Exception {
+        drainBytes(100);
+        BufferPool.release(new byte[100]);
+        BufferPool.release(new byte[10000]);
+
+        long misses = BufferPool.getMissCount();
+        byte[] buffer = BufferPool.getBytes(100);
+        assertEquals(misses + 1, BufferPool.getMissCount());
+        assertTrue(buffer.length != 100 && buffer.length != 10000);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.util.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+import org.auraframework.test.UnitTestCase;
+import org.auraframework.util.Utf8OutputStreamWriter;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Test cases for the Utf8OutputStreamWriter
+ */
+public class Utf8OutputStreamWriterTest extends UnitTestCase {
+
+    public Utf8OutputStreamWriterTest(String name) {
+        super(name);
+    }
+
+    public void testMatchesStringEncoding() throws Exception {
+        final String testChars = "abc \u00e9\u00df \u20ac\u4e2d \ud83d\ude00 end";
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Writer writer = new Utf8OutputStreamWriter(baos, 4);
+        writer.write(testChars);
+        writer.close();
+        assertTrue(Arrays.equals(testChars.getBytes(Charsets.UTF_8), baos.toByteArray()));
+    }
+
+    public void testAppendRangeAndSplitSurrogates() throws Exception {
+        final String testChars = "xx\ud83d\ude00yy";
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Writer writer = new Utf8OutputStreamWriter(baos);
+        writer.append(testChars, 2, 3);
+        writer.flush();
+        assertEquals("High surrogate should wait for its pair", 0, baos.size());
+        writer.append(testChars, 3, 5);
+        writer.append('!');
+        writer.close();
+        assertEquals("\ud83d\ude00y!", new String(baos.toByteArray(), Charsets.UTF_8));
+    }
+
+    public void testUnpairedSurrogates() throws Exception {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final Writer writer = new Utf8OutputStreamWriter(baos);
+        writer.write("a\ude00b\ud83dc\ud83d");
+        writer.close();
+        assertEquals("a?b?c?", new String(baos.toByteArray(), Charsets.UTF_8));
+    }
+}
@@ -157,14 +157,14 @@ public class CommonJavascriptGroupImplTest extends UnitTestCase {
             // just add same file to trigger
             test.addFile("testGetGroupHash.js");
             hash = test.getGroupHash();
-            assertEquals("Hash should have been updated after file added to group", "4EZCacmVcFMwWJRaluefgw",
+            assertEquals("Hash should have been updated after file added to group", "VcJq5RiJJf3lvirIkz6T6A",
                     hash.toString());
 
             // hash value doesn't change when adding empty directory to group
             test.addDirectory("testDir");
             hash = test.getGroupHash();
             assertEquals("Hash should not have changed after adding empty directory to group",
-                    "4EZCacmVcFMwWJRaluefgw", hash.toString());
+                    "VcJq5RiJJf3lvirIkz6T6A", hash.toString());
 
             // hash value should change when adding non-empty directory to group
             writer = new FileWriter(nestedFile, false);
@@ -178,7 +178,7 @@ public class CommonJavascriptGroupImplTest extends UnitTestCase {
             test.addDirectory("testDir");
             hash = test.getGroupHash();
             assertEquals("Hash should have been updated after adding non-empty directory to group",
-                    "CUadD1uu9gF9HA_AFPb0Cg", hash.toString());
+                    "cJHsdKSS3fNDE839A7febg", hash.toString());
         } finally {
             IOUtil.delete(dest);
             IOUtil.delete(nestedFile.getParentFile());
@@ -1082,4 +1082,65 @@ public class JsonStreamReaderTest extends UnitTestCase {
         reader = new JsonStreamReader(new ByteArrayInputStream("['hello, world']".getBytes(Charsets.UTF_8)));
         reader.disableLengthLimitsBecauseIAmStreamingAndMyMemoryUseIsNotProportionalToTheStreamLength();
     }
+
+    /**
+     * Numbers come back as BigDecimal unless primitive numbers are asked for, and then only those that fit.
+     */
+    public void testPrimitiveNumbers() throws Exception {
+        String json = "[1, -12345678901234, 1.25, 1e400, 123456789012345678901, 0.1]";
+        JsonStreamReader reader = new JsonStreamReader(json);
+        reader.next();
+        for (Object o : reader.getList()) {
+            assertTrue(o instanceof BigDecimal);
+        }
+
+        reader = new JsonStreamReader(json);
+        reader.setPrimitiveNumbersEnabled(true);
+        reader.next();
+        List<Object> list = reader.getList();
+        assertEquals(Long.valueOf(1), list.get(0));
+        assertEquals(Long.valueOf(-12345678901234L), list.get(1));
+        assertEquals(Double.valueOf(1.25), list.get(2));
+        assertEquals(new BigDecimal("1e400"), list.get(3));
+        assertEquals(new BigDecimal("123456789012345678901"), list.get(4));
+        assertEquals(Double.valueOf(0.1), list.get(5));
+
+        reader = new JsonStreamReader("42");
+        reader.setPrimitiveNumbersEnabled(true);
+        reader.next();
+        assertEquals(new BigDecimal(42), reader.getNumber());
+    }
+
+    /**
+     * Input longer than the read buffer parses the same, repeated keys share one String, and errors still report the
+     * right line.
+     */
+    @SuppressWarnings("unchecked")
+    public void testInputSpanningBuffers() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            json.append("{\"key\":\"value").append(i).append("\", n:").append(i).append("},\n");
+        }
+        json.append("{\"key\":\"value\\u0041\"}]");
+
+        JsonStreamReader reader = new JsonStreamReader(new StringReader(json.toString()));
+        reader.next();
+        List<Object> list = reader.getList();
+        assertEquals(2001, list.size());
+        Map<String, Object> first = (Map<String, Object>) list.get(0);
+        Map<String, Object> last = (Map<String, Object>) list.get(1999);
+        assertEquals("value1999", last.get("key"));
+        assertEquals(new BigDecimal(1999), last.get("n"));
+        assertEquals("valueA", ((Map<String, Object>) list.get(2000)).get("key"));
+        assertSame(first.keySet().iterator().next(), last.keySet().iterator().next());
+
+        json.setLength(json.length() - 1);
+        json.append(",\n'unterminated");
+        try {
+            new JsonStreamReader(new StringReader(json.toString())).next();
+            fail("Should have failed to parse an unterminated string");
+        } catch (JsonStreamParseException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().endsWith("[2001, 13]"));
+        }
+    }
 }
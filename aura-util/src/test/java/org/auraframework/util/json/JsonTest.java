@@ -23,6 +23,7 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.TreeMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -177,6 +178,74 @@ public class JsonTest extends UnitTestCase {
                 Json.serialize(objArray2, false, true));
     }
 
+    public void testCaptureAndWriteFragment() throws IOException {
+        final JsonIdentitySerializableTest obj1 = new JsonIdentitySerializableTest(1);
+        final JsonIdentitySerializableTest obj2 = new JsonIdentitySerializableTest(2);
+        String value = "\"value\":\"JsonIdentitySerializableTest serialized string\"";
+        JsonSerializationContext context = new DefaultJsonSerializationContext(false, true, false);
+        final JsonFragment fragment = Json.capture(context, new JsonSerializable() {
+            @Override
+            public void serialize(Json json) throws IOException {
+                json.writeArray(new Object[] { obj1, obj1 });
+            }
+        });
+        assertEquals("[{\"serId\":1," + value + "},{\"serRefId\":1}]", fragment.toString());
+
+        // ids in the fragment follow the ones already written, and later values can refer to it
+        StringBuilder sb = new StringBuilder();
+        Json json = new Json(sb, null, context);
+        json.writeArrayBegin();
+        json.writeArrayEntry(obj2);
+        json.writeComma();
+        json.writeFragment(fragment);
+        json.writeArrayEntry(obj1);
+        json.writeArrayEnd();
+        assertEquals("[{\"serId\":1," + value + "},[{\"serId\":2," + value + "},{\"serRefId\":2}],{\"serRefId\":2}]",
+                sb.toString());
+
+        // fragments can be captured inside fragments
+        JsonFragment outer = Json.capture(context, new JsonSerializable() {
+            @Override
+            public void serialize(Json json) throws IOException {
+                json.writeArrayBegin();
+                json.writeArrayEntry(obj2);
+                json.writeComma();
+                json.writeFragment(fragment);
+                json.writeArrayEntry(obj1);
+                json.writeArrayEnd();
+            }
+        });
+        assertEquals(sb.toString(), outer.toString());
+        sb = new StringBuilder();
+        json = new Json(sb, null, context);
+        json.writeArrayBegin();
+        json.writeArrayEntry(obj2);
+        json.writeComma();
+        json.writeFragment(outer);
+        json.writeArrayEntry(obj2);
+        json.writeArrayEnd();
+        assertEquals("[{\"serId\":1," + value + "},[{\"serId\":2," + value + "},[{\"serId\":3," + value
+                + "},{\"serRefId\":3}],{\"serRefId\":3}],{\"serRefId\":1}]", sb.toString());
+    }
+
+    public void testWriteFragmentWithoutRefSupport() throws IOException {
+        JsonFragment fragment = Json.capture(new DefaultJsonSerializationContext(false, false, false),
+                new JsonSerializable() {
+                    @Override
+                    public void serialize(Json json) throws IOException {
+                        json.writeMap(new TreeMap<String, Object>(Collections.singletonMap("a", 1)));
+                    }
+                });
+        StringBuilder sb = new StringBuilder();
+        new Json(sb, false, false).writeFragment(fragment);
+        assertEquals("{\"a\":1}", sb.toString());
+        try {
+            new Json(new StringBuilder(), false, true).writeFragment(fragment);
+            fail("Fragment without ids can't be written with reference support");
+        } catch (Json.JsonException expected) {
+        }
+    }
+
     public void testWriteMapBegin() throws IOException {
         Json json = new Json(new StringBuilder(), false, false);
         json.writeMapBegin();
@@ -61,4 +61,31 @@ public interface ConfigAdapter extends AuraAdapter {
     String getMomentJSURL();
 
     List<String> getWalltimeJSURLs();
+
+    /**
+     * Applications (qualified descriptor names) to compile when the server starts, before it serves requests.
+     */
+    List<String> getWarmUpApplications();
+
+    /**
+     * Modes in which the warm-up applications are compiled.
+     */
+    Set<Mode> getWarmUpModes();
+
+    /**
+     * Number of threads compiling warm-up applications.
+     */
+    int getWarmUpThreads();
+
+    /**
+     * Number of threads fetching and parsing definitions ahead of the compiling thread, 0 to parse everything on the
+     * compiling thread.
+     */
+    int getCompileThreads();
+
+    /**
+     * Number of threads running action requests, 0 to run them on the container thread. Requests are only handed
+     * off when the servlet and every filter in its chain support async.
+     */
+    int getActionThreads();
 }
@@ -49,5 +49,10 @@ public interface ContextAdapter extends AuraAdapter {
     
     boolean isEstablished();
 
+    /**
+     * Make an already established context the current one on this thread.
+     */
+    void bind(AuraContext context);
+
     AuraContext getCurrentContext();
 }
@@ -27,5 +27,10 @@ public interface LoggingAdapter extends AuraAdapter {
 
     void release();
 
+    /**
+     * Make an already established logging context the current one on this thread.
+     */
+    void bind(LoggingContext loggingContext);
+
     LoggingContext getLoggingContext();
 }
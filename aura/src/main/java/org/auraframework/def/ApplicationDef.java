@@ -42,6 +42,11 @@ public interface ApplicationDef extends BaseComponentDef {
 
     List<String> getAdditionalAppCacheURLs() throws QuickFixException;
 
+    /**
+     * Does the application list URLs for the app cache, without running the action that gets them.
+     */
+    boolean hasAdditionalAppCacheURLs();
+
     Boolean isOnePageApp() throws QuickFixException;
 
     /**
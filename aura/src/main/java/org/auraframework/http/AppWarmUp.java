@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.http;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.auraframework.Aura;
+import org.auraframework.adapter.ConfigAdapter;
+import org.auraframework.clientlibrary.ClientLibraryService;
+import org.auraframework.def.ApplicationDef;
+import org.auraframework.def.ClientLibraryDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.service.ContextService;
+import org.auraframework.system.AuraContext;
+import org.auraframework.system.AuraContext.Access;
+import org.auraframework.system.AuraContext.Format;
+import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.system.MasterDefRegistry;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Precompiles the applications listed by {@link ConfigAdapter#getWarmUpApplications()} so the first real request
+ * for each of them finds its dependencies, app.js, app.css and client library output already cached.
+ *
+ * Each (application, mode) pair is compiled on its own thread from a pool of
+ * {@link ConfigAdapter#getWarmUpThreads()} threads, in its own context. Failures are logged and do not stop the
+ * other pairs, a broken app should not keep the node from starting.
+ */
+public class AppWarmUp {
+    private static final Log LOG = LogFactory.getLog(AppWarmUp.class);
+
+    private final List<String> applications;
+    private final Collection<Mode> modes;
+    private final int threads;
+
+    public AppWarmUp(List<String> applications, Collection<Mode> modes, int threads) {
+        this.applications = applications;
+        this.modes = modes;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Run the warm-up as configured, if anything is configured.
+     */
+    public static void runConfigured() {
+        ConfigAdapter config = Aura.getConfigAdapter();
+        List<String> apps = config.getWarmUpApplications();
+        if (apps != null && !apps.isEmpty()) {
+            new AppWarmUp(apps, config.getWarmUpModes(), config.getWarmUpThreads()).run();
+        }
+    }
+
+    /**
+     * Compile everything, returning once all work is done.
+     *
+     * @return the number of (application, mode) pairs that failed.
+     */
+    public int run() {
+        long start = System.currentTimeMillis();
+        final int total = applications.size() * modes.size();
+        final AtomicInteger done = new AtomicInteger();
+        int failed = 0;
+
+        LOG.info(String.format("Warming up %d application(s) in %d mode(s) on %d thread(s)", applications.size(),
+                modes.size(), threads));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new WarmUpThreadFactory());
+        try {
+            List<Future<Void>> futures = Lists.newArrayList();
+            for (final String app : applications) {
+                for (final Mode mode : modes) {
+                    futures.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            long appStart = System.currentTimeMillis();
+                            warmUp(app, mode);
+                            LOG.info(String.format("Warmed up %s (%s) in %dms [%d/%d]", app, mode,
+                                    System.currentTimeMillis() - appStart, done.incrementAndGet(), total));
+                            return null;
+                        }
+                    }));
+                }
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ee) {
+                    failed += 1;
+                    LOG.error("Warm up failed", ee.getCause());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        LOG.info(String.format("Warm up finished in %dms, %d of %d failed", System.currentTimeMillis() - start,
+                failed, total));
+        return failed;
+    }
+
+    /**
+     * Compile one application in one mode, producing the same cached artifacts a browser load would.
+     */
+    protected void warmUp(String app, Mode mode) throws Exception {
+        ContextService contextService = Aura.getContextService();
+        DefDescriptor<ApplicationDef> appDesc = Aura.getDefinitionService().getDefDescriptor(app,
+                ApplicationDef.class);
+        AuraContext context = contextService.startContext(mode, Format.JS, Access.AUTHENTICATED, appDesc);
+        try {
+            MasterDefRegistry mdr = context.getDefRegistry();
+            String uid = mdr.getUid(null, appDesc);
+            context.addLoaded(appDesc, uid);
+            Set<DefDescriptor<?>> dependencies = mdr.getDependencies(uid);
+
+            Appendable discard = new DiscardingAppendable();
+            AuraResourceServlet.writeDefinitions(dependencies, discard);
+            AuraResourceServlet.writeAppCss(dependencies, discard);
+
+            ClientLibraryService clientLibraryService = Aura.getClientLibraryService();
+            clientLibraryService.getUrls(context, ClientLibraryDef.Type.JS);
+            clientLibraryService.getUrls(context, ClientLibraryDef.Type.CSS);
+            clientLibraryService.writeJs(context, discard);
+            clientLibraryService.writeCss(context, discard);
+        } finally {
+            contextService.endContext();
+        }
+    }
+
+    private static class WarmUpThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "AuraWarmUp-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    /**
+     * Output is only produced for its caching side effects.
+     */
+    private static class DiscardingAppendable implements Appendable {
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            return this;
+        }
+    }
+}
@@ -37,19 +37,18 @@ import org.auraframework.def.ApplicationDef;
 import org.auraframework.def.BaseComponentDef;
 import org.auraframework.def.ComponentDef;
 import org.auraframework.def.DefDescriptor;
-import org.auraframework.def.DefDescriptor.DefType;
 import org.auraframework.def.Definition;
 import org.auraframework.http.RequestParam.BooleanParam;
 import org.auraframework.http.RequestParam.EnumParam;
 import org.auraframework.http.RequestParam.InvalidParamException;
 import org.auraframework.http.RequestParam.StringParam;
-import org.auraframework.service.DefinitionService;
 import org.auraframework.service.LoggingService;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Access;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.system.AuraContext.Mode;
 import org.auraframework.system.Client;
+import org.auraframework.system.LoadedSet;
 import org.auraframework.system.MasterDefRegistry;
 import org.auraframework.test.Resettable;
 import org.auraframework.test.TestContext;
@@ -57,8 +56,6 @@ import org.auraframework.test.TestContextAdapter;
 import org.auraframework.util.AuraTextUtil;
 import org.auraframework.util.json.JsonReader;
 
-import com.google.common.collect.Maps;
-
 public class AuraContextFilter implements Filter {
     private static final boolean isProduction = Aura.getConfigAdapter().isProduction();
 
@@ -220,35 +217,7 @@ public class AuraContextFilter implements Filter {
         }
         @SuppressWarnings("unchecked")
         Map<String, String> loaded = (Map<String, String>) loadedEntry;
-        DefinitionService definitionService = Aura.getDefinitionService();
-        Map<DefDescriptor<?>,String> clientLoaded = Maps.newHashMap();
-
-        for (Map.Entry<String, String> entry : loaded.entrySet()) {
-            String uid = entry.getValue();
-            if (uid != null && !uid.equals("null")) {
-                String key = entry.getKey();
-                int posn = key.indexOf("@");
-                if (posn > 0) {
-                    String typeStr = key.substring(0, posn);
-                    String defStr = key.substring(posn + 1);
-                    DefType type = null;
-                    try {
-                        type = DefType.valueOf(typeStr);
-                    } catch (Throwable t) {
-                        // ignore unknown types...
-                        // We really should log these at a level where we can
-                        // see them, but, well, we don't have that now.
-                    }
-                    if (type != null) {
-                        DefDescriptor<?> ld = null;
-
-                        ld = definitionService.getDefDescriptor(defStr, type.getPrimaryInterface());
-                        clientLoaded.put(ld, uid);
-                    }
-                }
-            }
-        }
-        context.setClientLoaded(clientLoaded);
+        context.setClientLoaded(LoadedSet.parse(loaded).getUids());
     }
 
     @SuppressWarnings("unchecked")
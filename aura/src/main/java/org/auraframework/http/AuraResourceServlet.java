@@ -47,11 +47,15 @@ import org.auraframework.service.InstanceService;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Mode;
 import org.auraframework.system.MasterDefRegistry;
+import org.auraframework.system.SourceListener;
 import org.auraframework.throwable.ClientOutOfSyncException;
 import org.auraframework.throwable.quickfix.QuickFixException;
+import org.auraframework.util.BufferPool;
 import org.auraframework.util.javascript.JavascriptProcessingError;
 import org.auraframework.util.javascript.JavascriptWriter;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -79,6 +83,20 @@ public class AuraResourceServlet extends AuraBaseServlet {
 
     private static ServletContext servletContext;
 
+    /**
+     * Rendered manifests, dropped on any source change. Browsers fetch the manifest on every page load.
+     */
+    private static final Cache<String, String> manifestCache = CacheBuilder.newBuilder().maximumSize(256).build();
+
+    static {
+        Aura.getDefinitionService().subscribeToChangeNotification(new SourceListener() {
+            @Override
+            public void onSourceChanged(DefDescriptor<?> source, SourceMonitorEvent event, String filePath) {
+                manifestCache.invalidateAll();
+            }
+        });
+    }
+
     /**
      * Provide a better way of distinguishing templates from styles..
      * 
@@ -299,50 +317,98 @@ public class AuraResourceServlet extends AuraBaseServlet {
                 return;
             }
 
-            //
-            // This writes both the app and framework signatures into
-            // the manifest, so that if either one changes, the
-            // manifest will change. Note that in most cases, we will
-            // write these signatures in multiple places, but we just
-            // need to make sure that they are in at least one place.
-            //
-            Map<String, Object> attribs = Maps.newHashMap();
-            attribs.put(LAST_MOD,
-                    String.format("app=%s, FW=%s", getContextAppUid(), Aura.getConfigAdapter().getAuraFrameworkNonce()));
-            attribs.put(UID, getContextAppUid());
-            StringWriter sw = new StringWriter();
-
-            for (String s : getStyles()) {
-                sw.write(s);
-                sw.write('\n');
+            String key = getManifestKey(context);
+            String manifest = key != null ? manifestCache.getIfPresent(key) : null;
+            if (manifest == null) {
+                manifest = renderManifest(descr);
+                if (key != null) {
+                    manifestCache.put(key, manifest);
+                }
             }
+            response.getWriter().write(manifest);
+        } catch (Exception e) {
+            Aura.getExceptionAdapter().handleException(e);
+            // Can't throw exception here: to set manifest OBSOLETE
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    /**
+     * Gets the key for the manifest of the current context, or null if it should not be cached.
+     *
+     * The manifest lists URLs that carry the context, so besides the app and framework UIDs, the key holds the
+     * context as it is written into those URLs. Apps that add URLs of their own get them from a server action, which
+     * can answer differently on every request, so their manifests are not cached.
+     */
+    static String getManifestKey(AuraContext context) throws IOException, QuickFixException {
+        String appUid = getContextAppUid();
+        if (appUid == null) {
+            return null;
+        }
+        DefDescriptor<? extends BaseComponentDef> descr = context.getApplicationDescriptor();
+        if (descr.getDefType().equals(DefType.APPLICATION)
+                && ((ApplicationDef) descr.getDef()).hasAdditionalAppCacheURLs()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(context.getMode()).append('|');
+        sb.append(context.getContextPath()).append('|');
+        sb.append(Aura.getConfigAdapter().getAuraFrameworkNonce()).append('|');
+        sb.append(appUid).append('|');
+        Aura.getSerializationService().write(context, null, AuraContext.class, sb, "HTML");
+        return sb.toString();
+    }
+
+    /**
+     * Render the manifest for the current context.
+     */
+    private static String renderManifest(DefDescriptor<? extends BaseComponentDef> descr) throws QuickFixException,
+            IOException {
+        //
+        // This writes both the app and framework signatures into
+        // the manifest, so that if either one changes, the
+        // manifest will change. Note that in most cases, we will
+        // write these signatures in multiple places, but we just
+        // need to make sure that they are in at least one place.
+        //
+        Map<String, Object> attribs = Maps.newHashMap();
+        attribs.put(LAST_MOD,
+                String.format("app=%s, FW=%s", getContextAppUid(), Aura.getConfigAdapter().getAuraFrameworkNonce()));
+        attribs.put(UID, getContextAppUid());
+        StringWriter sw = new StringWriter();
+
+        for (String s : getStyles()) {
+            sw.write(s);
+            sw.write('\n');
+        }
+
+        for (String s : getScripts()) {
+            sw.write(s);
+            sw.write('\n');
+        }
 
-            for (String s : getScripts()) {
+        // Add in any application specific resources
+        if (descr != null && descr.getDefType().equals(DefType.APPLICATION)) {
+            ApplicationDef def = (ApplicationDef) descr.getDef();
+            for (String s : def.getAdditionalAppCacheURLs()) {
                 sw.write(s);
                 sw.write('\n');
             }
+        }
 
-            // Add in any application specific resources
-            if (descr != null && descr.getDefType().equals(DefType.APPLICATION)) {
-                ApplicationDef def = (ApplicationDef) descr.getDef();
-                for (String s : def.getAdditionalAppCacheURLs()) {
-                    sw.write(s);
-                    sw.write('\n');
-                }
-            }
-
-            attribs.put(RESOURCE_URLS, sw.toString());
+        attribs.put(RESOURCE_URLS, sw.toString());
 
-            DefinitionService definitionService = Aura.getDefinitionService();
-            InstanceService instanceService = Aura.getInstanceService();
-            DefDescriptor<ComponentDef> tmplDesc = definitionService
-                    .getDefDescriptor("ui:manifest", ComponentDef.class);
-            Component tmpl = instanceService.getInstance(tmplDesc, attribs);
-            Aura.getRenderingService().render(tmpl, response.getWriter());
-        } catch (Exception e) {
-            Aura.getExceptionAdapter().handleException(e);
-            // Can't throw exception here: to set manifest OBSOLETE
-            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        DefinitionService definitionService = Aura.getDefinitionService();
+        InstanceService instanceService = Aura.getInstanceService();
+        DefDescriptor<ComponentDef> tmplDesc = definitionService
+                .getDefDescriptor("ui:manifest", ComponentDef.class);
+        Component tmpl = instanceService.getInstance(tmplDesc, attribs);
+        StringBuilder sb = BufferPool.getStringBuilder();
+        try {
+            Aura.getRenderingService().render(tmpl, sb);
+            return sb.toString();
+        } finally {
+            BufferPool.release(sb);
         }
     }
 
@@ -397,9 +463,13 @@ public class AuraResourceServlet extends AuraBaseServlet {
                     orderedStyleDefs.add(dds.getDef());
                 }
             }
-            StringBuffer sb = new StringBuffer();
-            Aura.getSerializationService().writeCollection(orderedStyleDefs, StyleDef.class, sb, "CSS");
-            cached = sb.toString();
+            StringBuilder sb = BufferPool.getStringBuilder();
+            try {
+                Aura.getSerializationService().writeCollection(orderedStyleDefs, StyleDef.class, sb, "CSS");
+                cached = sb.toString();
+            } finally {
+                BufferPool.release(sb);
+            }
             context.getDefRegistry().putCachedString(uid, applicationDescriptor, key, cached);
         }
         out.append(cached);
@@ -474,42 +544,13 @@ public class AuraResourceServlet extends AuraBaseServlet {
         String cached = context.getDefRegistry().getCachedString(uid, applicationDescriptor, key);
 
         if (cached == null) {
-
-
-
-            StringBuilder sb = new StringBuilder();
-
-
-            sb.append("$A.clientService.initDefs({");
-
-            // append component definitions
-            sb.append("componentDefs:");
-            Collection<BaseComponentDef> defs = filterAndLoad(BaseComponentDef.class, dependencies, null);
-            Aura.getSerializationService().writeCollection(defs, BaseComponentDef.class, sb, "JSON");
-            sb.append(",");
-
-            // append event definitions
-            sb.append("eventDefs:");
-            Collection<EventDef> events = filterAndLoad(EventDef.class, dependencies, null);
-            Aura.getSerializationService().writeCollection(events, EventDef.class, sb, "JSON");
-            sb.append(",");
-
-            //
-            // append controller definitions
-            // Dunno how this got to be this way. The code in the Format adaptor was
-            // twisted and stupid,
-            // as it walked the namespaces looking up the same descriptor, with a
-            // string.format that had
-            // the namespace but did not use it. This ends up just getting a single
-            // controller.
-            //
-            sb.append("controllerDefs:");
-            Collection<ControllerDef> controllers = filterAndLoad(ControllerDef.class, dependencies, ACF);
-            Aura.getSerializationService().writeCollection(controllers, ControllerDef.class, sb, "JSON");
-
-            sb.append("});");
-
-            cached = sb.toString();
+            StringBuilder sb = BufferPool.getStringBuilder();
+            try {
+                writeInitDefs(dependencies, sb);
+                cached = sb.toString();
+            } finally {
+                BufferPool.release(sb);
+            }
             // only use closure compiler in prod mode, due to compile cost
             if (minify) {
                 StringWriter sw = new StringWriter();
@@ -526,6 +567,38 @@ public class AuraResourceServlet extends AuraBaseServlet {
         out.append(cached);
     }
 
+    private static void writeInitDefs(Set<DefDescriptor<?>> dependencies, StringBuilder sb)
+            throws IOException, QuickFixException {
+        sb.append("$A.clientService.initDefs({");
+
+        // append component definitions
+        sb.append("componentDefs:");
+        Collection<BaseComponentDef> defs = filterAndLoad(BaseComponentDef.class, dependencies, null);
+        Aura.getSerializationService().writeCollection(defs, BaseComponentDef.class, sb, "JSON");
+        sb.append(",");
+
+        // append event definitions
+        sb.append("eventDefs:");
+        Collection<EventDef> events = filterAndLoad(EventDef.class, dependencies, null);
+        Aura.getSerializationService().writeCollection(events, EventDef.class, sb, "JSON");
+        sb.append(",");
+
+        //
+        // append controller definitions
+        // Dunno how this got to be this way. The code in the Format adaptor was
+        // twisted and stupid,
+        // as it walked the namespaces looking up the same descriptor, with a
+        // string.format that had
+        // the namespace but did not use it. This ends up just getting a single
+        // controller.
+        //
+        sb.append("controllerDefs:");
+        Collection<ControllerDef> controllers = filterAndLoad(ControllerDef.class, dependencies, ACF);
+        Aura.getSerializationService().writeCollection(controllers, ControllerDef.class, sb, "JSON");
+
+        sb.append("});");
+    }
+
     /**
      * Serves up CSS or JS resources for a list of namespaces.
      * 
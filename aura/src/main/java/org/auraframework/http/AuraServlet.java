@@ -22,11 +22,20 @@ import java.net.URI;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
-
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.http.HttpHeaders;
 import org.auraframework.Aura;
 import org.auraframework.def.ApplicationDef;
@@ -49,6 +58,7 @@ import org.auraframework.service.ServerService;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.system.ContextHandle;
 import org.auraframework.system.Message;
 import org.auraframework.throwable.AuraRuntimeException;
 import org.auraframework.throwable.ClientOutOfSyncException;
@@ -105,6 +115,7 @@ import com.google.common.collect.Maps;
  */
 public class AuraServlet extends AuraBaseServlet {
     private static final long serialVersionUID = 2218469644108785216L;
+    private static final Log LOG = LogFactory.getLog(AuraServlet.class);
 
     protected final static StringParam tag = new StringParam(AURA_PREFIX + "tag", 128, true);
     private static final EnumParam<DefType> defTypeParam = new EnumParam<DefType>(AURA_PREFIX + "deftype", false,
@@ -115,11 +126,35 @@ public class AuraServlet extends AuraBaseServlet {
     // FIXME: is this really a good idea?
     private final static StringParam nocacheParam = new StringParam("nocache", 0, false);
 
+    private static ExecutorService actionExecutor;
+    private static boolean actionExecutorInitialized;
+
     @Override
     public void init() throws ServletException {
         super.init();
     }
 
+    /**
+     * Compile the configured warm-up applications before the container routes requests here.
+     */
+    @Override
+    public void init(ServletConfig config) {
+        super.init(config);
+        AppWarmUp.runConfigured();
+    }
+
+    @Override
+    public void destroy() {
+        synchronized (AuraServlet.class) {
+            if (actionExecutor != null) {
+                actionExecutor.shutdown();
+                actionExecutor = null;
+            }
+            actionExecutorInitialized = false;
+        }
+        super.destroy();
+    }
+
     /**
      * Check for the nocache parameter and redirect as necessary.
      *
@@ -368,6 +403,49 @@ public class AuraServlet extends AuraBaseServlet {
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException,
             IOException {
+        ExecutorService executor = request.isAsyncSupported() ? getActionExecutor() : null;
+        if (executor == null) {
+            runPost(request, response);
+            return;
+        }
+        ContextService contextService = Aura.getContextService();
+        ContextHandle handle = contextService.detachContext();
+        AsyncContext async = request.startAsync();
+        async.setTimeout(0);
+        try {
+            executor.execute(new AsyncPost(handle, async, request, response));
+        } catch (RejectedExecutionException ree) {
+            // shutting down, finish it here and let the filter clean up as usual.
+            contextService.resumeContext(handle);
+            try {
+                runPost(request, response);
+            } finally {
+                async.complete();
+            }
+        }
+    }
+
+    /**
+     * Get the pool for action requests, or null to run them on the container thread.
+     *
+     * @see org.auraframework.adapter.ConfigAdapter#getActionThreads()
+     */
+    private static synchronized ExecutorService getActionExecutor() {
+        if (!actionExecutorInitialized) {
+            actionExecutorInitialized = true;
+            int threads = Aura.getConfigAdapter().getActionThreads();
+            if (threads > 0) {
+                actionExecutor = Executors.newFixedThreadPool(threads, new ActionThreadFactory());
+            }
+        }
+        return actionExecutor;
+    }
+
+    /**
+     * Run the actions in a post and write the response.
+     */
+    private void runPost(HttpServletRequest request, HttpServletResponse response) throws ServletException,
+            IOException {
         SerializationService serializationService = Aura.getSerializationService();
         LoggingService loggingService = Aura.getLoggingService();
         ContextService contextService = Aura.getContextService();
@@ -473,4 +551,63 @@ public class AuraServlet extends AuraBaseServlet {
     protected void sendPost404(HttpServletRequest request, HttpServletResponse response) {
         throw new NoAccessException("Missing required perms, or tried to access inaccessible namespace.");
     }
+
+    /**
+     * A post handed off by the container thread.
+     *
+     * The context of the request moves along with it. The filter that established it has returned by the time this
+     * runs, so the logging and release it would have done on the way out happen here instead.
+     */
+    private class AsyncPost implements Runnable {
+        private final ContextHandle handle;
+        private final AsyncContext async;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+
+        private AsyncPost(ContextHandle handle, AsyncContext async, HttpServletRequest request,
+                HttpServletResponse response) {
+            this.handle = handle;
+            this.async = async;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public void run() {
+            ContextService contextService = Aura.getContextService();
+            LoggingService loggingService = Aura.getLoggingService();
+            contextService.resumeContext(handle);
+            try {
+                runPost(request, response);
+            } catch (Throwable t) {
+                LOG.error("Failed to run action request", t);
+                if (!response.isCommitted()) {
+                    response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                }
+            } finally {
+                try {
+                    try {
+                        loggingService.setValue(LoggingService.STATUS, String.valueOf(response.getStatus()));
+                    } catch (Throwable t) {
+                        // ignore.
+                    }
+                    loggingService.doLog();
+                } finally {
+                    contextService.endContext();
+                    async.complete();
+                }
+            }
+        }
+    }
+
+    private static class ActionThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "AuraAction-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.integration;
+
+import java.util.Map;
+
+/**
+ * One component to inject with {@link Integration#injectComponents(java.util.List, Appendable)}.
+ *
+ * The arguments are the same as for {@link Integration#injectComponent(String, Map, String, String, Appendable)}.
+ */
+public class ComponentInjection {
+    private final String tag;
+    private final Map<String, Object> attributes;
+    private final String localId;
+    private final String locatorDomId;
+
+    /**
+     * @param tag Fully qualified (namespace:name) name of the Aura component.
+     * @param attributes A map of the component's attributes as key/value pairs.
+     * @param localId The user-provided locally unique ID of this component.
+     * @param locatorDomId The DOM identifier for the element that will be used as the parent of the component's
+     *            elements.
+     */
+    public ComponentInjection(String tag, Map<String, Object> attributes, String localId, String locatorDomId) {
+        this.tag = tag;
+        this.attributes = attributes;
+        this.localId = localId;
+        this.locatorDomId = locatorDomId;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    public String getLocalId() {
+        return localId;
+    }
+
+    public String getLocatorDomId() {
+        return locatorDomId;
+    }
+}
@@ -16,6 +16,7 @@
 package org.auraframework.integration;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import org.auraframework.throwable.AuraRuntimeException;
@@ -54,6 +55,28 @@ public interface Integration {
             throws UnsupportedUserAgentException, AuraRuntimeException,
             IOException, QuickFixException;
 
+    /**
+     * Generates a single &lt;script&gt; tag that embeds several Aura
+     * components at once.
+     *
+     * This has the same effect as calling
+     * {@link #injectComponent(String, Map, String, String, Appendable)} for
+     * each component in turn, but all of them are created within one
+     * context and sent to the client as one response, so the cost of setting
+     * up is paid once for the whole page.
+     *
+     * @param components
+     *            The components to inject, in order.
+     * @param out
+     *            Destination for injection script content.
+     * @throws AuraRuntimeException
+     * @throws IOException
+     * @throws QuickFixException
+     */
+    void injectComponents(List<ComponentInjection> components, Appendable out)
+            throws UnsupportedUserAgentException, AuraRuntimeException,
+            IOException, QuickFixException;
+
     @Deprecated
     /**
      * @deprecated This method will soon be replaced by a new dependencies framework.
@@ -23,6 +23,7 @@ import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Access;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.system.ContextHandle;
 import org.auraframework.system.SourceLoader;
 import org.auraframework.throwable.quickfix.QuickFixException;
 
@@ -82,6 +83,20 @@ public interface ContextService extends AuraService {
      */
     void endContext();
 
+    /**
+     * Detach the current context and logging context from this thread without ending them, so that another thread
+     * can carry on with {@link #resumeContext(ContextHandle)}. Afterwards no context is established here.
+     */
+    ContextHandle detachContext();
+
+    /**
+     * Establish a detached context and logging context on this thread. They are ended with {@link #endContext()} as
+     * usual, or detached again.
+     *
+     * @throws org.auraframework.throwable.AuraRuntimeException if a context is already established here.
+     */
+    void resumeContext(ContextHandle handle);
+
     /**
      * Get the current context if there is one. Throws a runtime exception if
      * one is not established.
@@ -15,6 +15,7 @@
  */
 package org.auraframework.service;
 
+import java.util.Collection;
 import java.util.Set;
 
 import org.auraframework.Aura;
@@ -23,6 +24,7 @@ import org.auraframework.def.DefDescriptor.DefType;
 import org.auraframework.def.Definition;
 import org.auraframework.def.DescriptorFilter;
 import org.auraframework.system.MasterDefRegistry;
+import org.auraframework.system.SourceChange;
 import org.auraframework.system.SourceListener;
 import org.auraframework.throwable.ClientOutOfSyncException;
 import org.auraframework.throwable.quickfix.DefinitionNotFoundException;
@@ -168,6 +170,14 @@ public interface DefinitionService extends AuraService, SourceListener {
      */
     void updateLoaded(DefDescriptor<?> loading) throws QuickFixException, ClientOutOfSyncException;
 
+    /**
+     * Notify of a batch of source changes at once. Listeners are told about every change, but caches are invalidated
+     * under a single lock acquisition rather than once per file.
+     * 
+     * @param changes - the coalesced changes, in the order they were observed
+     */
+    void onSourcesChanged(Collection<SourceChange> changes);
+
     /**
      * Register interest in real-time changes to source, if available
      * 
@@ -320,6 +320,16 @@ public interface AuraContext {
      */
     boolean isPreloaded(DefDescriptor<?> descriptor);
 
+    /**
+     * Record the answers of {@link #isPreloaded(DefDescriptor)}.
+     *
+     * Output that depends on what is preloaded can only be reused for a context that gives the same answers.
+     *
+     * @param recorder the map to record into, null to stop recording.
+     * @return the previous recorder, null if there was none.
+     */
+    Map<DefDescriptor<?>, Boolean> setPreloadRecorder(Map<DefDescriptor<?>, Boolean> recorder);
+
     /**
      * Get the application (or component) descriptor.
      *
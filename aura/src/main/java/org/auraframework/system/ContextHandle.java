@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.system;
+
+/**
+ * A context and its logging context, detached from the thread that established them.
+ *
+ * Both are bound to a thread while in use, and neither is safe for use by two threads at once. A handle lets a request
+ * hand them to whichever thread carries on with its work, see
+ * {@link org.auraframework.service.ContextService#detachContext()}.
+ */
+public final class ContextHandle {
+    private final AuraContext context;
+    private final LoggingContext loggingContext;
+
+    public ContextHandle(AuraContext context, LoggingContext loggingContext) {
+        this.context = context;
+        this.loggingContext = loggingContext;
+    }
+
+    public AuraContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return the logging context, null if none was established.
+     */
+    public LoggingContext getLoggingContext() {
+        return loggingContext;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.system;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.auraframework.Aura;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.DefDescriptor.DefType;
+import org.auraframework.service.DefinitionService;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Maps;
+
+/**
+ * An immutable set of loaded descriptors and their UIDs, as carried by the context on every request.
+ *
+ * Most clients of an application carry the same set, so sets are interned: parsing the one a request sends, and
+ * looking up the one a context holds, give back a shared instance. Whatever is derived from a set, like its serialized
+ * form here or the outcome of validating it in the registry, is then worked out once for all requests that carry it.
+ */
+public final class LoadedSet {
+    private static final int CACHE_SIZE = 1024;
+
+    private static final Cache<Map<String, String>, LoadedSet> parsed = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE).recordStats().build();
+
+    private static final Cache<Map<DefDescriptor<?>, String>, LoadedSet> interned = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE).recordStats().build();
+
+    private static final LoadedSet EMPTY = new LoadedSet(Collections.<DefDescriptor<?>, String> emptyMap());
+
+    private final Map<DefDescriptor<?>, String> uids;
+    private final int hashCode;
+    private volatile Map<String, String> serialized;
+
+    private LoadedSet(Map<DefDescriptor<?>, String> uids) {
+        this.uids = uids;
+        this.hashCode = uids.hashCode();
+    }
+
+    /**
+     * Get the set for the loaded map sent by a client.
+     *
+     * The keys are of the form type@descriptor. Entries without a UID, or with a key that can't be understood, are
+     * left out.
+     *
+     * @param loaded the map from the client.
+     * @return the interned set.
+     */
+    public static LoadedSet parse(Map<String, String> loaded) {
+        if (loaded.isEmpty()) {
+            return EMPTY;
+        }
+        LoadedSet set = parsed.getIfPresent(loaded);
+        if (set != null) {
+            return set;
+        }
+        DefinitionService definitionService = Aura.getDefinitionService();
+        Map<DefDescriptor<?>, String> uids = Maps.newLinkedHashMap();
+
+        for (Map.Entry<String, String> entry : loaded.entrySet()) {
+            String uid = entry.getValue();
+            String key = entry.getKey();
+            if (uid != null && !uid.equals("null") && key != null) {
+                int posn = key.indexOf("@");
+                if (posn > 0) {
+                    String typeStr = key.substring(0, posn);
+                    String defStr = key.substring(posn + 1);
+                    DefType type = null;
+                    try {
+                        type = DefType.valueOf(typeStr);
+                    } catch (Throwable t) {
+                        // ignore unknown types...
+                        // We really should log these at a level where we can
+                        // see them, but, well, we don't have that now.
+                    }
+                    if (type != null) {
+                        uids.put(definitionService.getDefDescriptor(defStr, type.getPrimaryInterface()), uid);
+                    }
+                }
+            }
+        }
+        set = of(uids);
+        parsed.put(Collections.unmodifiableMap(Maps.newHashMap(loaded)), set);
+        return set;
+    }
+
+    /**
+     * Get the set for a map of descriptors to UIDs.
+     *
+     * @param uids the descriptors and their UIDs, UIDs may be null.
+     * @return the interned set.
+     */
+    public static LoadedSet of(Map<DefDescriptor<?>, String> uids) {
+        if (uids.isEmpty()) {
+            return EMPTY;
+        }
+        LoadedSet set = interned.getIfPresent(uids);
+        if (set == null) {
+            Map<DefDescriptor<?>, String> copy = Collections.unmodifiableMap(Maps.newLinkedHashMap(uids));
+            set = new LoadedSet(copy);
+            interned.put(copy, set);
+        }
+        return set;
+    }
+
+    /**
+     * Get the key a descriptor is serialized under.
+     */
+    public static String getKey(DefDescriptor<?> descriptor) {
+        return descriptor.getDefType().toString() + "@" + descriptor.getQualifiedName();
+    }
+
+    public static CacheStats getStats() {
+        return interned.stats();
+    }
+
+    /**
+     * @return the descriptors and their UIDs, unmodifiable.
+     */
+    public Map<DefDescriptor<?>, String> getUids() {
+        return uids;
+    }
+
+    public boolean isEmpty() {
+        return uids.isEmpty();
+    }
+
+    /**
+     * @return the set as it is serialized to the client, keyed by {@link #getKey(DefDescriptor)}, unmodifiable.
+     */
+    public Map<String, String> getSerialized() {
+        Map<String, String> result = serialized;
+        if (result == null) {
+            result = Maps.newHashMapWithExpectedSize(uids.size());
+            for (Map.Entry<DefDescriptor<?>, String> entry : uids.entrySet()) {
+                result.put(getKey(entry.getKey()), entry.getValue());
+            }
+            result = Collections.unmodifiableMap(result);
+            serialized = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof LoadedSet) {
+            LoadedSet other = (LoadedSet) obj;
+            return hashCode == other.hashCode && uids.equals(other.uids);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return uids.toString();
+    }
+}
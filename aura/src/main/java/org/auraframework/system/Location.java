@@ -17,6 +17,8 @@ package org.auraframework.system;
 
 import java.io.Serializable;
 
+import org.auraframework.util.AuraTextUtil;
+
 /**
  * Information about a location in source code, including filename, line, and
  * column number. The "filename" will in most useful cases be an actual
@@ -42,19 +44,19 @@ public class Location implements Serializable {
     }
 
     public Location(Source<?> source, int line, int column, String cacheFile) {
-        this.fileName = source.getSystemId();
+        this.fileName = AuraTextUtil.intern(source.getSystemId());
         this.lastModified = source.getLastModified();
         this.line = line;
         this.column = column;
-        this.cacheFile = cacheFile;
+        this.cacheFile = AuraTextUtil.intern(cacheFile);
     }
 
     public Location(String fileName, int line, int column, long lastModified, String cacheFile) {
-        this.fileName = fileName;
+        this.fileName = AuraTextUtil.intern(fileName);
         this.line = line;
         this.column = column;
         this.lastModified = lastModified;
-        this.cacheFile = cacheFile;
+        this.cacheFile = AuraTextUtil.intern(cacheFile);
     }
 
     public Location(String fileName, int line, int column, long lastModified) {
@@ -65,6 +67,13 @@ public class Location implements Serializable {
         this(fileName, -1, -1, lastModified, null);
     }
 
+    /**
+     * Share the file name strings of deserialized locations too.
+     */
+    private Object readResolve() {
+        return new Location(fileName, line, column, lastModified, cacheFile);
+    }
+
     public String getFileName() {
         return fileName;
     }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.system;
+
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.system.SourceListener.SourceMonitorEvent;
+
+/**
+ * A single entry of a batch of source changes, as delivered to
+ * {@link org.auraframework.service.DefinitionService#onSourcesChanged(java.util.Collection)}.
+ */
+public final class SourceChange {
+    private final DefDescriptor<?> source;
+    private final SourceMonitorEvent event;
+    private final String filePath;
+
+    /**
+     * @param source - null (affects all) or definition of the source that was affected
+     * @param event - what has happened to that source
+     * @param filePath - the file that changed, if known
+     */
+    public SourceChange(DefDescriptor<?> source, SourceMonitorEvent event, String filePath) {
+        this.source = source;
+        this.event = event;
+        this.filePath = filePath;
+    }
+
+    public DefDescriptor<?> getSource() {
+        return source;
+    }
+
+    public SourceMonitorEvent getEvent() {
+        return event;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    @Override
+    public String toString() {
+        return event + " " + (filePath != null ? filePath : String.valueOf(source));
+    }
+}
@@ -41,6 +41,7 @@ import org.auraframework.def.ModelDef;
 import org.auraframework.def.NamespaceDef;
 import org.auraframework.def.ProviderDef;
 import org.auraframework.def.RendererDef;
+import org.auraframework.def.ResourceDef;
 import org.auraframework.def.StyleDef;
 import org.auraframework.def.TestSuiteDef;
 import org.auraframework.def.ThemeDef;
@@ -332,6 +333,8 @@ public class StringSourceLoader implements SourceLoader {
         RENDERER(RendererDef.class, Format.JS, DefDescriptor.JAVASCRIPT_PREFIX, "."),
         STYLE(StyleDef.class, Format.CSS, DefDescriptor.CSS_PREFIX, "."),
         TESTSUITE(TestSuiteDef.class, Format.JS, DefDescriptor.JAVASCRIPT_PREFIX, "."),
+        // only css resources can be loaded as strings
+        RESOURCE(ResourceDef.class, Format.CSS, DefDescriptor.CSS_PREFIX, "."),
         THEME(ThemeDef.class, Format.XML, DefDescriptor.MARKUP_PREFIX, ":");
 
         private static Map<Class<? extends Definition>, DescriptorInfo> infoMap;